@@ -21,13 +21,13 @@ package aletheia.model.authority;
 
 import java.io.DataOutput;
 import java.io.IOException;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Queue;
 import java.util.Set;
 import java.util.Stack;
 import java.util.UUID;
@@ -41,6 +41,7 @@ import aletheia.model.identifier.Namespace;
 import aletheia.model.identifier.NodeNamespace;
 import aletheia.model.identifier.NodeNamespace.InvalidNameException;
 import aletheia.model.identifier.RootNamespace;
+import aletheia.model.misc.StatusPropagator;
 import aletheia.model.statement.Context;
 import aletheia.model.statement.RootContext;
 import aletheia.model.statement.Statement;
@@ -49,6 +50,7 @@ import aletheia.model.term.Term;
 import aletheia.persistence.PersistenceListener;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
+import aletheia.persistence.Transaction.DeferredProofChecks;
 import aletheia.persistence.collections.authority.LocalDelegateAuthorizerByAuthorizerMap;
 import aletheia.persistence.collections.authority.LocalStatementAuthoritySet;
 import aletheia.persistence.collections.authority.StatementAuthoritySignatureDateSortedSet;
@@ -761,51 +763,95 @@ public class StatementAuthority implements Exportable
 		return true;
 	}
 
-	private static void checkSignedDependenciesUuids(Transaction transaction, Collection<UUID> statementAuthorityUuids)
+	/**
+	 * Common part of the propagators of the signed status of the authorities.
+	 * The authorities are not cached by the transaction, so every new status
+	 * is written immediately; only the evaluation order and the listener
+	 * notifications are managed by the {@link StatusPropagator}.
+	 */
+	private static abstract class SignedStatusPropagator extends StatusPropagator<StatementAuthority>
 	{
-		PersistenceManager persistenceManager = transaction.getPersistenceManager();
-		int changes = 0;
-		Set<UUID> enqueued = new HashSet<>();
-		enqueued.addAll(statementAuthorityUuids);
-		Queue<UUID> queue = new ArrayDeque<>(enqueued);
-		while (!queue.isEmpty())
-		{
-			logger.trace("--> checkSignedDependencies:" + queue.size() + " " + changes);
-			UUID uuid = queue.poll();
-			enqueued.remove(uuid);
-			StatementAuthority sa = persistenceManager.getStatementAuthority(transaction, uuid);
-			if (sa != null)
-			{
-				boolean signedDependencies = sa.calcSignedDependencies(transaction);
-				if (sa.isSignedDependencies() != signedDependencies)
-				{
-					changes++;
-					sa.setSignedDependencies(transaction, signedDependencies);
-					Iterable<StateListener> stateListeners = sa.stateListeners();
-					synchronized (stateListeners)
-					{
-						for (StateListener sl : stateListeners)
-							sl.signedDependenciesStateChanged(transaction, sa, signedDependencies);
-					}
-					Statement st = sa.getStatement(transaction);
-					for (Statement st_ : st.dependents(transaction))
-					{
-						StatementAuthority sa_ = st_.getAuthority(transaction);
+		private final PersistenceManager persistenceManager;
 
-						if (sa_ != null && sa_.isSignedDependencies() != signedDependencies && !enqueued.contains(sa_.getStatementUuid()))
-						{
-							queue.add(sa_.getStatementUuid());
-							enqueued.add(sa_.getStatementUuid());
-						}
-					}
+		private SignedStatusPropagator(Transaction transaction)
+		{
+			super(transaction);
+			this.persistenceManager = transaction.getPersistenceManager();
+		}
 
-				}
-			}
+		@Override
+		protected StatementAuthority load(UUID uuid)
+		{
+			return persistenceManager.getStatementAuthority(getTransaction(), uuid);
+		}
+
+		@Override
+		protected void flush(StatementAuthority statementAuthority)
+		{
+			statementAuthority.persistenceUpdate(getTransaction());
+		}
+
+		@Override
+		protected Collection<UUID> dependencies(StatementAuthority statementAuthority)
+		{
+			return statementAuthority.getStatement(getTransaction()).getUuidDependencies();
+		}
+
+		@Override
+		protected Iterable<UUID> affected(StatementAuthority statementAuthority, boolean status)
+		{
+			List<UUID> affected = new ArrayList<>();
+			for (Statement dependent : statementAuthority.getStatement(getTransaction()).dependents(getTransaction()))
+				affected.add(dependent.getUuid());
+			return affected;
+		}
+
+	}
+
+	private static class SignedDependenciesPropagator extends SignedStatusPropagator
+	{
+		private SignedDependenciesPropagator(Transaction transaction)
+		{
+			super(transaction);
+		}
+
+		@Override
+		protected boolean getStatus(StatementAuthority statementAuthority)
+		{
+			return statementAuthority.isSignedDependencies();
+		}
+
+		@Override
+		protected boolean calcStatus(StatementAuthority statementAuthority)
+		{
+			return statementAuthority.calcSignedDependencies(getTransaction());
+		}
 
+		@Override
+		protected boolean updateStatus(StatementAuthority statementAuthority, boolean signedDependencies)
+		{
+			statementAuthority.setSignedDependencies(getTransaction(), signedDependencies);
+			return false;
+		}
+
+		@Override
+		protected void notifyChanged(StatementAuthority statementAuthority, boolean signedDependencies)
+		{
+			Iterable<StateListener> stateListeners = statementAuthority.stateListeners();
+			synchronized (stateListeners)
+			{
+				for (StateListener sl : stateListeners)
+					sl.signedDependenciesStateChanged(getTransaction(), statementAuthority, signedDependencies);
+			}
 		}
 
 	}
 
+	private static void checkSignedDependenciesUuids(Transaction transaction, Collection<UUID> statementAuthorityUuids)
+	{
+		new SignedDependenciesPropagator(transaction).propagate(statementAuthorityUuids);
+	}
+
 	public static void checkSignedDependencies(Transaction transaction, Collection<StatementAuthority> statementAuthorities)
 	{
 		checkSignedDependenciesUuids(transaction, new BijectionCollection<>(new Bijection<StatementAuthority, UUID>()
@@ -906,68 +952,71 @@ public class StatementAuthority implements Exportable
 
 	}
 
-	public static void checkSignedProofUuids(Transaction transaction, Collection<UUID> statementAuthorityUuids)
+	private static class SignedProofPropagator extends SignedStatusPropagator
 	{
-		PersistenceManager persistenceManager = transaction.getPersistenceManager();
-		int changes = 0;
-		Set<UUID> enqueued = new HashSet<>();
-		enqueued.addAll(statementAuthorityUuids);
-		Queue<UUID> queue = new ArrayDeque<>(enqueued);
-		while (!queue.isEmpty())
-		{
-			logger.trace("--> checkSignedProof:" + queue.size() + " " + changes);
-			UUID uuid = queue.poll();
-			enqueued.remove(uuid);
-			StatementAuthority sa = persistenceManager.getStatementAuthority(transaction, uuid);
-			if (sa != null)
-			{
-				boolean signedProof = sa.calcSignedProof(transaction);
-				if (sa.isSignedProof() != signedProof)
-				{
-					changes++;
-					sa.setSignedProof(transaction, signedProof);
-					Iterable<StateListener> stateListeners = sa.stateListeners();
-					synchronized (stateListeners)
-					{
-						for (StateListener sl : stateListeners)
-							sl.signedProofStateChanged(transaction, sa, signedProof);
-					}
-					Statement st = sa.getStatement(transaction);
-					if (signedProof && !st.isProved())
-						throw new RuntimeException();
-					for (Statement st_ : st.dependents(transaction))
-					{
-						StatementAuthority sa_ = st_.getAuthority(transaction);
-
-						if (sa_ != null && sa_.isSignedProof() != signedProof && !enqueued.contains(sa_.getStatementUuid()))
-						{
-							queue.add(sa_.getStatementUuid());
-							enqueued.add(sa_.getStatementUuid());
-						}
-					}
+		private SignedProofPropagator(Transaction transaction)
+		{
+			super(transaction);
+		}
 
-					if (!(st instanceof RootContext))
-					{
-						for (Context ctx : st.getContext(transaction).descendantContextsByConsequent(transaction, st.getTerm()))
-						{
+		@Override
+		protected boolean getStatus(StatementAuthority statementAuthority)
+		{
+			return statementAuthority.isSignedProof();
+		}
 
-							StatementAuthority sa_ = ctx.getAuthority(transaction);
+		@Override
+		protected boolean calcStatus(StatementAuthority statementAuthority)
+		{
+			return statementAuthority.calcSignedProof(getTransaction());
+		}
 
-							if (sa_ != null && sa_.isSignedProof() != signedProof && !enqueued.contains(sa_.getStatementUuid()))
-							{
-								queue.add(sa_.getStatementUuid());
-								enqueued.add(sa_.getStatementUuid());
-							}
-						}
-					}
+		@Override
+		protected boolean updateStatus(StatementAuthority statementAuthority, boolean signedProof)
+		{
+			statementAuthority.setSignedProof(getTransaction(), signedProof);
+			if (signedProof && !statementAuthority.getStatement(getTransaction()).isProved())
+				throw new RuntimeException();
+			return false;
+		}
 
-				}
+		@Override
+		protected Iterable<UUID> affected(StatementAuthority statementAuthority, boolean signedProof)
+		{
+			List<UUID> affected = new ArrayList<>();
+			for (UUID uuid : super.affected(statementAuthority, signedProof))
+				affected.add(uuid);
+			Statement st = statementAuthority.getStatement(getTransaction());
+			if (!(st instanceof RootContext))
+			{
+				for (Context ctx : st.getContext(getTransaction()).descendantContextsByConsequent(getTransaction(), st.getTerm()))
+					affected.add(ctx.getUuid());
 			}
+			return affected;
+		}
 
+		@Override
+		protected void notifyChanged(StatementAuthority statementAuthority, boolean signedProof)
+		{
+			Iterable<StateListener> stateListeners = statementAuthority.stateListeners();
+			synchronized (stateListeners)
+			{
+				for (StateListener sl : stateListeners)
+					sl.signedProofStateChanged(getTransaction(), statementAuthority, signedProof);
+			}
 		}
 
 	}
 
+	public static void checkSignedProofUuids(Transaction transaction, Collection<UUID> statementAuthorityUuids)
+	{
+		DeferredProofChecks deferredProofChecks = transaction.getDeferredProofChecks();
+		if (deferredProofChecks != null)
+			deferredProofChecks.getSignedProofChecks().addAll(statementAuthorityUuids);
+		else
+			new SignedProofPropagator(transaction).propagate(statementAuthorityUuids);
+	}
+
 	private void checkSignedProof(Transaction transaction)
 	{
 		StatementAuthority.checkSignedProofUuids(transaction, Collections.singleton(getStatementUuid()));
@@ -1045,7 +1094,7 @@ public class StatementAuthority implements Exportable
 		if (!descendants.smaller(70))
 		{
 			boolean safe = false;
-			CloseableIterator<Statement> iterator = context.statementsByTerm(transaction).get(term).iterator();
+			CloseableIterator<Statement> iterator = context.statementsByTerm(transaction, term).iterator();
 			try
 			{
 				while (iterator.hasNext())
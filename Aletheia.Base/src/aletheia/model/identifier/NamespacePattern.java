@@ -17,15 +17,11 @@
  * along with the Aletheia Proof Assistant. If not, see
  * <http://www.gnu.org/licenses/>.
  ******************************************************************************/
-package aletheia.gui.common;
+package aletheia.model.identifier;
 
 import java.util.regex.Pattern;
 
-import aletheia.model.identifier.Identifier;
-import aletheia.model.identifier.Namespace;
-import aletheia.model.identifier.NodeNamespace;
 import aletheia.model.identifier.NodeNamespace.InvalidNameException;
-import aletheia.model.identifier.RootNamespace;
 
 public abstract class NamespacePattern
 {
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.model.misc;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.logging.log4j.Logger;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.persistence.Transaction;
+
+/**
+ * Propagates a boolean status (like the proven status of the statements or
+ * the signed status of their authorities) through a dependency graph.
+ *
+ * The nodes that might change are evaluated in dependency order: a pending
+ * node is not evaluated while any of its known dependencies is still pending
+ * (except for cycles, where the oldest pending node is taken). That way each
+ * node is usually evaluated only once instead of once per changed dependency.
+ * The writes of the new values might be deferred by the implementation until
+ * the end of the propagation, and the listener notifications are always
+ * coalesced at the end: one notification for every node whose final status
+ * differs from its original one.
+ *
+ * @param <S>
+ *            The type of the nodes.
+ */
+public abstract class StatusPropagator<S>
+{
+	private static final Logger logger = LoggerManager.instance.logger();
+
+	private class Node
+	{
+		private final UUID uuid;
+		private final S object;
+		private final boolean original;
+		private Set<UUID> dependencies;
+		private boolean pending;
+		private int blockers;
+		private boolean deferred;
+
+		private Node(UUID uuid, S object)
+		{
+			this.uuid = uuid;
+			this.object = object;
+			this.original = getStatus(object);
+			this.dependencies = null;
+			this.pending = false;
+			this.blockers = 0;
+			this.deferred = false;
+		}
+
+	}
+
+	private final Transaction transaction;
+	private final Map<UUID, Node> nodes;
+	private final Map<UUID, Set<UUID>> waiters;
+	private final Set<UUID> ready;
+	private final Set<UUID> blocked;
+	private int evaluations;
+	private int changes;
+
+	protected StatusPropagator(Transaction transaction)
+	{
+		this.transaction = transaction;
+		this.nodes = new LinkedHashMap<>();
+		this.waiters = new HashMap<>();
+		this.ready = new LinkedHashSet<>();
+		this.blocked = new LinkedHashSet<>();
+		this.evaluations = 0;
+		this.changes = 0;
+	}
+
+	protected Transaction getTransaction()
+	{
+		return transaction;
+	}
+
+	/**
+	 * Obtains the node identified by this {@link UUID}. Called at most once
+	 * per {@link UUID} and propagation.
+	 *
+	 * @return The node or null if it does not exist.
+	 */
+	protected abstract S load(UUID uuid);
+
+	/**
+	 * The current status of the node.
+	 */
+	protected abstract boolean getStatus(S node);
+
+	/**
+	 * Computes the status the node should have.
+	 */
+	protected abstract boolean calcStatus(S node);
+
+	/**
+	 * Sets the status of the node.
+	 *
+	 * @return True if the write to the persistence environment has been
+	 *         deferred and {@link #flush(Object)} must be called at the end.
+	 */
+	protected abstract boolean updateStatus(S node, boolean status);
+
+	/**
+	 * Writes the status of a node whose update has been deferred.
+	 */
+	protected abstract void flush(S node);
+
+	/**
+	 * The {@link UUID}s of the nodes that the status of this one is known to
+	 * depend on. Only used to order the evaluations.
+	 */
+	protected abstract Collection<UUID> dependencies(S node);
+
+	/**
+	 * The {@link UUID}s of the nodes that must be checked when the status of
+	 * this node changes.
+	 */
+	protected abstract Iterable<UUID> affected(S node, boolean status);
+
+	/**
+	 * Notifies the listeners of a status change.
+	 */
+	protected abstract void notifyChanged(S node, boolean status);
+
+	private Node node(UUID uuid)
+	{
+		Node node = nodes.get(uuid);
+		if (node == null && !nodes.containsKey(uuid))
+		{
+			S object = load(uuid);
+			if (object != null)
+				node = new Node(uuid, object);
+			nodes.put(uuid, node);
+		}
+		return node;
+	}
+
+	private boolean isPending(UUID uuid)
+	{
+		Node node = nodes.get(uuid);
+		return node != null && node.pending;
+	}
+
+	private void enqueue(Node node)
+	{
+		if (node.pending)
+			return;
+		node.pending = true;
+		if (node.dependencies == null)
+		{
+			node.dependencies = new HashSet<>(dependencies(node.object));
+			for (UUID dep : node.dependencies)
+				waiters.computeIfAbsent(dep, k -> new HashSet<>()).add(node.uuid);
+		}
+		node.blockers = 0;
+		for (UUID dep : node.dependencies)
+			if (isPending(dep))
+				node.blockers++;
+		Set<UUID> ws = waiters.get(node.uuid);
+		if (ws != null)
+		{
+			for (UUID w : ws)
+			{
+				Node wn = nodes.get(w);
+				if (wn != null && wn.pending)
+				{
+					if (wn.blockers == 0)
+					{
+						ready.remove(w);
+						blocked.add(w);
+					}
+					wn.blockers++;
+				}
+			}
+		}
+		if (node.blockers == 0)
+			ready.add(node.uuid);
+		else
+			blocked.add(node.uuid);
+	}
+
+	private Node dequeue()
+	{
+		Iterator<UUID> iterator = (ready.isEmpty() ? blocked : ready).iterator();
+		Node node = nodes.get(iterator.next());
+		iterator.remove();
+		node.pending = false;
+		Set<UUID> ws = waiters.get(node.uuid);
+		if (ws != null)
+		{
+			for (UUID w : ws)
+			{
+				Node wn = nodes.get(w);
+				if (wn != null && wn.pending && wn.blockers > 0)
+				{
+					wn.blockers--;
+					if (wn.blockers == 0)
+					{
+						blocked.remove(w);
+						ready.add(w);
+					}
+				}
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Checks the status of the nodes identified by these {@link UUID}s and
+	 * propagates the changes.
+	 */
+	public void propagate(Collection<UUID> uuids)
+	{
+		for (UUID uuid : uuids)
+		{
+			Node node = node(uuid);
+			if (node != null)
+				enqueue(node);
+		}
+		while (!ready.isEmpty() || !blocked.isEmpty())
+		{
+			logger.trace("--> propagate:" + (ready.size() + blocked.size()) + " " + evaluations + " " + changes);
+			Node node = dequeue();
+			evaluations++;
+			boolean status = calcStatus(node.object);
+			if (getStatus(node.object) != status)
+			{
+				changes++;
+				if (updateStatus(node.object, status))
+					node.deferred = true;
+				for (UUID uuid : affected(node.object, status))
+				{
+					Node affected = node(uuid);
+					if (affected != null && getStatus(affected.object) != status)
+						enqueue(affected);
+				}
+			}
+		}
+		for (Node node : nodes.values())
+			if (node != null && node.deferred && getStatus(node.object) != node.original)
+				flush(node.object);
+		for (Node node : nodes.values())
+		{
+			if (node != null && getStatus(node.object) != node.original)
+				notifyChanged(node.object, getStatus(node.object));
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.model.nomenclator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+import aletheia.model.identifier.Identifier;
+import aletheia.persistence.Transaction;
+import aletheia.utilities.collections.SoftCacheMap;
+
+/**
+ * The identifier resolutions already made by the {@link SubNomenclator}s of a
+ * {@link Transaction}, one layer per context. A layer keeps the resolutions
+ * as seen from its context (i.e. with the shadowing of the ancestor's
+ * identifiers already applied), and is filled by falling back to the layer of
+ * the parent context, so a repeated lookup doesn't walk the ancestor chain.
+ *
+ * The persistence manager must call to
+ * {@link #statementIdentifierChanged(UUID, Identifier)} every time a
+ * statement is written or deleted.
+ *
+ * @see Transaction#getIdentifierResolutionCache()
+ */
+public class IdentifierResolutionCache
+{
+	private static class Layer
+	{
+		private final Map<Identifier, UUID> identifierToStatement = new HashMap<>();
+		private final Map<UUID, Identifier> statementToIdentifier = new HashMap<>();
+		private final Map<UUID, Identifier> seenIdentifiers = new HashMap<>();
+	}
+
+	private final Map<UUID, Layer> layers;
+
+	/**
+	 * Incremented on every {@link #statementIdentifierChanged(UUID, Identifier)}
+	 * call, so a resolution computed concurrently with a change is not cached.
+	 */
+	private long changes;
+
+	public IdentifierResolutionCache()
+	{
+		this.layers = new SoftCacheMap<>();
+	}
+
+	private Layer layer(UUID contextUuid)
+	{
+		Layer layer = layers.get(contextUuid);
+		if (layer == null)
+		{
+			layer = new Layer();
+			layers.put(contextUuid, layer);
+		}
+		return layer;
+	}
+
+	/**
+	 * The {@link UUID} of the statement identified by this identifier in the
+	 * context, calling to the resolver if it isn't cached.
+	 *
+	 * The resolver is called without holding the lock of this cache, since it
+	 * will normally go to the persistence manager and might get to lock the
+	 * transaction, which in turn calls to
+	 * {@link #statementIdentifierChanged(UUID, Identifier)} while locked.
+	 *
+	 * @return The {@link UUID} of the statement, or null if there is none.
+	 */
+	public UUID resolveIdentifier(UUID contextUuid, Identifier identifier, Function<Identifier, UUID> resolver)
+	{
+		long changes;
+		synchronized (this)
+		{
+			Layer layer = layer(contextUuid);
+			if (layer.identifierToStatement.containsKey(identifier))
+				return layer.identifierToStatement.get(identifier);
+			changes = this.changes;
+		}
+		UUID statementUuid = resolver.apply(identifier);
+		synchronized (this)
+		{
+			if (changes == this.changes)
+			{
+				Layer layer = layer(contextUuid);
+				layer.identifierToStatement.put(identifier, statementUuid);
+				if (statementUuid != null)
+					layer.seenIdentifiers.put(statementUuid, identifier);
+			}
+		}
+		return statementUuid;
+	}
+
+	/**
+	 * The identifier of the statement in the context, calling to the resolver
+	 * if it isn't cached. As in
+	 * {@link #resolveIdentifier(UUID, Identifier, Function)}, the resolver is
+	 * called without holding the lock of this cache.
+	 *
+	 * @return The identifier, or null if there is none.
+	 */
+	public Identifier resolveStatement(UUID contextUuid, UUID statementUuid, Function<UUID, Identifier> resolver)
+	{
+		long changes;
+		synchronized (this)
+		{
+			Layer layer = layer(contextUuid);
+			if (layer.statementToIdentifier.containsKey(statementUuid))
+				return layer.statementToIdentifier.get(statementUuid);
+			changes = this.changes;
+		}
+		Identifier identifier = resolver.apply(statementUuid);
+		synchronized (this)
+		{
+			if (changes == this.changes)
+			{
+				Layer layer = layer(contextUuid);
+				layer.statementToIdentifier.put(statementUuid, identifier);
+				layer.seenIdentifiers.put(statementUuid, identifier);
+			}
+		}
+		return identifier;
+	}
+
+	/**
+	 * Discards the resolutions that might have been affected by a statement
+	 * write or deletion.
+	 *
+	 * @param statementUuid
+	 *            The statement.
+	 * @param identifier
+	 *            The identifier the statement has from now on (null if it has
+	 *            none or it has been deleted).
+	 */
+	public synchronized void statementIdentifierChanged(UUID statementUuid, Identifier identifier)
+	{
+		changes++;
+		for (Layer layer : layers.values())
+		{
+			boolean seen = layer.seenIdentifiers.containsKey(statementUuid);
+			Identifier old = layer.seenIdentifiers.remove(statementUuid);
+			if (seen && Objects.equals(old, identifier))
+				layer.seenIdentifiers.put(statementUuid, old);
+			else
+			{
+				layer.statementToIdentifier.remove(statementUuid);
+				if (old != null)
+					layer.identifierToStatement.remove(old);
+				if (identifier != null)
+					layer.identifierToStatement.remove(identifier);
+			}
+		}
+	}
+
+}
@@ -21,6 +21,7 @@ package aletheia.model.nomenclator;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.UUID;
 
 import aletheia.model.identifier.Identifier;
 import aletheia.model.statement.Context;
@@ -30,10 +31,10 @@ import aletheia.model.term.IdentifiableVariableTerm;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
 import aletheia.protocol.Exportable;
+import aletheia.utilities.collections.AbstractCombinedCloseableSortedMap;
+import aletheia.utilities.collections.AbstractCombinedMap;
 import aletheia.utilities.collections.CloseableMap;
 import aletheia.utilities.collections.CloseableSortedMap;
-import aletheia.utilities.collections.CombinedCloseableSortedMap;
-import aletheia.utilities.collections.CombinedMap;
 
 /**
  * <p>
@@ -102,19 +103,111 @@ public class SubNomenclator extends Nomenclator implements Serializable, Exporta
 		return getContext().getParentNomenclator(getTransaction());
 	}
 
+	/**
+	 * The {@link #identifierToStatement()} map. The point lookups go through
+	 * the {@link IdentifierResolutionCache} of the transaction and the parent
+	 * map is only built when a lookup misses or the map is traversed.
+	 */
+	private class IdentifierToStatement extends AbstractCombinedCloseableSortedMap<Identifier, Statement>
+	{
+		private static final long serialVersionUID = -2014529850343924383L;
+
+		private final Nomenclator parent;
+		private CloseableSortedMap<Identifier, Statement> back;
+
+		private IdentifierToStatement(Nomenclator parent)
+		{
+			super(getLocalIdentifierToStatement());
+			this.parent = parent;
+			this.back = null;
+		}
+
+		@Override
+		protected CloseableSortedMap<Identifier, Statement> getBack()
+		{
+			if (back == null)
+				back = parent.identifierToStatement();
+			return back;
+		}
+
+		@Override
+		public Statement get(Object key)
+		{
+			IdentifierResolutionCache cache = getTransaction().getIdentifierResolutionCache();
+			if (cache == null || !(key instanceof Identifier))
+				return super.get(key);
+			UUID uuid = cache.resolveIdentifier(context.getUuid(), (Identifier) key, identifier -> {
+				Statement statement = super.get(identifier);
+				return statement == null ? null : statement.getUuid();
+			});
+			if (uuid == null)
+				return null;
+			return getPersistenceManager().getStatement(getTransaction(), uuid);
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return get(key) != null;
+		}
+
+	}
+
+	/**
+	 * The {@link #statementToIdentifier()} map, with the point lookups cached
+	 * like in {@link IdentifierToStatement}.
+	 */
+	private class StatementToIdentifier extends AbstractCombinedMap<Statement, Identifier>
+	{
+		private static final long serialVersionUID = 4750919586604437707L;
+
+		private Map<Statement, Identifier> back;
+
+		private StatementToIdentifier()
+		{
+			super(getLocalStatementToIdentifier());
+			this.back = null;
+		}
+
+		@Override
+		protected Map<Statement, Identifier> getBack()
+		{
+			if (back == null)
+				back = getParent().statementToIdentifier();
+			return back;
+		}
+
+		@Override
+		public Identifier get(Object key)
+		{
+			IdentifierResolutionCache cache = getTransaction().getIdentifierResolutionCache();
+			if (cache == null || !(key instanceof Statement))
+				return super.get(key);
+			Statement statement = (Statement) key;
+			return cache.resolveStatement(context.getUuid(), statement.getUuid(), uuid -> super.get(statement));
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return get(key) != null;
+		}
+
+	}
+
 	@Override
 	public CloseableSortedMap<Identifier, Statement> identifierToStatement()
 	{
 		Nomenclator parent = getParent();
 		if (parent == null)
 			return null;
-		return new CombinedCloseableSortedMap<>(getLocalIdentifierToStatement(), getParent().identifierToStatement());
+		return new IdentifierToStatement(parent);
 	}
 
 	@Override
 	public Map<Statement, Identifier> statementToIdentifier()
 	{
-		return new CombinedMap<>(getLocalStatementToIdentifier(), getParent().statementToIdentifier());
+		return new StatementToIdentifier();
 	}
 
 	@Override
@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.model.statement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.logging.log4j.Logger;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.model.authority.StatementAuthority.DependentUnpackedSignatureRequests;
+import aletheia.model.identifier.Identifier;
+import aletheia.model.statement.RootContext.TopStateListener;
+import aletheia.model.statement.Statement.SignatureIsValidException;
+import aletheia.model.statement.Statement.StateListener;
+import aletheia.model.term.Term;
+import aletheia.persistence.PersistenceListenerManager.Listeners;
+import aletheia.persistence.PersistenceManager;
+import aletheia.persistence.Transaction;
+import aletheia.utilities.collections.CloseableIterator;
+
+/**
+ * <p>
+ * Deletes a set of statements along with everything that must go with them
+ * in a single batch.
+ * </p>
+ * <p>
+ * The whole set to delete (the closure) is computed up front, as UUIDs: the
+ * given statements, their descendents and, when cascading, their dependents
+ * (an assumption dependent takes its context with it). Then the statements
+ * are deleted in an order where every statement goes after its dependents
+ * and its descendents (so the undelete stack restores them in the right
+ * order, and no entity is deleted while something still refers to it). Only
+ * the top statements of the closure (the ones whose context is not deleted)
+ * need the signature and authority checks and the resetting of the proved
+ * status of the contexts they might be solving; those resets and the
+ * propagation of the proved and signed proof statuses are done once for the
+ * whole batch at the end (see {@link Transaction#deferProofChecks()}).
+ * </p>
+ */
+class CascadeDeleter
+{
+	private static final Logger logger = LoggerManager.instance.logger();
+
+	private final PersistenceManager persistenceManager;
+	private final Transaction transaction;
+	private final Set<UUID> roots;
+	private final Set<UUID> closure;
+	private final Set<UUID> tops;
+	private final List<UUID> order;
+
+	CascadeDeleter(PersistenceManager persistenceManager, Transaction transaction)
+	{
+		this.persistenceManager = persistenceManager;
+		this.transaction = transaction;
+		this.roots = new LinkedHashSet<>();
+		this.closure = new HashSet<>();
+		this.tops = new HashSet<>();
+		this.order = new ArrayList<>();
+	}
+
+	/**
+	 * Adds a statement to delete. An assumption stands for its context.
+	 */
+	void add(Statement statement)
+	{
+		roots.add(statement instanceof Assumption ? statement.getContextUuid() : statement.getUuid());
+	}
+
+	private static UUID dependentKey(Statement dependent)
+	{
+		return dependent instanceof Assumption ? dependent.getContextUuid() : dependent.getUuid();
+	}
+
+	/**
+	 * The statements that must be deleted before this one: its local
+	 * statements and its dependents (and the context of the dependents that
+	 * are assumptions, which will be already visited when it's the same
+	 * context or an ancestor of this one).
+	 */
+	private List<UUID> successors(Statement statement)
+	{
+		List<UUID> successors = new ArrayList<>();
+		if (statement instanceof Context)
+		{
+			CloseableIterator<Statement> iterator = ((Context) statement).localStatements(transaction).values().iterator();
+			try
+			{
+				while (iterator.hasNext())
+					successors.add(iterator.next().getUuid());
+			}
+			finally
+			{
+				iterator.close();
+			}
+		}
+		for (Statement dependent : statement.dependents(transaction))
+		{
+			successors.add(dependent.getUuid());
+			if (dependent instanceof Assumption)
+				successors.add(dependent.getContextUuid());
+		}
+		return successors;
+	}
+
+	/**
+	 * Computes the closure and the deletion order.
+	 *
+	 * @param cascade
+	 *            Follow the dependents of the statements.
+	 * @return False if not cascading and some statement out of the added
+	 *         ones and their descendents depends on them.
+	 */
+	boolean close(boolean cascade)
+	{
+		closure.clear();
+		tops.clear();
+		order.clear();
+		Deque<UUID> stack = new ArrayDeque<>(roots);
+		Set<UUID> external = new HashSet<>();
+		while (!stack.isEmpty())
+		{
+			UUID uuid = stack.pop();
+			if (!closure.add(uuid))
+				continue;
+			Statement statement = persistenceManager.getStatement(transaction, uuid);
+			if (statement == null)
+			{
+				closure.remove(uuid);
+				continue;
+			}
+			if (statement instanceof Context)
+			{
+				CloseableIterator<Statement> iterator = ((Context) statement).localStatements(transaction).values().iterator();
+				try
+				{
+					while (iterator.hasNext())
+						stack.push(iterator.next().getUuid());
+				}
+				finally
+				{
+					iterator.close();
+				}
+			}
+			for (Statement dependent : statement.dependents(transaction))
+			{
+				UUID key = dependentKey(dependent);
+				if (cascade)
+					stack.push(key);
+				else
+					external.add(key);
+			}
+		}
+		if (!closure.containsAll(external))
+			return false;
+
+		class Frame
+		{
+			final UUID uuid;
+			final Iterator<UUID> successors;
+
+			Frame(UUID uuid, Iterator<UUID> successors)
+			{
+				this.uuid = uuid;
+				this.successors = successors;
+			}
+		}
+
+		Set<UUID> visited = new HashSet<>();
+		for (UUID root : roots)
+		{
+			if (!closure.contains(root) || !visited.add(root))
+				continue;
+			Deque<Frame> frames = new ArrayDeque<>();
+			frames.push(new Frame(root, successors(persistenceManager.getStatement(transaction, root)).iterator()));
+			while (!frames.isEmpty())
+			{
+				Frame frame = frames.peek();
+				if (frame.successors.hasNext())
+				{
+					UUID next = frame.successors.next();
+					if (closure.contains(next) && visited.add(next))
+						frames.push(new Frame(next, successors(persistenceManager.getStatement(transaction, next)).iterator()));
+				}
+				else
+				{
+					frames.pop();
+					order.add(frame.uuid);
+				}
+			}
+		}
+		for (UUID uuid : order)
+		{
+			Statement statement = persistenceManager.getStatement(transaction, uuid);
+			if (statement instanceof RootContext || !closure.contains(statement.getContextUuid()))
+				tops.add(uuid);
+		}
+		logger.trace("Cascade delete closure: " + closure.size() + " statements, " + tops.size() + " tops");
+		return true;
+	}
+
+	/**
+	 * The number of statements to be deleted.
+	 */
+	int size()
+	{
+		return order.size();
+	}
+
+	/**
+	 * Checks, before deleting anything, that no top statement has a valid
+	 * signature.
+	 */
+	void checkSignatures() throws SignatureIsValidException
+	{
+		for (UUID uuid : tops)
+		{
+			Statement statement = persistenceManager.getStatement(transaction, uuid);
+			if (!(statement instanceof RootContext) && statement.isValidSignature(transaction))
+				throw statement.new SignatureIsValidException("Can't delete statement with valid signatures");
+		}
+	}
+
+	private static class Reset
+	{
+		final UUID contextUuid;
+		final Term term;
+
+		Reset(UUID contextUuid, Term term)
+		{
+			this.contextUuid = contextUuid;
+			this.term = term;
+		}
+	}
+
+	/**
+	 * Deletes the closure computed by {@link #close(boolean)}.
+	 *
+	 * @param removeFromUnpackedSignatureRequests
+	 *            Remove the top statements from the unpacked signature
+	 *            requests they are in.
+	 */
+	void delete(boolean removeFromUnpackedSignatureRequests) throws DependentUnpackedSignatureRequests, SignatureIsValidException
+	{
+		boolean deferring = transaction.getDeferredProofChecks() != null;
+		if (!deferring)
+			transaction.deferProofChecks();
+		boolean done = false;
+		try
+		{
+			for (UUID uuid : tops)
+			{
+				Statement statement = persistenceManager.getStatement(transaction, uuid);
+				if (removeFromUnpackedSignatureRequests)
+					statement.removeFromDependentUnpackedSignatureRequests(transaction);
+				if (statement instanceof Context)
+					((Context) statement).deleteUnpackedSignatureRequestSetByPath(transaction);
+			}
+			List<Reset> resets = new ArrayList<>();
+			int n = 0;
+			for (UUID uuid : order)
+			{
+				Statement statement = persistenceManager.getStatement(transaction, uuid);
+				if (statement instanceof RootContext)
+					deleteRootContext((RootContext) statement);
+				else
+				{
+					Context context = statement.getContext(transaction);
+					if (tops.contains(uuid))
+					{
+						statement.deleteAuthority(transaction);
+						if (statement.isProved())
+							resets.add(new Reset(context.getUuid(), statement.getTerm()));
+					}
+					else
+						statement.deleteAuthorityNoCheckSignedProof(transaction);
+					statement.deleteLocal(transaction);
+					Iterable<StateListener> listeners = context.stateListeners();
+					synchronized (listeners)
+					{
+						Identifier identifier = listeners.iterator().hasNext() ? statement.identifier(transaction) : null;
+						persistenceManager.deleteStatement(transaction, statement);
+						for (StateListener listener : listeners)
+							listener.statementDeletedFromContext(transaction, context, statement, identifier);
+					}
+				}
+				if (++n % 1000 == 0)
+					logger.trace("--> Cascade delete: " + n + "/" + order.size());
+			}
+			Set<UUID> reseted = new HashSet<>();
+			for (Reset reset : resets)
+			{
+				Context context = persistenceManager.getContext(transaction, reset.contextUuid);
+				if (context != null)
+				{
+					logger.trace("Deleted proved statement: resetting dependents");
+					for (Context ctx : Context.safelyProvedDescendantContextsToResetByTerm(transaction, context, reset.term))
+						ctx.resetProvedDependents(transaction, reseted);
+				}
+			}
+			Statement.checkProvedUuids(transaction, reseted);
+			done = true;
+		}
+		finally
+		{
+			if (!deferring)
+			{
+				if (done)
+					Statement.runDeferredProofChecks(transaction);
+				else
+					transaction.endDeferredProofChecks();
+			}
+		}
+	}
+
+	private void deleteRootContext(RootContext rootContext) throws DependentUnpackedSignatureRequests
+	{
+		rootContext.deleteAuthorityForce(transaction);
+		rootContext.deleteLocal(transaction);
+		Identifier identifier = rootContext.identifier(transaction);
+		persistenceManager.deleteStatement(transaction, rootContext);
+		Listeners<TopStateListener> listeners = persistenceManager.getListenerManager().getRootContextTopStateListeners();
+		synchronized (listeners)
+		{
+			for (TopStateListener listener : listeners)
+				listener.rootContextDeleted(transaction, rootContext, identifier);
+		}
+	}
+
+}
@@ -38,9 +38,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.Stack;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import org.apache.logging.log4j.Logger;
 
@@ -73,6 +70,7 @@ import aletheia.model.term.IdentifiableVariableTerm;
 import aletheia.model.term.ParameterVariableTerm;
 import aletheia.model.term.ProjectionCastTypeTerm;
 import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.Substitution;
 import aletheia.model.term.Term;
 import aletheia.model.term.Term.ReplaceTypeException;
 import aletheia.model.term.Term.UnprojectTypeException;
@@ -81,6 +79,7 @@ import aletheia.parser.term.TermParser;
 import aletheia.parsergenerator.ParserBaseException;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
+import aletheia.persistence.UselessDescendentsCache;
 import aletheia.persistence.collections.authority.SignatureRequestContextCreationDateCollection;
 import aletheia.persistence.collections.authority.UnpackedSignatureRequestSetByContextPath;
 import aletheia.persistence.collections.statement.AssumptionList;
@@ -96,9 +95,7 @@ import aletheia.utilities.collections.AdaptedList;
 import aletheia.utilities.collections.Bijection;
 import aletheia.utilities.collections.BijectionCloseableSet;
 import aletheia.utilities.collections.BijectionCollection;
-import aletheia.utilities.collections.BijectionKeyMap;
 import aletheia.utilities.collections.BijectionList;
-import aletheia.utilities.collections.BijectionMap;
 import aletheia.utilities.collections.BufferedList;
 import aletheia.utilities.collections.CastBijection;
 import aletheia.utilities.collections.CloseableCollection;
@@ -114,7 +111,6 @@ import aletheia.utilities.collections.CombinedSet;
 import aletheia.utilities.collections.EmptyCloseableSet;
 import aletheia.utilities.collections.FilteredCloseableSet;
 import aletheia.utilities.collections.NotNullFilter;
-import aletheia.utilities.collections.ReverseList;
 import aletheia.utilities.collections.TrivialCloseableCollection;
 import aletheia.utilities.collections.TrivialCloseableIterable;
 import aletheia.utilities.collections.UnionCollection;
@@ -552,10 +548,7 @@ public class Context extends Statement
 	 */
 	public CloseableSet<Statement> solvers(Transaction transaction)
 	{
-		CloseableSet<Statement> set = statementsByTerm(transaction).get(getConsequent());
-		if (set == null)
-			return new EmptyCloseableSet<>();
-		return set;
+		return statementsByTerm(transaction, getConsequent());
 	}
 
 	/**
@@ -698,6 +691,26 @@ public class Context extends Statement
 		return new CombinedCloseableMultimap<>(getLocalStatementsByTerm(transaction), getContext(transaction).statementsByTerm(transaction));
 	}
 
+	/**
+	 * The statements of this context or any of its ancestors whose term matches
+	 * with the given one. The same set as
+	 * {@code statementsByTerm(transaction).get(term)}, but looked up at once
+	 * instead of walking up the context chain.
+	 *
+	 * @param transaction
+	 *            The transaction to be used in the operations on the set.
+	 * @param term
+	 *            The term.
+	 * @return The set.
+	 *
+	 * @see PersistenceManager#ancestorStatementsByTerm(Transaction, Context,
+	 *      Term)
+	 */
+	public CloseableSet<Statement> statementsByTerm(Transaction transaction, Term term)
+	{
+		return getPersistenceManager().ancestorStatementsByTerm(transaction, this, term);
+	}
+
 	/**
 	 * The mapping of pairs variable-statement that are local of this context.
 	 *
@@ -1150,8 +1163,28 @@ public class Context extends Statement
 	public void deleteStatements(Transaction transaction, CloseableCollection<? extends Statement> statements) throws StatementNotInContextException,
 			StatementHasDependentsException, CantDeleteAssumptionException, DependentUnpackedSignatureRequests, SignatureIsValidException
 	{
-		for (Statement st : new ReverseList<>(new BufferedList<>(Statement.dependencySortedStatements(transaction, statements))))
-			deleteStatement(transaction, st);
+		CascadeDeleter deleter = new CascadeDeleter(getPersistenceManager(), transaction);
+		CloseableIterator<? extends Statement> iterator = statements.iterator();
+		try
+		{
+			while (iterator.hasNext())
+			{
+				Statement statement = iterator.next();
+				if (statement instanceof Assumption)
+					throw new CantDeleteAssumptionException();
+				if (!getLocalStatements(transaction).containsKey(statement.getVariable()))
+					throw new StatementNotInContextException();
+				deleter.add(statement);
+			}
+		}
+		finally
+		{
+			iterator.close();
+		}
+		if (!deleter.close(false))
+			throw new StatementHasDependentsException();
+		deleter.checkSignatures();
+		deleter.delete(false);
 	}
 
 	/**
@@ -1161,7 +1194,7 @@ public class Context extends Statement
 	 *            The transaction to be used in the operation.
 	 * @return The set of affected statements.
 	 */
-	private void resetProvedDependents(Transaction transaction, Set<UUID> reseted)
+	void resetProvedDependents(Transaction transaction, Set<UUID> reseted)
 	{
 		Stack<Statement> stack = new Stack<>();
 		stack.push(this);
@@ -1193,10 +1226,10 @@ public class Context extends Statement
 	 * in the same context that might satisfy all that subcontexts and if so, no
 	 * resetting will be necessary so the empty set is returned.
 	 */
-	private static DescendantContextsByConsequent safelyProvedDescendantContextsToResetByTerm(Transaction transaction, Context context, Term term)
+	static DescendantContextsByConsequent safelyProvedDescendantContextsToResetByTerm(Transaction transaction, Context context, Term term)
 	{
 		DescendantContextsByConsequent descendants = context.descendantContextsByConsequent(transaction, term);
-		if (!descendants.smaller(64) && Statement.checkProvedIgnoringTrueProvedFlag(transaction, context.statementsByTerm(transaction).get(term), 8192))
+		if (!descendants.smaller(64) && Statement.checkProvedIgnoringTrueProvedFlag(transaction, context.statementsByTerm(transaction, term), 8192))
 		{
 			logger.trace("All descendent matching contexts checked to be alternatively proved");
 			return new DescendantContextsByConsequent.Empty(transaction, context);
@@ -1342,75 +1375,26 @@ public class Context extends Statement
 	public void deleteStatementsCascade(Transaction transaction, CloseableIterable<? extends Statement> statements)
 			throws StatementNotInContextException, SignatureIsValidException
 	{
-		Stack<Statement> stack = new Stack<>();
+		CascadeDeleter deleter = new CascadeDeleter(getPersistenceManager(), transaction);
 		CloseableIterator<? extends Statement> iterator = statements.iterator();
 		try
 		{
 			while (iterator.hasNext())
-			{
-				Statement statement = iterator.next();
-				if (statement instanceof Assumption)
-					stack.push(statement.getContext(transaction));
-				else
-					stack.push(statement);
-			}
+				deleter.add(iterator.next());
 		}
 		finally
 		{
 			iterator.close();
 		}
-		Set<Statement> visited = new HashSet<>();
-		while (!stack.isEmpty())
+		deleter.close(true);
+		deleter.checkSignatures();
+		try
 		{
-			logger.trace("--> Cascade delete: " + stack.size());
-			Statement st = stack.peek();
-			if (getPersistenceManager().statements(transaction).containsKey(st.getVariable()))
-			{
-				Statement st__ = st;
-				while (st__ != null)
-				{
-					if (visited.contains(st__))
-						break;
-					if (st__ instanceof RootContext)
-						st__ = null;
-					else
-						st__ = st__.getContext(transaction);
-				}
-				if (st__ != null)
-					stack.pop();
-				else
-				{
-					boolean pushed = false;
-					for (Statement st_ : st.dependents(transaction))
-					{
-						if (!(st_ instanceof Assumption))
-						{
-							stack.push(st_);
-							pushed = true;
-						}
-						else
-						{
-							stack.push(st_.getContext(transaction));
-							pushed = true;
-						}
-					}
-					if (!pushed)
-					{
-						try
-						{
-							st.deleteWithRemovalFromDependentUnpackedSignatureRequests(transaction);
-						}
-						catch (StatementHasDependentsException | CantDeleteAssumptionException e)
-						{
-							throw new Error(e);
-						}
-						visited.add(st);
-						stack.pop();
-					}
-				}
-			}
-			else
-				stack.pop();
+			deleter.delete(true);
+		}
+		catch (DependentUnpackedSignatureRequests e)
+		{
+			throw new Error(e);
 		}
 	}
 
@@ -1504,6 +1488,11 @@ public class Context extends Statement
 	 * (usually the original identifiers are copied to the resulting
 	 * statements).
 	 *
+	 * The terms of all the copied statements are rewritten with a single
+	 * {@link Substitution}, so the subterms they share are rewritten once, and
+	 * the proved status checks of the new statements are deferred and run
+	 * once over the whole copy.
+	 *
 	 * @param transaction
 	 *            The transaction to be used in the operation.
 	 * @param statements
@@ -1522,36 +1511,36 @@ public class Context extends Statement
 			Set<Statement> excludeFromIdentify) throws CopyStatementException
 	{
 		Map<Statement, Statement> map = new HashMap<>(initMap);
-		Map<VariableTerm, Term> termReplaceMap = new BijectionKeyMap<>(new Bijection<Statement, VariableTerm>()
+		Substitution substitution = new Substitution(getPersistenceManager().getTermInterner());
+		for (Map.Entry<Statement, Statement> e : initMap.entrySet())
+			if (e.getValue() != null)
+				substitution.put(e.getKey().getVariable(), e.getValue().getVariable());
+		boolean deferring = transaction.getDeferredProofChecks() != null;
+		if (!deferring)
+			transaction.deferProofChecks();
+		boolean done = false;
+		try
 		{
-
-			@Override
-			public VariableTerm forward(Statement statement)
-			{
-				throw new UnsupportedOperationException();
-			}
-
-			@Override
-			public Statement backward(VariableTerm variable)
-			{
-				return transaction.getPersistenceManager().statements(transaction).get(variable);
-			}
-		}, new BijectionMap<>(new Bijection<Statement, Term>()
+			privateCopy(transaction, statements, excludeFromIdentify, map, substitution);
+			done = true;
+		}
+		finally
 		{
-
-			@Override
-			public Term forward(Statement statement)
+			if (!deferring)
 			{
-				return statement == null ? null : statement.getVariable();
+				if (done)
+					Statement.runDeferredProofChecks(transaction);
+				else
+					transaction.endDeferredProofChecks();
 			}
+		}
+		return map;
+	}
 
-			@Override
-			public Statement backward(Term term)
-			{
-				throw new UnsupportedOperationException();
-			}
-		}, map));
-		Set<Statement> copied = new HashSet<>(initMap.values());
+	private void privateCopy(Transaction transaction, List<Statement> statements, Set<Statement> excludeFromIdentify, Map<Statement, Statement> map,
+			Substitution substitution) throws CopyStatementException
+	{
+		Set<Statement> copied = new HashSet<>(map.values());
 		Queue<Statement> queue = new ArrayDeque<>();
 		queue.addAll(statements);
 		while (!queue.isEmpty())
@@ -1586,7 +1575,7 @@ public class Context extends Statement
 				Specialization specDest;
 				try
 				{
-					specDest = ctxParentDest.specialize(transaction, map.getOrDefault(generalOrig, generalOrig), specOrig.getInstance().replace(termReplaceMap),
+					specDest = ctxParentDest.specialize(transaction, map.getOrDefault(generalOrig, generalOrig), substitution.apply(specOrig.getInstance()),
 							map.getOrDefault(instanceProofOrig, instanceProofOrig));
 					specDest.updateInstanceParameterIdentification(transaction, specOrig.getInstanceParameterIdentification());
 				}
@@ -1603,7 +1592,7 @@ public class Context extends Statement
 				Declaration decDest;
 				try
 				{
-					decDest = ctxParentDest.declare(transaction, decOrig.getValue().replace(termReplaceMap), map.getOrDefault(valueProofOrig, valueProofOrig));
+					decDest = ctxParentDest.declare(transaction, substitution.apply(decOrig.getValue()), map.getOrDefault(valueProofOrig, valueProofOrig));
 					decDest.updateValueParameterIdentification(transaction, decOrig.getValueParameterIdentification());
 				}
 				catch (ReplaceTypeException | StatementException | SignatureIsValidException e)
@@ -1622,7 +1611,7 @@ public class Context extends Statement
 					Declaration decOrig = unfOrig.getDeclaration(transaction);
 					try
 					{
-						ctxDest = ctxParentDest.openUnfoldingSubContext(transaction, unfOrig.getTerm().replace(termReplaceMap),
+						ctxDest = ctxParentDest.openUnfoldingSubContext(transaction, substitution.apply(unfOrig.getTerm()),
 								(Declaration) map.getOrDefault(decOrig, decOrig));
 					}
 					catch (ReplaceTypeException | StatementException e)
@@ -1636,7 +1625,7 @@ public class Context extends Statement
 				{
 					try
 					{
-						ctxDest = ctxParentDest.openSubContext(transaction, ctxOrig.getTerm().replace(termReplaceMap));
+						ctxDest = ctxParentDest.openSubContext(transaction, substitution.apply(ctxOrig.getTerm()));
 					}
 					catch (ReplaceTypeException | StatementException e)
 					{
@@ -1657,6 +1646,7 @@ public class Context extends Statement
 			else
 				throw new Error();
 			map.put(stOrig, stDest);
+			substitution.put(stOrig.getVariable(), stDest.getVariable());
 			copied.add(stDest);
 			if (!excludeFromIdentify.contains(stOrig))
 			{
@@ -1675,7 +1665,6 @@ public class Context extends Statement
 				}
 			}
 		}
-		return map;
 	}
 
 	/**
@@ -2650,25 +2639,62 @@ public class Context extends Statement
 		return solvers;
 	}
 
+	/**
+	 * The descendents of this context (including itself) that don't
+	 * contribute to its proof: the ones not reachable from this context
+	 * following the dependencies and the solvers chosen by
+	 * {@link #descendentSolvers(Transaction, Aborter)}.
+	 *
+	 * The result is kept in the {@link UselessDescendentsCache} of the
+	 * persistence manager, so it's only computed again after some change
+	 * under this context.
+	 */
 	public Set<Statement> uselessDescendents(Transaction transaction, Aborter aborter) throws AbortException
+	{
+		UselessDescendentsCache cache = getPersistenceManager().getUselessDescendentsCache();
+		Set<UUID> uselessUuids = cache.get(getUuid());
+		if (uselessUuids == null)
+		{
+			long changes = cache.changes();
+			Set<UUID> contextUuids = new HashSet<>();
+			uselessUuids = computeUselessDescendents(transaction, aborter, contextUuids);
+			cache.put(transaction, getUuid(), contextUuids, uselessUuids, changes);
+		}
+		Set<Statement> useless = new HashSet<>();
+		for (UUID uuid : uselessUuids)
+		{
+			Statement st = getPersistenceManager().getStatement(transaction, uuid);
+			if (st != null)
+				useless.add(st);
+		}
+		return useless;
+	}
+
+	private Set<UUID> computeUselessDescendents(Transaction transaction, Aborter aborter, Set<UUID> contextUuids) throws AbortException
 	{
 		Map<Context, Statement> solvers = descendentSolvers(transaction, aborter);
-		Set<Statement> useless = Stream.concat(Stream.of(this), StreamSupport.stream(descendentStatements(transaction).spliterator(), false))
-				.collect(Collectors.toCollection(() -> new HashSet<>()));
+		Set<UUID> useless = new HashSet<>();
+		contextUuids.add(getUuid());
+		useless.add(getUuid());
+		for (Statement st : descendentStatements(transaction))
+		{
+			if (st instanceof Context)
+				contextUuids.add(st.getUuid());
+			useless.add(st.getUuid());
+		}
 		Stack<Statement> stack = new Stack<>();
 		stack.push(this);
 		while (!stack.isEmpty())
 		{
 			Statement st = stack.pop();
-			if (useless.contains(st))
+			if (useless.remove(st.getUuid()))
 			{
-				useless.remove(st);
 				Collection<Statement> dependencies = st.dependencies(transaction);
 				Statement solver = solvers.get(st);
 				if (solver != null)
 					dependencies = new CombinedCollection<>(dependencies, Collections.singleton(solver));
 				for (Statement dep : dependencies)
-					if (isDescendent(transaction, dep))
+					if (useless.contains(dep.getUuid()))
 						stack.push(dep);
 			}
 		}
@@ -20,11 +20,9 @@
 package aletheia.model.statement;
 
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Set;
-import java.util.Stack;
 import java.util.UUID;
 
 import org.apache.logging.log4j.Logger;
@@ -50,6 +48,7 @@ import aletheia.utilities.collections.CloseableIterable;
 import aletheia.utilities.collections.CloseableIterator;
 import aletheia.utilities.collections.CloseableMap;
 import aletheia.utilities.collections.CloseableSet;
+import aletheia.utilities.collections.TrivialCloseableCollection;
 import aletheia.utilities.collections.UnmodifiableCloseableMap;
 
 /**
@@ -195,71 +194,9 @@ public class RootContext extends Context
 	{
 		try
 		{
-			deleteUnpackedSignatureRequestSetByPath(transaction);
-			Stack<Statement> stack = new Stack<>();
-			stack.addAll(localStatements(transaction).values());
-			while (!stack.isEmpty())
-			{
-				logger.trace("---> deleting context: " + stack.size());
-				Statement st = stack.peek();
-				if (getPersistenceManager().statements(transaction).containsKey(st.getVariable()))
-				{
-					boolean pushed = false;
-					if (st instanceof Context)
-					{
-						Collection<Statement> locals = ((Context) st).localStatements(transaction).values();
-						if (!locals.isEmpty())
-						{
-							stack.addAll(locals);
-							pushed = true;
-						}
-					}
-					Set<Statement> dependents = st.dependents(transaction);
-					if (!dependents.isEmpty())
-					{
-						stack.addAll(dependents);
-						pushed = true;
-					}
-					if (!pushed)
-					{
-						stack.pop();
-						Context ctx_ = st.getContext(transaction);
-						st.deleteAuthorityNoCheckSignedProof(transaction);
-						st.deleteLocal(transaction);
-						getPersistenceManager().deleteStatement(transaction, st);
-						Iterable<StateListener> listeners = ctx_.stateListeners();
-						synchronized (listeners)
-						{
-							Identifier identifier = null;
-							boolean first = true;
-							for (StateListener listener : listeners)
-							{
-								if (first)
-								{
-									identifier = st.identifier(transaction);
-									first = false;
-								}
-								listener.statementDeletedFromContext(transaction, this, st, identifier);
-							}
-
-						}
-					}
-				}
-				else
-					stack.pop();
-			}
-			deleteAuthorityForce(transaction);
-			deleteLocal(transaction);
-			Identifier id = identifier(transaction);
-			getPersistenceManager().deleteStatement(transaction, this);
-			Listeners<TopStateListener> listeners = getPersistenceManager().getListenerManager().getRootContextTopStateListeners();
-			synchronized (listeners)
-			{
-				for (TopStateListener l : listeners)
-					l.rootContextDeleted(transaction, this, id);
-			}
+			delete(transaction, new TrivialCloseableCollection<>(Collections.singleton(this)));
 		}
-		catch (DependentUnpackedSignatureRequests e)
+		catch (SignatureIsValidException e)
 		{
 			throw new Error(e);
 		}
@@ -273,16 +210,34 @@ public class RootContext extends Context
 
 	public static void delete(Transaction transaction, CloseableIterable<? extends RootContext> rootContexts) throws SignatureIsValidException
 	{
+		CascadeDeleter deleter = null;
 		CloseableIterator<? extends RootContext> iterator = rootContexts.iterator();
 		try
 		{
 			while (iterator.hasNext())
-				iterator.next().delete(transaction);
+			{
+				RootContext rootContext = iterator.next();
+				if (deleter == null)
+					deleter = new CascadeDeleter(rootContext.getPersistenceManager(), transaction);
+				deleter.add(rootContext);
+			}
 		}
 		finally
 		{
 			iterator.close();
 		}
+		if (deleter != null)
+		{
+			deleter.close(true);
+			try
+			{
+				deleter.delete(false);
+			}
+			catch (DependentUnpackedSignatureRequests e)
+			{
+				throw new Error(e);
+			}
+		}
 	}
 
 	public static void deleteCascade(Transaction transaction, CloseableIterable<? extends RootContext> rootContexts) throws SignatureIsValidException
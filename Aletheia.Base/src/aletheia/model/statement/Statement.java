@@ -20,7 +20,6 @@
 package aletheia.model.statement;
 
 import java.io.PrintStream;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,7 +31,6 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.Stack;
@@ -53,6 +51,7 @@ import aletheia.model.authority.StatementAuthority.DependentUnpackedSignatureReq
 import aletheia.model.identifier.Identifier;
 import aletheia.model.identifier.Namespace;
 import aletheia.model.local.StatementLocal;
+import aletheia.model.misc.StatusPropagator;
 import aletheia.model.nomenclator.Nomenclator;
 import aletheia.model.nomenclator.Nomenclator.AlreadyUsedIdentifierException;
 import aletheia.model.nomenclator.Nomenclator.NomenclatorException;
@@ -78,6 +77,7 @@ import aletheia.model.term.VariableTerm;
 import aletheia.persistence.PersistenceListener;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
+import aletheia.persistence.Transaction.DeferredProofChecks;
 import aletheia.persistence.collections.statement.DependentsSet;
 import aletheia.persistence.collections.statement.SpecializationsByGeneral;
 import aletheia.persistence.entities.statement.StatementEntity;
@@ -319,7 +319,7 @@ public abstract class Statement implements Exportable
 		Term term_;
 		try
 		{
-			term_ = term.unproject();
+			term_ = persistenceManager.internTerm(term.unproject());
 		}
 		catch (UnprojectTypeException e1)
 		{
@@ -422,7 +422,8 @@ public abstract class Statement implements Exportable
 	 * Checks the proof status of a set of statements. When the status of a
 	 * statement is changed, the status of all the statements that depend on it
 	 * must be checked too, so this method can trigger the checking of a huge
-	 * set of statements.
+	 * set of statements. The statements are evaluated in dependency order and
+	 * the listeners are notified once the whole propagation has finished.
 	 *
 	 * @param transaction
 	 *            The transaction to use in the operation.
@@ -473,53 +474,122 @@ public abstract class Statement implements Exportable
 	 */
 	protected static void checkProvedUuids(Transaction transaction, boolean checkContext, Collection<UUID> statementUuids)
 	{
-		PersistenceManager persistenceManager = transaction.getPersistenceManager();
-		int changes = 0;
-		Set<UUID> enqueued = new HashSet<>();
-		enqueued.addAll(statementUuids);
-		Queue<UUID> queue = new ArrayDeque<>(enqueued);
-		while (!queue.isEmpty())
-		{
-			logger.trace("--> checkProved:" + queue.size() + " " + changes);
-			UUID uuid = queue.poll();
-			enqueued.remove(uuid);
-			Statement st = persistenceManager.getStatement(transaction, uuid);
-			if (st != null)
+		DeferredProofChecks deferredProofChecks = transaction.getDeferredProofChecks();
+		if (deferredProofChecks != null)
+			deferredProofChecks.getProvedChecks().addAll(statementUuids);
+		else
+			new ProvedPropagator(transaction, checkContext).propagate(statementUuids);
+	}
+
+	/**
+	 * Ends the deferral of the proof status checks started with
+	 * {@link Transaction#deferProofChecks()} and runs the collected ones: first
+	 * the proved status checks and then the signed proof status checks (which
+	 * depend on the former).
+	 *
+	 * @param transaction
+	 *            The transaction to use in the operation.
+	 */
+	public static void runDeferredProofChecks(Transaction transaction)
+	{
+		DeferredProofChecks deferredProofChecks = transaction.endDeferredProofChecks();
+		if (deferredProofChecks != null)
+		{
+			checkProvedUuids(transaction, true, deferredProofChecks.getProvedChecks());
+			StatementAuthority.checkSignedProofUuids(transaction, deferredProofChecks.getSignedProofChecks());
+		}
+	}
+
+	/**
+	 * Propagates the proven status. When the statements are cached by the
+	 * transaction (see {@link PersistenceManager#isCachedStatement(Transaction, Statement)})
+	 * the new status is only set in memory (where the subsequent
+	 * {@link #calcProved(Transaction)} evaluations will see it) and every
+	 * changed statement is saved once at the end. Otherwise every change is
+	 * written right away, and those evaluations read it from the store.
+	 */
+	private static class ProvedPropagator extends StatusPropagator<Statement>
+	{
+		private final PersistenceManager persistenceManager;
+		private final boolean checkContext;
+
+		private ProvedPropagator(Transaction transaction, boolean checkContext)
+		{
+			super(transaction);
+			this.persistenceManager = transaction.getPersistenceManager();
+			this.checkContext = checkContext;
+		}
+
+		@Override
+		protected Statement load(UUID uuid)
+		{
+			return persistenceManager.getStatement(getTransaction(), uuid);
+		}
+
+		@Override
+		protected boolean getStatus(Statement statement)
+		{
+			return statement.isProved();
+		}
+
+		@Override
+		protected boolean calcStatus(Statement statement)
+		{
+			return statement.calcProved(getTransaction());
+		}
+
+		@Override
+		protected boolean updateStatus(Statement statement, boolean proved)
+		{
+			if (persistenceManager.isCachedStatement(getTransaction(), statement))
 			{
-				boolean proved = st.calcProved(transaction);
-				if (st.isProved() != proved)
-				{
-					changes++;
-					st.setProved(transaction, proved);
-					Iterable<StateListener> listeners = st.stateListeners();
-					synchronized (listeners)
-					{
-						for (StateListener listener : listeners)
-							listener.provedStateChanged(transaction, st, st.isProved());
-					}
-					for (Statement st_ : st.dependents(transaction))
-					{
-						if (st_.isProved() != proved && !enqueued.contains(st_.getUuid()))
-						{
-							queue.add(st_.getUuid());
-							enqueued.add(st_.getUuid());
-						}
-					}
-					if (checkContext && !(st instanceof RootContext))
-					{
-						for (Context ctx : st.getContext(transaction).descendantContextsByConsequent(transaction, st.getTerm()))
-						{
-							if (ctx.isProved() != proved && !enqueued.contains(ctx.getUuid()))
-							{
-								queue.add(ctx.getUuid());
-								enqueued.add(ctx.getUuid());
-							}
-						}
-					}
+				statement.entity.setProved(proved);
+				return true;
+			}
+			else
+			{
+				statement.setProved(getTransaction(), proved);
+				return false;
+			}
+		}
 
-				}
+		@Override
+		protected void flush(Statement statement)
+		{
+			statement.persistenceUpdate(getTransaction());
+		}
+
+		@Override
+		protected Collection<UUID> dependencies(Statement statement)
+		{
+			return statement.getUuidDependencies();
+		}
+
+		@Override
+		protected Iterable<UUID> affected(Statement statement, boolean proved)
+		{
+			List<UUID> affected = new ArrayList<>();
+			for (Statement dependent : statement.dependents(getTransaction()))
+				affected.add(dependent.getUuid());
+			if (checkContext && !(statement instanceof RootContext))
+			{
+				for (Context ctx : statement.getContext(getTransaction()).descendantContextsByConsequent(getTransaction(), statement.getTerm()))
+					affected.add(ctx.getUuid());
 			}
+			return affected;
 		}
+
+		@Override
+		protected void notifyChanged(Statement statement, boolean proved)
+		{
+			Iterable<StateListener> listeners = statement.stateListeners();
+			synchronized (listeners)
+			{
+				for (StateListener listener : listeners)
+					listener.provedStateChanged(getTransaction(), statement, proved);
+			}
+		}
+
 	}
 
 	protected boolean clearProved(Transaction transaction)
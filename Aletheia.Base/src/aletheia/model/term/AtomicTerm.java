@@ -20,7 +20,6 @@
 package aletheia.model.term;
 
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
 import java.util.Set;
 
@@ -47,7 +46,7 @@ public abstract class AtomicTerm extends SimpleTerm
 	}
 
 	@Override
-	protected abstract Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException;
+	protected abstract Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException;
 
 	@Override
 	public SimpleTerm head()
@@ -20,7 +20,6 @@
 package aletheia.model.term;
 
 import java.util.Map;
-import java.util.Set;
 
 import aletheia.model.identifier.Identifier;
 import aletheia.model.parameteridentification.ParameterIdentification;
@@ -70,15 +69,15 @@ public abstract class CastTypeTerm extends AtomicTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + term.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + term.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof CastTypeTerm))
 			return false;
@@ -106,15 +105,9 @@ public abstract class CastTypeTerm extends AtomicTerm
 	}
 
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		term.freeVariables(freeVars, localVars);
-	}
-
-	@Override
-	public boolean isFreeVariable(VariableTerm variable)
-	{
-		return term.isFreeVariable(variable);
+		return term.freeVariableSummary();
 	}
 
 	@Override
@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,6 +46,12 @@ public class CompositionTerm extends SimpleTerm
 	private final SimpleTerm head;
 	private final Term tail;
 
+	/**
+	 * The type, computed on the first call to {@link #getType()}. Not
+	 * serialized, a deserialized composition computes it again.
+	 */
+	private transient volatile Term type;
+
 	public static class CompositionTypeException extends TypeException
 	{
 		private static final long serialVersionUID = 8530964165091126355L;
@@ -72,29 +77,36 @@ public class CompositionTerm extends SimpleTerm
 		}
 	}
 
-	private static Term computeType(SimpleTerm head, Term tail) throws CompositionTypeException
+	/**
+	 * Checks that the head can be composed with the tail without actually
+	 * computing the resulting type. When the type of the head is a function,
+	 * its parameter's type must match the tail's type (that's what
+	 * {@link FunctionTerm#compose(Term)} would check); when it is a simple
+	 * term, the same check is recursively performed on it.
+	 */
+	private static void checkType(SimpleTerm head, Term tail) throws CompositionTypeException
 	{
-		if (head.getType() == null)
+		Term headType = head.getType();
+		if (headType == null)
 			throw new CompositionTypeException("Composition's head has no type");
-		try
-		{
-			return head.getType().compose(tail);
-		}
-		catch (ComposeTypeException e)
-		{
-			throw new CompositionTypeException(e.getMessage(), e);
-		}
-		finally
+		if (headType instanceof FunctionTerm)
 		{
-
+			ParameterVariableTerm parameter = ((FunctionTerm) headType).getParameter();
+			if (!parameter.equals(tail) && !parameter.getType().equals(tail.getType()))
+				throw new CompositionTypeException("Can't compose term in function");
 		}
-
+		else if (headType instanceof SimpleTerm)
+			checkType((SimpleTerm) headType, tail);
+		else
+			throw new Error();
 	}
 
 	/**
 	 * Create a new composition with the specified head and tail.
 	 *
-	 * The type of the composition will be the same as the type of the head.
+	 * The type of the composition is the composition of the head's type with
+	 * the tail. The composability is checked here but the type itself is
+	 * computed on demand.
 	 *
 	 * @param head
 	 *            The head.
@@ -104,11 +116,59 @@ public class CompositionTerm extends SimpleTerm
 	 */
 	public CompositionTerm(SimpleTerm head, Term tail) throws CompositionTypeException
 	{
-		super(computeType(head, tail));
+		super(null);
+		checkType(head, tail);
 		this.head = head;
 		this.tail = tail;
 	}
 
+	/**
+	 * Thrown by {@link CompositionTerm#getType()} if the type of the head
+	 * can't be composed with the tail after all. The constructor checks the
+	 * composability, so this is not expected to happen.
+	 */
+	public static class DeferredCompositionTypeException extends RuntimeException
+	{
+		private static final long serialVersionUID = -3166712478213329517L;
+
+		protected DeferredCompositionTypeException(ComposeTypeException cause)
+		{
+			super(cause);
+		}
+
+		@Override
+		public ComposeTypeException getCause()
+		{
+			return (ComposeTypeException) super.getCause();
+		}
+	}
+
+	/**
+	 * The type of a composition is the composition of the head's type with
+	 * the tail. It's computed on the first call.
+	 *
+	 * @throws DeferredCompositionTypeException
+	 *             If the head's type can't be composed with the tail.
+	 */
+	@Override
+	public Term getType() throws DeferredCompositionTypeException
+	{
+		Term type = this.type;
+		if (type == null)
+		{
+			try
+			{
+				type = head.getType().compose(tail);
+			}
+			catch (ComposeTypeException e)
+			{
+				throw new DeferredCompositionTypeException(e);
+			}
+			this.type = type;
+		}
+		return type;
+	}
+
 	/**
 	 *
 	 * @return The head.
@@ -138,11 +198,11 @@ public class CompositionTerm extends SimpleTerm
 	 * and tail).
 	 */
 	@Override
-	protected Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
+	protected Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
 	{
 		Term headRep = head.replace(replaces, exclude);
 		Term tailRep = tail.replace(replaces, exclude);
-		if (headRep.equals(head) && tailRep.equals(tail))
+		if ((headRep == head && tailRep == tail) || (headRep.equals(head) && tailRep.equals(tail)))
 			return this;
 		try
 		{
@@ -157,9 +217,13 @@ public class CompositionTerm extends SimpleTerm
 	@Override
 	public Term replace(Map<VariableTerm, Term> replaces) throws ReplaceTypeException
 	{
+		Term headRep = head.replace(replaces);
+		Term tailRep = tail.replace(replaces);
+		if (headRep == head && tailRep == tail)
+			return this;
 		try
 		{
-			return head.replace(replaces).compose(tail.replace(replaces));
+			return headRep.compose(tailRep);
 		}
 		catch (ComposeTypeException e)
 		{
@@ -225,22 +289,22 @@ public class CompositionTerm extends SimpleTerm
 	 * Both the head and the tail must be equal.
 	 */
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof CompositionTerm))
 			return false;
 		CompositionTerm compositionTerm = (CompositionTerm) term;
-		if (!head.equals(compositionTerm.head, parameterMap) || !tail.equals(compositionTerm.tail, parameterMap))
+		if (!head.equals(compositionTerm.head, boundParameterLevels) || !tail.equals(compositionTerm.tail, boundParameterLevels))
 			return false;
 		return true;
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + head.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + tail.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + head.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + tail.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
@@ -248,16 +312,9 @@ public class CompositionTerm extends SimpleTerm
 	 * The union of the free variables in the head and the tail.
 	 */
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
-	{
-		head.freeVariables(freeVars, localVars);
-		tail.freeVariables(freeVars, localVars);
-	}
-
-	@Override
-	public boolean isFreeVariable(VariableTerm variable)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		return head.isFreeVariable(variable) || tail.isFreeVariable(variable);
+		return head.freeVariableSummary().union(tail.freeVariableSummary());
 	}
 
 	public class DiffInfoComposition extends DiffInfoNotEqual
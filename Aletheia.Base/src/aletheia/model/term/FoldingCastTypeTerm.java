@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 
@@ -86,20 +85,20 @@ public class FoldingCastTypeTerm extends CastTypeTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + variable.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + value.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + variable.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + value.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (this == term)
 			return true;
-		if (!(term instanceof FoldingCastTypeTerm) || !super.equals(term, parameterMap))
+		if (!(term instanceof FoldingCastTypeTerm) || !super.equals(term, boundParameterLevels))
 			return false;
 		FoldingCastTypeTerm castTypeTerm = (FoldingCastTypeTerm) term;
 		if (!variable.equals(castTypeTerm.variable) || !value.equals(castTypeTerm.value))
@@ -108,7 +107,7 @@ public class FoldingCastTypeTerm extends CastTypeTerm
 	}
 
 	@Override
-	protected Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
+	protected Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
 	{
 		try
 		{
@@ -158,18 +157,9 @@ public class FoldingCastTypeTerm extends CastTypeTerm
 	}
 
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		super.freeVariables(freeVars, localVars);
-		if (!localVars.contains(variable))
-			freeVars.add(variable);
-
-	}
-
-	@Override
-	public boolean isFreeVariable(VariableTerm variable)
-	{
-		return super.isFreeVariable(variable) || this.variable.equals(variable);
+		return super.computeFreeVariableSummary().union(variable.freeVariableSummary());
 	}
 
 	public class DiffInfoFoldingCastType extends DiffInfoCastType
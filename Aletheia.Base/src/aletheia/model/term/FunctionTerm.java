@@ -21,8 +21,8 @@ package aletheia.model.term;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -63,15 +63,18 @@ public class FunctionTerm extends Term
 	 */
 	private final Term body;
 
-	private static FunctionTerm computeType(ParameterVariableTerm parameter, Term body)
-	{
-		if (body.getType() == null)
-			return null;
-		return new FunctionTerm(parameter, body.getType());
-	}
+	/**
+	 * The type, computed on the first call to {@link #getType()}. Not
+	 * serialized, a deserialized function computes it again. Two threads
+	 * racing on the first call might both compute it, which is harmless since
+	 * the results are equal.
+	 */
+	private transient volatile FunctionTerm type;
 
 	/**
-	 * Create a new function term with the specified parameter and body.
+	 * Create a new function term with the specified parameter and body. The
+	 * type (the function from the parameter to the body's type) is computed on
+	 * demand.
 	 *
 	 * @param parameter
 	 *            The parameter of the function.
@@ -80,9 +83,29 @@ public class FunctionTerm extends Term
 	 */
 	public FunctionTerm(ParameterVariableTerm parameter, Term body)
 	{
-		super(computeType(parameter, body));
+		super(null);
 		this.parameter = parameter;
 		this.body = body;
+		this.type = null;
+	}
+
+	/**
+	 * The type of a function is the function from its parameter to the type
+	 * of its body, or null if the body has no type.
+	 */
+	@Override
+	public FunctionTerm getType()
+	{
+		FunctionTerm type = this.type;
+		if (type == null)
+		{
+			Term bodyType = body.getType();
+			if (bodyType == null)
+				return null;
+			type = new FunctionTerm(parameter, bodyType);
+			this.type = type;
+		}
+		return type;
 	}
 
 	/**
@@ -137,13 +160,67 @@ public class FunctionTerm extends Term
 	}
 
 	/**
-	 * Computes a series of replacements on this function.
+	 * The replacements passed down to the body of a function by
+	 * {@link FunctionTerm#replace(Map)}, together with the set of variables
+	 * that a parameter might clash with: the replaced variables and the free
+	 * variables of the replacing terms. The functions nested in the body check
+	 * their parameter against that set instead of scanning all the
+	 * replacements, like {@link Substitution} does.
+	 */
+	private static class BodyReplaces extends CombinedMap<VariableTerm, Term>
+	{
+		private static final long serialVersionUID = 4011349207215431066L;
+
+		private final Set<VariableTerm> clashing;
+
+		private BodyReplaces(Map<VariableTerm, Term> front, Map<VariableTerm, Term> back, Set<VariableTerm> clashing)
+		{
+			super(front, back);
+			this.clashing = clashing;
+		}
+
+		private static BodyReplaces of(Map<VariableTerm, Term> replaces)
+		{
+			if (replaces instanceof BodyReplaces)
+				return (BodyReplaces) replaces;
+			Set<VariableTerm> clashing = new HashSet<>(replaces.keySet());
+			for (Term term : replaces.values())
+				clashing.addAll(term.freeVariables());
+			return new BodyReplaces(Collections.emptyMap(), replaces, clashing);
+		}
+
+		/**
+		 * The replacements for the body of a function whose parameter is
+		 * renamed.
+		 */
+		private BodyReplaces renaming(ParameterVariableTerm parameter, ParameterVariableTerm renamed)
+		{
+			Set<VariableTerm> clashing = new HashSet<>(this.clashing);
+			clashing.add(parameter);
+			clashing.add(renamed);
+			return new BodyReplaces(Collections.singletonMap(parameter, renamed), this, clashing);
+		}
+
+	}
+
+	/**
+	 * Computes a series of replacements on this function. The parameter is
+	 * kept when its type is not altered by the replacements and it doesn't
+	 * clash with them, and if the body isn't altered either this very function
+	 * is returned, so the untouched subterms are shared with the result.
 	 */
 	@Override
-	protected FunctionTerm replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
+	protected FunctionTerm replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
 	{
 		Term partype = parameter.getType();
 		Term rpartype = partype.replace(replaces, exclude);
+		if (rpartype == partype && !replaces.clashes(parameter))
+		{
+			Term body_ = body.replace(replaces, exclude);
+			if (body_ == body)
+				return this;
+			return new FunctionTerm(parameter, body_);
+		}
 		Term rparam = new ParameterVariableTerm(rpartype);
 		replaces.addFirst(new Replace(parameter, rparam));
 		Term body_ = body.replace(replaces, exclude);
@@ -154,12 +231,17 @@ public class FunctionTerm extends Term
 	@Override
 	public Term replace(Map<VariableTerm, Term> replaces) throws ReplaceTypeException
 	{
-		Term parType = getParameter().getType().replace(replaces);
-		ParameterVariableTerm parameter;
-		Map<VariableTerm, Term> bodyReplaces;
-		parameter = new ParameterVariableTerm(parType);
-		bodyReplaces = new CombinedMap<>(Collections.singletonMap(getParameter(), parameter), replaces);
-		Term body = getBody().replace(bodyReplaces);
+		BodyReplaces bodyReplaces = BodyReplaces.of(replaces);
+		Term parType = getParameter().getType().replace(bodyReplaces);
+		if (parType == getParameter().getType() && !bodyReplaces.clashing.contains(getParameter()))
+		{
+			Term body = getBody().replace(bodyReplaces);
+			if (body == getBody())
+				return this;
+			return new FunctionTerm(getParameter(), body);
+		}
+		ParameterVariableTerm parameter = new ParameterVariableTerm(parType);
+		Term body = getBody().replace(bodyReplaces.renaming(getParameter(), parameter));
 		return new FunctionTerm(parameter, body);
 	}
 
@@ -293,60 +375,48 @@ public class FunctionTerm extends Term
 	}
 
 	/**
-	 * Two functions are equal when the parameters are of the same type and when
-	 * replacing one parameter with another in one's body results to the other's
-	 * body.
+	 * Two functions are equal when the parameters are of the same type and
+	 * their bodies are equal once the parameters are bound at the same level
+	 * (that is, replacing one parameter with another in one's body results to
+	 * the other's body).
 	 */
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof FunctionTerm))
 			return false;
 		FunctionTerm functionTerm = (FunctionTerm) term;
-		if (!parameter.getType().equals(functionTerm.parameter.getType(), parameterMap))
+		if (!parameter.getType().equals(functionTerm.parameter.getType(), boundParameterLevels))
 			return false;
-		ParameterVariableTerm oldParameter = parameterMap.put(parameter, functionTerm.parameter);
+		boundParameterLevels.push(parameter, functionTerm.parameter);
 		try
 		{
-			if (!body.equals(functionTerm.body, parameterMap))
-				return false;
-			return true;
+			return body.equals(functionTerm.body, boundParameterLevels);
 		}
 		finally
 		{
-			if (oldParameter == null)
-				parameterMap.remove(parameter);
-			else
-				parameterMap.put(parameter, oldParameter);
+			boundParameterLevels.pop();
 		}
 	}
 
+	/**
+	 * The body is hashed with the parameter bound to a value that depends only
+	 * on the position of this function in the term being hashed, so
+	 * alpha-equivalent functions get the same hash code.
+	 */
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + parameter.getType().hashCode(hasher *= hashPrime);
-		final int fhasher = hasher *= hashPrime;
-		VariableTerm vthasher = new ParameterVariableTerm(parameter.getType())
-		{
-			private static final long serialVersionUID = -8390284352572376476L;
-
-			@Deprecated
-			@Override
-			protected int hashCode(int hasher_)
-			{
-				return fhasher;
-			}
-
-		};
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + parameter.getType().hashCode(hasher *= hashPrime, boundParameterHashes);
+		boundParameterHashes.push(parameter, hasher *= hashPrime);
 		try
 		{
-			Term rbody = body.replace(parameter, vthasher);
-			ret = ret * hashPrime + rbody.hashCode(hasher *= hashPrime);
+			ret = ret * hashPrime + body.hashCode(hasher *= hashPrime, boundParameterHashes);
 		}
-		catch (ReplaceTypeException e)
+		finally
 		{
-			throw new RuntimeException(e);
+			boundParameterHashes.pop();
 		}
 		return ret;
 	}
@@ -356,19 +426,9 @@ public class FunctionTerm extends Term
 	 * body minus the parameter variable.
 	 */
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
-	{
-		parameter.getType().freeVariables(freeVars, localVars);
-		boolean added = localVars.add(parameter);
-		body.freeVariables(freeVars, localVars);
-		if (added)
-			localVars.remove(parameter);
-	}
-
-	@Override
-	public boolean isFreeVariable(VariableTerm variable)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		return !parameter.equals(variable) && (parameter.getType().isFreeVariable(variable) || body.isFreeVariable(variable));
+		return parameter.getType().freeVariableSummary().union(body.freeVariableSummary().remove(parameter));
 	}
 
 	public class DiffInfoFunction extends DiffInfoNotEqual
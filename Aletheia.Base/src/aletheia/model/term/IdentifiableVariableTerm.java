@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -55,7 +54,7 @@ public class IdentifiableVariableTerm extends VariableTerm
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof IdentifiableVariableTerm))
 			return false;
@@ -66,7 +65,7 @@ public class IdentifiableVariableTerm extends VariableTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
 		int ret = 0;
 		ret = ret * hashPrime + uuid.hashCode();
@@ -39,16 +39,23 @@ public class ParameterVariableTerm extends VariableTerm
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof ParameterVariableTerm))
 			return false;
-		return parameterMap.getOrDefault(this, this) == term;
+		int level = boundParameterLevels.levelLeft(this);
+		if (level >= 0)
+			return boundParameterLevels.levelRight((ParameterVariableTerm) term) == level;
+		else
+			return this == term && boundParameterLevels.levelRight(this) < 0;
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
+		int position = boundParameterHashes.position(this);
+		if (position >= 0)
+			return boundParameterHashes.hash(position);
 		int ret = 0;
 		ret = ret * hashPrime + System.identityHashCode(this);
 		return ret;
@@ -19,8 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Map;
-
 import aletheia.model.term.ProjectionTerm.ProjectionTypeException;
 
 public class ProjectedCastTypeTerm extends ProjectionCastTypeTerm
@@ -78,16 +76,16 @@ public class ProjectedCastTypeTerm extends ProjectionCastTypeTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
-		if (!super.equals(term, parameterMap) || !(term instanceof ProjectedCastTypeTerm))
+		if (!super.equals(term, boundParameterLevels) || !(term instanceof ProjectedCastTypeTerm))
 			return false;
 		return true;
 	}
@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 
@@ -37,9 +36,9 @@ public abstract class ProjectionCastTypeTerm extends CastTypeTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
@@ -109,7 +108,7 @@ public abstract class ProjectionCastTypeTerm extends CastTypeTerm
 	}
 
 	@Override
-	protected Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
+	protected Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
 	{
 		try
 		{
@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
@@ -119,11 +118,14 @@ public class ProjectionTerm extends AtomicTerm
 	 *
 	 */
 	@Override
-	protected Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
+	protected Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException
 	{
 		try
 		{
-			return new ProjectionTerm(function.replace(replaces, exclude));
+			FunctionTerm function_ = function.replace(replaces, exclude);
+			if (function_ == function)
+				return this;
+			return new ProjectionTerm(function_);
 		}
 		catch (ProjectionTypeException e)
 		{
@@ -136,7 +138,10 @@ public class ProjectionTerm extends AtomicTerm
 	{
 		try
 		{
-			return function.replace(replaces).project();
+			Term function_ = function.replace(replaces);
+			if (function_ == function)
+				return this;
+			return function_.project();
 		}
 		catch (ProjectionTypeException e)
 		{
@@ -170,15 +175,9 @@ public class ProjectionTerm extends AtomicTerm
 	 * projected.
 	 */
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
-	{
-		function.freeVariables(freeVars, localVars);
-	}
-
-	@Override
-	public boolean isFreeVariable(VariableTerm variable)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		return function.isFreeVariable(variable);
+		return function.freeVariableSummary();
 	}
 
 	@Override
@@ -227,21 +226,21 @@ public class ProjectionTerm extends AtomicTerm
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof ProjectionTerm))
 			return false;
 		ProjectionTerm projectionTerm = (ProjectionTerm) term;
-		if (!function.equals(projectionTerm.function, parameterMap))
+		if (!function.equals(projectionTerm.function, boundParameterLevels))
 			return false;
 		return true;
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
-		ret = ret * hashPrime + function.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
+		ret = ret * hashPrime + function.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.model.term;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import aletheia.model.term.Term.ComposeTypeException;
+import aletheia.model.term.Term.ReplaceTypeException;
+
+/**
+ * <p>
+ * A growing map of variable replacements to be applied to many terms that
+ * might share subterms, like the terms of the statements of a bulk copy.
+ * </p>
+ * <p>
+ * Applying it to a term gives the same result as
+ * {@link Term#replace(Map)}, but:
+ * <ul>
+ * <li>The subterms with no free variable to replace are returned untouched
+ * without walking them (see {@link Term#isFreeVariable(VariableTerm)}).</li>
+ * <li>The result for every subterm whose free variables are all replaced is
+ * memoized by identity, so it is computed only once for all the terms it
+ * appears in (when the terms are interned, see {@link TermInterner}). Those
+ * results can't change later, since the replacement of a variable can't be
+ * changed once it has been used.</li>
+ * <li>Checking if the parameter of a function clashes with the replacements
+ * doesn't need to scan all of them.</li>
+ * </ul>
+ * </p>
+ */
+public class Substitution
+{
+	private final Map<VariableTerm, Term> replaces;
+	private final Map<VariableTerm, Term> unmodifiableReplaces;
+	private final Set<VariableTerm> replacingFreeVariables;
+	private final Map<Term, Term> memo;
+	private final TermInterner interner;
+
+	/**
+	 * @param interner
+	 *            The table the rebuilt terms are interned in, or null if they
+	 *            are not.
+	 */
+	public Substitution(TermInterner interner)
+	{
+		this.interner = interner;
+		this.replaces = new HashMap<>();
+		this.unmodifiableReplaces = Collections.unmodifiableMap(replaces);
+		this.replacingFreeVariables = new HashSet<>();
+		this.memo = new IdentityHashMap<>();
+	}
+
+	private Term intern(Term term)
+	{
+		return interner == null ? term : interner.intern(term);
+	}
+
+	/**
+	 * Adds a replacement. If the variable was already replaced with another
+	 * term the memoized results are discarded.
+	 */
+	public void put(VariableTerm variable, Term term)
+	{
+		Term old = replaces.put(variable, term);
+		if (old != null && old != term)
+			memo.clear();
+		replacingFreeVariables.addAll(term.freeVariables());
+	}
+
+	public Term get(VariableTerm variable)
+	{
+		return replaces.get(variable);
+	}
+
+	/**
+	 * The replacements as an unmodifiable map.
+	 */
+	public Map<VariableTerm, Term> getReplaces()
+	{
+		return unmodifiableReplaces;
+	}
+
+	/**
+	 * Applies the replacements to a term.
+	 *
+	 * @see Term#replace(Map)
+	 */
+	public Term apply(Term term) throws ReplaceTypeException
+	{
+		Term result = memo.get(term);
+		if (result != null)
+			return result;
+		Term.FreeVariableSummary summary = term.freeVariableSummary();
+		int replaced = summary.countKeysIn(replaces);
+		if (replaced == 0)
+			return term;
+		if (term instanceof CompositionTerm)
+		{
+			CompositionTerm composition = (CompositionTerm) term;
+			Term head = apply(composition.getHead());
+			Term tail = apply(composition.getTail());
+			if (head == composition.getHead() && tail == composition.getTail())
+				result = composition;
+			else
+				try
+				{
+					result = intern(head.compose(tail));
+				}
+				catch (ComposeTypeException e)
+				{
+					throw composition.new ReplaceTypeException(e);
+				}
+		}
+		else if (term instanceof FunctionTerm)
+		{
+			FunctionTerm function = (FunctionTerm) term;
+			ParameterVariableTerm parameter = function.getParameter();
+			Term parType = apply(parameter.getType());
+			if (parType == parameter.getType() && !replaces.containsKey(parameter) && !replacingFreeVariables.contains(parameter))
+			{
+				Term body = apply(function.getBody());
+				result = body == function.getBody() ? function : intern(new FunctionTerm(parameter, body));
+			}
+			else
+				result = function.replace(replaces);
+		}
+		else
+			result = term.replace(replaces);
+		if (replaced == summary.size())
+			memo.put(term, result);
+		return result;
+	}
+
+}
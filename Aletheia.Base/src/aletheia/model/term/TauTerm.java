@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 
@@ -69,7 +68,7 @@ public class TauTerm extends AtomicTerm
 	}
 
 	@Override
-	protected TauTerm replace(Deque<Replace> replaces, Set<VariableTerm> exclude)
+	protected TauTerm replace(ReplaceDeque replaces, Set<VariableTerm> exclude)
 	{
 		return this;
 	}
@@ -84,7 +83,7 @@ public class TauTerm extends AtomicTerm
 	 * The primitive type is equals to the primitive type itself.
 	 */
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
 		if (!(term instanceof TauTerm))
 			return false;
@@ -92,9 +91,9 @@ public class TauTerm extends AtomicTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
@@ -108,9 +107,9 @@ public class TauTerm extends AtomicTerm
 	 * The primitive type has no variables, free or not.
 	 */
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		return;
+		return FreeVariableSummary.empty;
 	}
 
 	@Override
@@ -22,10 +22,11 @@ package aletheia.model.term;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -174,7 +175,7 @@ public abstract class Term implements Serializable, Exportable
 
 	public final Term replace(Collection<Replace> replaces) throws ReplaceTypeException
 	{
-		return replace(new LinkedList<>(replaces), new HashSet<>());
+		return replace(new ReplaceDeque(replaces), new HashSet<>());
 	}
 
 	/**
@@ -223,11 +224,80 @@ public abstract class Term implements Serializable, Exportable
 
 	}
 
+	/**
+	 * The series of replacements threaded through
+	 * {@link Term#replace(ReplaceDeque, Set)}. It also counts the variables that
+	 * the parameter of a function might clash with: the replaced variables and
+	 * the free variables of the replacing terms. So a function checks its
+	 * parameter in constant time instead of scanning all the replacements,
+	 * like {@link Substitution} does. Only {@link #addFirst(Replace)},
+	 * {@link #addLast(Replace)} and {@link #removeFirst()} keep the counts.
+	 */
+	protected static class ReplaceDeque extends ArrayDeque<Replace>
+	{
+		private static final long serialVersionUID = -6000484946471957215L;
+
+		private final Map<VariableTerm, Integer> clashing;
+
+		protected ReplaceDeque(Collection<Replace> replaces)
+		{
+			super(replaces.size() + 4);
+			this.clashing = new HashMap<>();
+			for (Replace replace : replaces)
+				addLast(replace);
+		}
+
+		private void count(VariableTerm variable, int delta)
+		{
+			clashing.merge(variable, delta, (a, b) -> a + b == 0 ? null : a + b);
+		}
+
+		private void count(Replace replace, int delta)
+		{
+			count(replace.variable, delta);
+			for (VariableTerm variable : replace.term.freeVariables())
+				count(variable, delta);
+		}
+
+		@Override
+		public void addFirst(Replace replace)
+		{
+			super.addFirst(replace);
+			count(replace, 1);
+		}
+
+		@Override
+		public void addLast(Replace replace)
+		{
+			super.addLast(replace);
+			count(replace, 1);
+		}
+
+		@Override
+		public Replace removeFirst()
+		{
+			Replace replace = super.removeFirst();
+			count(replace, -1);
+			return replace;
+		}
+
+		/**
+		 * Checks if a function parameter clashes with the replacements: that
+		 * is, if it is itself one of the variables to replace or if it occurs
+		 * free in any of the replacing terms (and would be captured).
+		 */
+		protected boolean clashes(ParameterVariableTerm parameter)
+		{
+			return clashing.containsKey(parameter);
+		}
+
+	}
+
 	/**
 	 * Perform a series of replacements on this term (auxiliary-internal
 	 * method).
 	 */
-	protected abstract Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude) throws ReplaceTypeException;
+	protected abstract Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude) throws ReplaceTypeException;
 
 	public abstract Term replace(Map<VariableTerm, Term> replaces) throws ReplaceTypeException;
 
@@ -238,41 +308,345 @@ public abstract class Term implements Serializable, Exportable
 			return true;
 		if (!(obj instanceof Term))
 			return false;
-		return equals((Term) obj, new HashMap<>());
+		return equals((Term) obj, new BoundParameterLevels());
 	}
 
-	protected abstract boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap);
+	/**
+	 * The pairs of parameters bound by the function terms that enclose the
+	 * subterms being compared for equality. A bound parameter of one side is
+	 * only equal to the parameter of the other side that is bound at the same
+	 * level (de Bruijn level), so alpha-equivalent terms are compared
+	 * structurally without substituting nor mapping parameters. A free
+	 * parameter is only equal to itself.
+	 */
+	protected static class BoundParameterLevels
+	{
+		private ParameterVariableTerm[] left;
+		private ParameterVariableTerm[] right;
+		private int size;
+
+		protected BoundParameterLevels()
+		{
+			this.left = null;
+			this.right = null;
+			this.size = 0;
+		}
+
+		protected void push(ParameterVariableTerm parameterLeft, ParameterVariableTerm parameterRight)
+		{
+			if (left == null)
+			{
+				left = new ParameterVariableTerm[8];
+				right = new ParameterVariableTerm[8];
+			}
+			else if (size >= left.length)
+			{
+				left = Arrays.copyOf(left, size * 2);
+				right = Arrays.copyOf(right, size * 2);
+			}
+			left[size] = parameterLeft;
+			right[size] = parameterRight;
+			size++;
+		}
+
+		protected void pop()
+		{
+			size--;
+			left[size] = null;
+			right[size] = null;
+		}
+
+		private static int level(ParameterVariableTerm[] parameters, int size, ParameterVariableTerm parameter)
+		{
+			for (int i = size - 1; i >= 0; i--)
+				if (parameters[i] == parameter)
+					return i;
+			return -1;
+		}
+
+		/**
+		 * The level of the innermost binding of a parameter in the left side
+		 * or -1 if it is not bound.
+		 */
+		protected int levelLeft(ParameterVariableTerm parameter)
+		{
+			return level(left, size, parameter);
+		}
+
+		/**
+		 * The level of the innermost binding of a parameter in the right side
+		 * or -1 if it is not bound.
+		 */
+		protected int levelRight(ParameterVariableTerm parameter)
+		{
+			return level(right, size, parameter);
+		}
+
+	}
+
+	protected abstract boolean equals(Term term, BoundParameterLevels boundParameterLevels);
 
 	@Override
 	public final int hashCode()
 	{
 		if (!hashCoded)
 		{
-			hashCode = hashCode(hashPrime);
+			hashCode = hashCode(hashPrime, new BoundParameterHashes());
 			hashCoded = true;
 		}
 		return hashCode;
 	}
 
-	protected int hashCode(int hasher)
+	/**
+	 * The hash values assigned to the parameters bound by the function terms
+	 * that enclose the subterm being hashed. A bound parameter is hashed
+	 * after the position of its binder instead of its identity, so two terms
+	 * that are equal modulo the renaming of its parameters (see
+	 * {@link #equals(Term, BoundParameterLevels)}) get the same hash code.
+	 * Implemented as a plain array stack since it will rarely grow deep and
+	 * the innermost binders are the most frequently looked up.
+	 */
+	protected static class BoundParameterHashes
+	{
+		private ParameterVariableTerm[] parameters;
+		private int[] hashes;
+		private int size;
+
+		protected BoundParameterHashes()
+		{
+			this.parameters = new ParameterVariableTerm[8];
+			this.hashes = new int[8];
+			this.size = 0;
+		}
+
+		protected void push(ParameterVariableTerm parameter, int hash)
+		{
+			if (size >= parameters.length)
+			{
+				parameters = Arrays.copyOf(parameters, size * 2);
+				hashes = Arrays.copyOf(hashes, size * 2);
+			}
+			parameters[size] = parameter;
+			hashes[size] = hash;
+			size++;
+		}
+
+		protected void pop()
+		{
+			parameters[--size] = null;
+		}
+
+		/**
+		 * The position of the innermost binding of a parameter or -1 if it
+		 * is not bound.
+		 */
+		protected int position(ParameterVariableTerm parameter)
+		{
+			for (int i = size - 1; i >= 0; i--)
+				if (parameters[i] == parameter)
+					return i;
+			return -1;
+		}
+
+		protected int hash(int position)
+		{
+			return hashes[position];
+		}
+
+	}
+
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
 		int ret = hasher * hashPrime;
 		return ret;
 	}
 
 	/**
-	 * Adds the free variables in this term to <i>freeVars</i>, considering
-	 * <i>localVars</i> as bounded (allegedly, they are the parameter variables
-	 * of function terms which this term is embedded in the body of).
-	 *
-	 * @param freeVars
-	 *            The set of free variables.
-	 * @param localVars
-	 *            The set of already known local variables.
+	 * Compact immutable summary of the free variables of a term: the variables
+	 * sorted by hash code plus a 64-bit mask with a bit set for every hash code
+	 * (modulo 64) present, so most negative membership queries are answered
+	 * without looking at the array. Summaries are computed bottom-up once per
+	 * term and shared with the subterms whenever the set doesn't change.
 	 */
-	protected abstract void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars);
+	protected static final class FreeVariableSummary
+	{
+		protected static final FreeVariableSummary empty = new FreeVariableSummary(new VariableTerm[0], 0L);
+
+		private final VariableTerm[] variables;
+		private final long mask;
+
+		private FreeVariableSummary(VariableTerm[] variables, long mask)
+		{
+			this.variables = variables;
+			this.mask = mask;
+		}
 
-	public abstract boolean isFreeVariable(VariableTerm variable);
+		private static int hash(VariableTerm variable)
+		{
+			return variable.hashCode();
+		}
+
+		private static long bit(int hash)
+		{
+			return 1L << ((hash ^ (hash >>> 6) ^ (hash >>> 12) ^ (hash >>> 18) ^ (hash >>> 24)) & 63);
+		}
+
+		protected static FreeVariableSummary singleton(VariableTerm variable)
+		{
+			return new FreeVariableSummary(new VariableTerm[]
+			{ variable }, bit(hash(variable)));
+		}
+
+		protected int size()
+		{
+			return variables.length;
+		}
+
+		private static int indexOf(VariableTerm[] variables, int length, VariableTerm variable, int hash)
+		{
+			int lo = 0;
+			int hi = length - 1;
+			while (lo <= hi)
+			{
+				int mid = (lo + hi) >>> 1;
+				int h = hash(variables[mid]);
+				if (h < hash)
+					lo = mid + 1;
+				else if (h > hash)
+					hi = mid - 1;
+				else
+				{
+					for (int k = mid; k >= 0 && hash(variables[k]) == hash; k--)
+						if (variables[k].equals(variable))
+							return k;
+					for (int k = mid + 1; k < length && hash(variables[k]) == hash; k++)
+						if (variables[k].equals(variable))
+							return k;
+					return -1;
+				}
+			}
+			return -1;
+		}
+
+		protected boolean containsParameter()
+		{
+			for (VariableTerm variable : variables)
+				if (variable instanceof ParameterVariableTerm)
+					return true;
+			return false;
+		}
+
+		protected boolean contains(VariableTerm variable)
+		{
+			int hash = hash(variable);
+			if ((mask & bit(hash)) == 0)
+				return false;
+			return indexOf(variables, variables.length, variable, hash) >= 0;
+		}
+
+		private boolean containsAll(FreeVariableSummary other)
+		{
+			if ((other.mask & ~mask) != 0)
+				return false;
+			for (VariableTerm variable : other.variables)
+				if (!contains(variable))
+					return false;
+			return true;
+		}
+
+		protected FreeVariableSummary union(FreeVariableSummary other)
+		{
+			if (containsAll(other))
+				return this;
+			if (other.containsAll(this))
+				return other;
+			VariableTerm[] merged = new VariableTerm[variables.length + other.variables.length];
+			int n = 0;
+			int i = 0;
+			int j = 0;
+			while (i < variables.length || j < other.variables.length)
+			{
+				VariableTerm variable;
+				if (j >= other.variables.length || (i < variables.length && hash(variables[i]) <= hash(other.variables[j])))
+					variable = variables[i++];
+				else
+					variable = other.variables[j++];
+				int hash = hash(variable);
+				boolean found = false;
+				for (int k = n - 1; k >= 0 && hash(merged[k]) == hash; k--)
+					if (merged[k].equals(variable))
+					{
+						found = true;
+						break;
+					}
+				if (!found)
+					merged[n++] = variable;
+			}
+			return new FreeVariableSummary(Arrays.copyOf(merged, n), mask | other.mask);
+		}
+
+		protected FreeVariableSummary remove(VariableTerm variable)
+		{
+			int hash = hash(variable);
+			if ((mask & bit(hash)) == 0)
+				return this;
+			int index = indexOf(variables, variables.length, variable, hash);
+			if (index < 0)
+				return this;
+			VariableTerm[] removed = new VariableTerm[variables.length - 1];
+			System.arraycopy(variables, 0, removed, 0, index);
+			System.arraycopy(variables, index + 1, removed, index, variables.length - index - 1);
+			long mask = 0;
+			for (VariableTerm v : removed)
+				mask |= bit(hash(v));
+			return new FreeVariableSummary(removed, mask);
+		}
+
+		protected void addTo(Collection<? super VariableTerm> collection)
+		{
+			for (VariableTerm variable : variables)
+				collection.add(variable);
+		}
+
+		protected int countKeysIn(Map<VariableTerm, ?> map)
+		{
+			int n = 0;
+			for (VariableTerm variable : variables)
+				if (map.containsKey(variable))
+					n++;
+			return n;
+		}
+
+	}
+
+	/**
+	 * Racy single-check memoization: the summary is immutable (final fields)
+	 * and deterministic, so a thread seeing a stale null just computes it
+	 * again.
+	 */
+	private transient FreeVariableSummary freeVariableSummary;
+
+	protected final FreeVariableSummary freeVariableSummary()
+	{
+		FreeVariableSummary summary = freeVariableSummary;
+		if (summary == null)
+		{
+			summary = computeFreeVariableSummary();
+			freeVariableSummary = summary;
+		}
+		return summary;
+	}
+
+	/**
+	 * Computes the summary of the free variables in this term from the
+	 * summaries of its subterms.
+	 */
+	protected abstract FreeVariableSummary computeFreeVariableSummary();
+
+	public boolean isFreeVariable(VariableTerm variable)
+	{
+		return freeVariableSummary().contains(variable);
+	}
 
 	/**
 	 * Returns the set of free variables in this term. A variable is free when
@@ -283,8 +657,9 @@ public abstract class Term implements Serializable, Exportable
 	 */
 	public Set<VariableTerm> freeVariables()
 	{
-		Set<VariableTerm> freeVars = new HashSet<>();
-		freeVariables(freeVars, new HashSet<>());
+		FreeVariableSummary summary = freeVariableSummary();
+		Set<VariableTerm> freeVars = new HashSet<>(summary.size() * 2);
+		summary.addTo(freeVars);
 		return freeVars;
 	}
 
@@ -1270,6 +1645,7 @@ public abstract class Term implements Serializable, Exportable
 
 	public Term domain() throws DomainTypeException
 	{
+		Term type = getType();
 		if (type == null)
 			throw new DomainTypeException();
 		return type.domain();
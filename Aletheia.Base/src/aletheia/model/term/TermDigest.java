@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.model.term;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Strong structural digest of a {@link Term}, to be used as a compact key for
+ * terms in the persistence indexes.
+ *
+ * <p>
+ * The digest is the first 128 bits of the SHA-256 of a canonical
+ * serialization of the term, packed in an {@link UUID}. Like
+ * {@link Term#equals(Object)}, the serialization refers to the bound
+ * parameters by the level of their binder (so alpha-equivalent terms get the
+ * same digest) and to the {@link IdentifiableVariableTerm}s by their
+ * {@link UUID}, also inside the cast terms. Unlike equality, the parameters
+ * that are free in the term can only be told apart by their order of
+ * appearance. So two terms with the same digest are not guaranteed to be
+ * equal, and the lookups keyed by the digest must still compare the terms
+ * found with {@link Term#equals(Object)}.
+ * </p>
+ */
+public class TermDigest
+{
+	private static final String algorithm = "SHA-256";
+
+	private static final byte TAU = 0;
+	private static final byte BOUND_PARAMETER = 1;
+	private static final byte FREE_PARAMETER = 2;
+	private static final byte IDENTIFIABLE_VARIABLE = 3;
+	private static final byte FUNCTION = 4;
+	private static final byte COMPOSITION = 5;
+	private static final byte PROJECTION = 6;
+	private static final byte PROJECTED_CAST = 7;
+	private static final byte UNPROJECTED_CAST = 8;
+	private static final byte FOLDING_CAST = 9;
+
+	private final DataOutputStream out;
+	private final Map<ParameterVariableTerm, Integer> freeParameters;
+
+	private TermDigest(MessageDigest messageDigest)
+	{
+		this.out = new DataOutputStream(new OutputStream()
+		{
+
+			@Override
+			public void write(int b)
+			{
+				messageDigest.update((byte) b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len)
+			{
+				messageDigest.update(b, off, len);
+			}
+
+		});
+		this.freeParameters = new IdentityHashMap<>();
+	}
+
+	private void digest(Term term, List<ParameterVariableTerm> boundParameters) throws IOException
+	{
+		if (term instanceof TauTerm)
+			out.writeByte(TAU);
+		else if (term instanceof ParameterVariableTerm)
+		{
+			int level = boundParameters.size() - 1;
+			while (level >= 0 && boundParameters.get(level) != term)
+				level--;
+			if (level >= 0)
+			{
+				out.writeByte(BOUND_PARAMETER);
+				out.writeInt(level);
+			}
+			else
+			{
+				Integer index = freeParameters.get(term);
+				if (index == null)
+				{
+					index = freeParameters.size();
+					freeParameters.put((ParameterVariableTerm) term, index);
+				}
+				out.writeByte(FREE_PARAMETER);
+				out.writeInt(index);
+			}
+		}
+		else if (term instanceof IdentifiableVariableTerm)
+		{
+			UUID uuid = ((IdentifiableVariableTerm) term).getUuid();
+			out.writeByte(IDENTIFIABLE_VARIABLE);
+			out.writeLong(uuid.getMostSignificantBits());
+			out.writeLong(uuid.getLeastSignificantBits());
+		}
+		else if (term instanceof FunctionTerm)
+		{
+			FunctionTerm function = (FunctionTerm) term;
+			out.writeByte(FUNCTION);
+			digest(function.getParameter().getType(), boundParameters);
+			boundParameters.add(function.getParameter());
+			try
+			{
+				digest(function.getBody(), boundParameters);
+			}
+			finally
+			{
+				boundParameters.remove(boundParameters.size() - 1);
+			}
+		}
+		else if (term instanceof CompositionTerm)
+		{
+			CompositionTerm composition = (CompositionTerm) term;
+			out.writeByte(COMPOSITION);
+			digest(composition.getHead(), boundParameters);
+			digest(composition.getTail(), boundParameters);
+		}
+		else if (term instanceof ProjectionTerm)
+		{
+			out.writeByte(PROJECTION);
+			digest(((ProjectionTerm) term).getFunction(), boundParameters);
+		}
+		else if (term instanceof ProjectedCastTypeTerm)
+		{
+			out.writeByte(PROJECTED_CAST);
+			digest(((ProjectedCastTypeTerm) term).getTerm(), boundParameters);
+		}
+		else if (term instanceof UnprojectedCastTypeTerm)
+		{
+			out.writeByte(UNPROJECTED_CAST);
+			digest(((UnprojectedCastTypeTerm) term).getTerm(), boundParameters);
+		}
+		else if (term instanceof FoldingCastTypeTerm)
+		{
+			FoldingCastTypeTerm folding = (FoldingCastTypeTerm) term;
+			out.writeByte(FOLDING_CAST);
+			digest(folding.getTerm(), boundParameters);
+			digest(folding.getVariable(), boundParameters);
+			digest(folding.getValue(), boundParameters);
+		}
+		else
+			throw new Error("Unsupported term class: " + term.getClass().getName());
+	}
+
+	/**
+	 * Computes the digest of a term.
+	 *
+	 * @param term
+	 *            The term.
+	 * @return The digest.
+	 */
+	public static UUID digest(Term term)
+	{
+		try
+		{
+			MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+			new TermDigest(messageDigest).digest(term, new ArrayList<>());
+			ByteBuffer buffer = ByteBuffer.wrap(messageDigest.digest());
+			return new UUID(buffer.getLong(), buffer.getLong());
+		}
+		catch (NoSuchAlgorithmException | IOException e)
+		{
+			throw new Error(e);
+		}
+	}
+
+}
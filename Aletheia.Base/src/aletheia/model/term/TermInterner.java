@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.model.term;
+
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import aletheia.model.term.CompositionTerm.CompositionTypeException;
+import aletheia.model.term.ProjectionTerm.ProjectionTypeException;
+
+/**
+ * Hash-consing table for {@link Term}s.
+ *
+ * <p>
+ * The structurally equal terms (modulo the renaming of their bound parameters,
+ * as defined by {@link Term#equals(Object)}) that go through
+ * {@link #intern(Term)} end up sharing a single instance. That saves the heap
+ * space of the duplicated type trees and lets most comparisons between them be
+ * resolved by the identity check of {@link Term#equals(Object)}.
+ * </p>
+ * <p>
+ * The table only holds weak references to the interned terms, so they are
+ * collected as usual when nobody else refers to them. There is no global
+ * table: every {@link aletheia.persistence.PersistenceManager} configured to
+ * intern its terms owns one and clears it when closed, so the terms of
+ * different stores are never mixed.
+ * </p>
+ */
+public class TermInterner
+{
+	private final Map<Term, WeakReference<Term>> table;
+	private long hits;
+	private long misses;
+
+	public TermInterner()
+	{
+		this.table = new WeakHashMap<>();
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * Returns the canonical instance of the given term. If no equal term has
+	 * been interned yet, the term itself is returned and registered. Variables
+	 * and the primitive type are never interned, their identity already is
+	 * their structure.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Term> T intern(T term)
+	{
+		if (term == null || term instanceof VariableTerm || term instanceof TauTerm)
+			return term;
+		WeakReference<Term> ref = table.get(term);
+		Term interned = ref != null ? ref.get() : null;
+		if (interned != null && interned.getClass().equals(term.getClass()))
+		{
+			hits++;
+			return (T) interned;
+		}
+		misses++;
+		table.put(term, new WeakReference<>(term));
+		return term;
+	}
+
+	/**
+	 * Interns a term together with all its subterms that have no free
+	 * parameter variable (the ones that do can't be equal to any term outside
+	 * the scope of their parameters). The composition, function and projection
+	 * nodes whose subterms get replaced by their canonical instances are
+	 * rebuilt. The result is equal to the given term.
+	 */
+	public Term internSubterms(Term term)
+	{
+		return internSubterms(term, new IdentityHashMap<>());
+	}
+
+	private Term internSubterms(Term term, Map<Term, Term> done)
+	{
+		Term result = done.get(term);
+		if (result != null)
+			return result;
+		result = term;
+		try
+		{
+			if (term instanceof CompositionTerm)
+			{
+				CompositionTerm composition = (CompositionTerm) term;
+				Term head = internSubterms(composition.getHead(), done);
+				Term tail = internSubterms(composition.getTail(), done);
+				if (head != composition.getHead() || tail != composition.getTail())
+					result = new CompositionTerm((SimpleTerm) head, tail);
+			}
+			else if (term instanceof FunctionTerm)
+			{
+				FunctionTerm function = (FunctionTerm) term;
+				Term body = internSubterms(function.getBody(), done);
+				if (body != function.getBody())
+					result = new FunctionTerm(function.getParameter(), body);
+			}
+			else if (term instanceof ProjectionTerm)
+			{
+				ProjectionTerm projection = (ProjectionTerm) term;
+				Term function = internSubterms(projection.getFunction(), done);
+				if (function != projection.getFunction())
+					result = new ProjectionTerm((FunctionTerm) function);
+			}
+		}
+		catch (CompositionTypeException | ProjectionTypeException e)
+		{
+			throw new Error(e);
+		}
+		if (!result.freeVariableSummary().containsParameter())
+			result = intern(result);
+		done.put(term, result);
+		return result;
+	}
+
+	public synchronized int size()
+	{
+		return table.size();
+	}
+
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	public synchronized void clear()
+	{
+		table.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+}
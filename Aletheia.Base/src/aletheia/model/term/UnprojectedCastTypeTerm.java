@@ -19,8 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Map;
-
 public class UnprojectedCastTypeTerm extends ProjectionCastTypeTerm
 {
 	private static final long serialVersionUID = 8127173784394913752L;
@@ -68,16 +66,16 @@ public class UnprojectedCastTypeTerm extends ProjectionCastTypeTerm
 	}
 
 	@Override
-	protected int hashCode(int hasher)
+	protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 	{
-		int ret = super.hashCode(hasher *= hashPrime);
+		int ret = super.hashCode(hasher *= hashPrime, boundParameterHashes);
 		return ret;
 	}
 
 	@Override
-	protected boolean equals(Term term, Map<ParameterVariableTerm, ParameterVariableTerm> parameterMap)
+	protected boolean equals(Term term, BoundParameterLevels boundParameterLevels)
 	{
-		if (!super.equals(term, parameterMap) || !(term instanceof UnprojectedCastTypeTerm))
+		if (!super.equals(term, boundParameterLevels) || !(term instanceof UnprojectedCastTypeTerm))
 			return false;
 		return true;
 	}
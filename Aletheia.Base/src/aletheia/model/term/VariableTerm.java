@@ -19,7 +19,6 @@
  ******************************************************************************/
 package aletheia.model.term;
 
-import java.util.Deque;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -67,7 +66,7 @@ public abstract class VariableTerm extends AtomicTerm
 	 * result is this variable term unaltered.
 	 */
 	@Override
-	protected Term replace(Deque<Replace> replaces, Set<VariableTerm> exclude)
+	protected Term replace(ReplaceDeque replaces, Set<VariableTerm> exclude)
 	{
 		Term term = this;
 		for (Replace r : replaces)
@@ -96,10 +95,9 @@ public abstract class VariableTerm extends AtomicTerm
 	 * itself.
 	 */
 	@Override
-	protected void freeVariables(Set<VariableTerm> freeVars, Set<VariableTerm> localVars)
+	protected FreeVariableSummary computeFreeVariableSummary()
 	{
-		if (!localVars.contains(this))
-			freeVars.add(this);
+		return FreeVariableSummary.singleton(this);
 	}
 
 	private void freeVariablesTypeRecursive(Set<VariableTerm> freeVars)
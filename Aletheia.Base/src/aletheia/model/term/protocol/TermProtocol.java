@@ -41,6 +41,7 @@ import aletheia.model.term.ProjectionTerm.ProjectionTypeException;
 import aletheia.model.term.SimpleTerm;
 import aletheia.model.term.TauTerm;
 import aletheia.model.term.Term;
+import aletheia.model.term.TermInterner;
 import aletheia.model.term.UnprojectedCastTypeTerm;
 import aletheia.model.term.VariableTerm;
 import aletheia.persistence.PersistenceManager;
@@ -156,7 +157,24 @@ public class TermProtocol extends PersistentExportableProtocol<Term>
 		}
 	}
 
+	/**
+	 * Only the terms received out of the scope of any function parameter are
+	 * interned (in the table of the persistence manager, if it has one): the
+	 * ones inside the scope have free parameter variables freshly created by
+	 * this very decoding, so they can't be equal to any other term already
+	 * interned.
+	 */
 	private Term recv(DataInput in, Stack<VariableTerm> varStack) throws IOException, ProtocolException
+	{
+		Term term = recvTerm(in, varStack);
+		TermInterner interner = getPersistenceManager() == null ? null : getPersistenceManager().getTermInterner();
+		if (varStack.isEmpty() && interner != null)
+			return interner.intern(term);
+		else
+			return term;
+	}
+
+	private Term recvTerm(DataInput in, Stack<VariableTerm> varStack) throws IOException, ProtocolException
 	{
 		TermCode termCode = termCodeProtocol.recv(in);
 		switch (termCode)
@@ -0,0 +1,614 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.logging.log4j.Logger;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.model.statement.Statement;
+import aletheia.persistence.entities.statement.StatementEntity;
+import aletheia.utilities.collections.CloseableIterator;
+
+/**
+ * <p>
+ * A snapshot of the dependency graph of the statements of a persistence
+ * environment, kept off the heap in a memory-mapped file, for the
+ * whole-database analyses (transitive closures of dependencies and
+ * dependents, topological orders) that would otherwise walk the persistent
+ * dependents sets one statement at a time.
+ * </p>
+ * <p>
+ * The statements are renumbered with consecutive ints in UUID order, and the
+ * dependencies and the dependents of every statement are stored in compressed
+ * sparse row form: an offsets array plus the concatenation of all the
+ * adjacency lists. The file has a header (magic number, version, number of
+ * statements and number of edges) followed by the sorted UUIDs (two longs
+ * each), the context of every statement (-1 for the root contexts), the
+ * dependency offsets and dependencies, and the dependent offsets and
+ * dependents.
+ * </p>
+ * <p>
+ * While a graph is open, its persistence manager journals the statements
+ * added and deleted by every committed transaction into it. A
+ * {@link #refresh()} merges that journal into a new snapshot without
+ * scanning the persistence environment again.
+ * </p>
+ *
+ * @see PersistenceManager#buildDependencyGraph(Transaction, File)
+ * @see PersistenceManager#openDependencyGraph(File)
+ */
+public class DependencyGraph implements AutoCloseable
+{
+	private static final Logger logger = LoggerManager.instance.logger();
+
+	private static final int magic = 0x416c4447;
+	private static final int version = 1;
+	private static final int headerSize = 16;
+
+	/**
+	 * What the graph needs to know about a statement.
+	 */
+	static class Node
+	{
+		private final UUID contextUuid;
+		private final UUID[] dependencies;
+
+		private Node(UUID contextUuid, Collection<UUID> dependencies)
+		{
+			this.contextUuid = contextUuid;
+			this.dependencies = dependencies.toArray(new UUID[0]);
+		}
+	}
+
+	/**
+	 * The statements added (and deleted, as null nodes) by a transaction.
+	 */
+	static class Changes
+	{
+		private final Map<UUID, Node> nodes = new HashMap<>();
+
+		synchronized void added(StatementEntity entity)
+		{
+			nodes.put(entity.getUuid(), new Node(entity.getContextUuid(), entity.getUuidDependencies()));
+		}
+
+		synchronized void deleted(UUID uuid)
+		{
+			nodes.put(uuid, null);
+		}
+	}
+
+	/**
+	 * An immutable snapshot of the graph. The statements are referred by their
+	 * index in UUID order.
+	 */
+	public static class Snapshot
+	{
+		private final int size;
+		private final int edges;
+		private final LongBuffer uuids;
+		private final IntBuffer contexts;
+		private final IntBuffer dependencyOffsets;
+		private final IntBuffer dependencies;
+		private final IntBuffer dependentOffsets;
+		private final IntBuffer dependents;
+
+		private Snapshot(MappedByteBuffer buffer) throws IOException
+		{
+			if (buffer.capacity() < headerSize || buffer.getInt(0) != magic)
+				throw new IOException("Not a dependency graph file");
+			if (buffer.getInt(4) != version)
+				throw new IOException("Unsupported dependency graph version: " + buffer.getInt(4));
+			this.size = buffer.getInt(8);
+			this.edges = buffer.getInt(12);
+			if (buffer.capacity() != fileSize(size, edges))
+				throw new IOException("Truncated dependency graph file");
+			int position = headerSize;
+			this.uuids = buffer.position(position).slice().asLongBuffer().limit(2 * size).slice();
+			position += 16 * size;
+			this.contexts = intSlice(buffer, position, size);
+			position += 4 * size;
+			this.dependencyOffsets = intSlice(buffer, position, size + 1);
+			position += 4 * (size + 1);
+			this.dependencies = intSlice(buffer, position, edges);
+			position += 4 * edges;
+			this.dependentOffsets = intSlice(buffer, position, size + 1);
+			position += 4 * (size + 1);
+			this.dependents = intSlice(buffer, position, edges);
+		}
+
+		private static IntBuffer intSlice(MappedByteBuffer buffer, int position, int length)
+		{
+			return buffer.position(position).slice().asIntBuffer().limit(length).slice();
+		}
+
+		/**
+		 * The number of statements.
+		 */
+		public int size()
+		{
+			return size;
+		}
+
+		/**
+		 * The number of dependency edges.
+		 */
+		public int edges()
+		{
+			return edges;
+		}
+
+		public UUID uuid(int index)
+		{
+			return new UUID(uuids.get(2 * index), uuids.get(2 * index + 1));
+		}
+
+		/**
+		 * The index of a statement, or -1 if it is not in the graph.
+		 */
+		public int index(UUID uuid)
+		{
+			long msb = uuid.getMostSignificantBits();
+			long lsb = uuid.getLeastSignificantBits();
+			int lo = 0;
+			int hi = size - 1;
+			while (lo <= hi)
+			{
+				int mid = (lo + hi) >>> 1;
+				int c = Long.compare(uuids.get(2 * mid), msb);
+				if (c == 0)
+					c = Long.compare(uuids.get(2 * mid + 1), lsb);
+				if (c < 0)
+					lo = mid + 1;
+				else if (c > 0)
+					hi = mid - 1;
+				else
+					return mid;
+			}
+			return -1;
+		}
+
+		/**
+		 * The index of the context of a statement, or -1 for a root context.
+		 */
+		public int context(int index)
+		{
+			return contexts.get(index);
+		}
+
+		private static int[] adjacent(IntBuffer offsets, IntBuffer adjacency, int index)
+		{
+			int from = offsets.get(index);
+			int[] array = new int[offsets.get(index + 1) - from];
+			adjacency.get(from, array);
+			return array;
+		}
+
+		public int[] dependencies(int index)
+		{
+			return adjacent(dependencyOffsets, dependencies, index);
+		}
+
+		public int[] dependents(int index)
+		{
+			return adjacent(dependentOffsets, dependents, index);
+		}
+
+		private BitSet closure(IntBuffer offsets, IntBuffer adjacency, int[] indexes)
+		{
+			BitSet closure = new BitSet(size);
+			int[] stack = new int[Math.max(16, indexes.length)];
+			int top = 0;
+			for (int index : indexes)
+				if (!closure.get(index))
+				{
+					closure.set(index);
+					stack[top++] = index;
+				}
+			while (top > 0)
+			{
+				int index = stack[--top];
+				for (int i = offsets.get(index); i < offsets.get(index + 1); i++)
+				{
+					int next = adjacency.get(i);
+					if (!closure.get(next))
+					{
+						closure.set(next);
+						if (top == stack.length)
+							stack = Arrays.copyOf(stack, 2 * stack.length);
+						stack[top++] = next;
+					}
+				}
+			}
+			return closure;
+		}
+
+		/**
+		 * The given statements and all the statements they transitively
+		 * depend on.
+		 */
+		public BitSet dependencyClosure(int... indexes)
+		{
+			return closure(dependencyOffsets, dependencies, indexes);
+		}
+
+		/**
+		 * The given statements and all the statements that transitively
+		 * depend on them.
+		 */
+		public BitSet dependentClosure(int... indexes)
+		{
+			return closure(dependentOffsets, dependents, indexes);
+		}
+
+		/**
+		 * All the statements, every one after all its dependencies.
+		 */
+		public int[] topologicalOrder()
+		{
+			int[] pending = new int[size];
+			int[] order = new int[size];
+			int n = 0;
+			for (int index = 0; index < size; index++)
+			{
+				pending[index] = dependencyOffsets.get(index + 1) - dependencyOffsets.get(index);
+				if (pending[index] == 0)
+					order[n++] = index;
+			}
+			for (int k = 0; k < n; k++)
+			{
+				int index = order[k];
+				for (int i = dependentOffsets.get(index); i < dependentOffsets.get(index + 1); i++)
+				{
+					int dependent = dependents.get(i);
+					if (--pending[dependent] == 0)
+						order[n++] = dependent;
+				}
+			}
+			if (n < size)
+				throw new Error("Cyclic dependency graph");
+			return order;
+		}
+
+		/**
+		 * Translates a set of statement indexes to their UUIDs.
+		 */
+		public List<UUID> uuids(BitSet indexes)
+		{
+			List<UUID> list = new ArrayList<>(indexes.cardinality());
+			for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1))
+				list.add(uuid(index));
+			return list;
+		}
+
+		private int[] indexes(Collection<UUID> uuids)
+		{
+			int[] indexes = new int[uuids.size()];
+			int n = 0;
+			for (UUID uuid : uuids)
+			{
+				int index = index(uuid);
+				if (index >= 0)
+					indexes[n++] = index;
+			}
+			return Arrays.copyOf(indexes, n);
+		}
+
+	}
+
+	private static long fileSize(int size, int edges)
+	{
+		return headerSize + 16L * size + 4L * size + 2 * (4L * (size + 1) + 4L * edges);
+	}
+
+	private final PersistenceManager persistenceManager;
+	private final File file;
+	private final Map<UUID, Node> journal;
+	private volatile Snapshot snapshot;
+	private boolean closed;
+
+	private DependencyGraph(PersistenceManager persistenceManager, File file)
+	{
+		this.persistenceManager = persistenceManager;
+		this.file = file;
+		this.journal = new HashMap<>();
+		this.snapshot = null;
+		this.closed = false;
+	}
+
+	/**
+	 * Builds the graph scanning all the statements of the persistence
+	 * environment, and writes it to a file.
+	 */
+	static DependencyGraph build(PersistenceManager persistenceManager, Transaction transaction, File file) throws IOException
+	{
+		DependencyGraph graph = new DependencyGraph(persistenceManager, file);
+		// Registered before the scan, so nothing committed meanwhile is missed.
+		persistenceManager.registerDependencyGraph(graph);
+		try
+		{
+			long t0 = System.nanoTime();
+			Map<UUID, Node> nodes = new HashMap<>();
+			CloseableIterator<Statement> iterator = persistenceManager.statements(transaction).values().iterator();
+			try
+			{
+				while (iterator.hasNext())
+				{
+					Statement statement = iterator.next();
+					nodes.put(statement.getUuid(), new Node(statement.getContextUuid(), statement.getUuidDependencies()));
+				}
+			}
+			finally
+			{
+				iterator.close();
+			}
+			graph.write(nodes);
+			logger.debug("Dependency graph built: " + nodes.size() + " statements in " + (System.nanoTime() - t0) / 1000000 + " ms");
+			return graph;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			persistenceManager.unregisterDependencyGraph(graph);
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a graph previously written to a file. The changes made to the
+	 * persistence environment while the graph was not open are not tracked.
+	 */
+	static DependencyGraph open(PersistenceManager persistenceManager, File file) throws IOException
+	{
+		DependencyGraph graph = new DependencyGraph(persistenceManager, file);
+		graph.snapshot = map(file);
+		persistenceManager.registerDependencyGraph(graph);
+		return graph;
+	}
+
+	private static Snapshot map(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath()))
+		{
+			// The mapping stays valid after closing the channel.
+			return new Snapshot(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Writes a new file with the given statements (and edges to the
+	 * statements present) and maps it.
+	 */
+	private void write(Map<UUID, Node> nodes) throws IOException
+	{
+		UUID[] uuids = nodes.keySet().toArray(new UUID[0]);
+		Arrays.sort(uuids);
+		int size = uuids.length;
+		int[] contexts = new int[size];
+		int[] dependencyOffsets = new int[size + 1];
+		List<int[]> dependencyLists = new ArrayList<>(size);
+		int[] dependentCounts = new int[size];
+		long edges = 0;
+		for (int index = 0; index < size; index++)
+		{
+			Node node = nodes.get(uuids[index]);
+			int context = node.contextUuid == null ? -1 : Arrays.binarySearch(uuids, node.contextUuid);
+			contexts[index] = context >= 0 ? context : -1;
+			int[] dependencies = new int[node.dependencies.length];
+			int n = 0;
+			for (UUID dependency : node.dependencies)
+			{
+				int d = Arrays.binarySearch(uuids, dependency);
+				if (d >= 0)
+				{
+					dependencies[n++] = d;
+					dependentCounts[d]++;
+				}
+			}
+			dependencies = Arrays.copyOf(dependencies, n);
+			Arrays.sort(dependencies);
+			dependencyLists.add(dependencies);
+			edges += n;
+			dependencyOffsets[index + 1] = (int) edges;
+		}
+		if (edges > Integer.MAX_VALUE || fileSize(size, (int) edges) > Integer.MAX_VALUE)
+			throw new IOException("Dependency graph too big to be mapped");
+		int[] dependentOffsets = new int[size + 1];
+		for (int index = 0; index < size; index++)
+			dependentOffsets[index + 1] = dependentOffsets[index] + dependentCounts[index];
+		int[] dependents = new int[(int) edges];
+		int[] fill = Arrays.copyOf(dependentOffsets, size);
+		for (int index = 0; index < size; index++)
+			for (int d : dependencyLists.get(index))
+				dependents[fill[d]++] = index;
+
+		File tmp = new File(file.getPath() + ".tmp");
+		try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw"))
+		{
+			raf.setLength(0);
+			MappedByteBuffer buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, fileSize(size, (int) edges));
+			buffer.putInt(magic);
+			buffer.putInt(version);
+			buffer.putInt(size);
+			buffer.putInt((int) edges);
+			for (UUID uuid : uuids)
+			{
+				buffer.putLong(uuid.getMostSignificantBits());
+				buffer.putLong(uuid.getLeastSignificantBits());
+			}
+			for (int context : contexts)
+				buffer.putInt(context);
+			for (int offset : dependencyOffsets)
+				buffer.putInt(offset);
+			for (int[] dependencies : dependencyLists)
+				for (int d : dependencies)
+					buffer.putInt(d);
+			for (int offset : dependentOffsets)
+				buffer.putInt(offset);
+			for (int d : dependents)
+				buffer.putInt(d);
+			buffer.force();
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		snapshot = map(file);
+	}
+
+	/**
+	 * Called by the persistence manager with the changes of every committed
+	 * transaction.
+	 */
+	synchronized void journal(Changes changes)
+	{
+		synchronized (changes)
+		{
+			journal.putAll(changes.nodes);
+		}
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public PersistenceManager getPersistenceManager()
+	{
+		return persistenceManager;
+	}
+
+	/**
+	 * The current snapshot. Keeps being valid (but stale) after a
+	 * {@link #refresh()}.
+	 */
+	public Snapshot snapshot()
+	{
+		return snapshot;
+	}
+
+	/**
+	 * The number of statements added or deleted since the last snapshot.
+	 */
+	public synchronized int pendingChanges()
+	{
+		return journal.size();
+	}
+
+	/**
+	 * Merges the statements added and deleted since the last snapshot into a
+	 * new one.
+	 *
+	 * @return Whether there was anything to merge.
+	 */
+	public synchronized boolean refresh() throws IOException
+	{
+		if (closed)
+			throw new IllegalStateException("Dependency graph closed");
+		if (journal.isEmpty())
+			return false;
+		long t0 = System.nanoTime();
+		Snapshot old = snapshot;
+		Map<UUID, Node> nodes = new HashMap<>(old.size() + journal.size());
+		for (int index = 0; index < old.size(); index++)
+		{
+			UUID uuid = old.uuid(index);
+			if (journal.containsKey(uuid))
+				continue;
+			int context = old.context(index);
+			List<UUID> dependencies = new ArrayList<>();
+			for (int d : old.dependencies(index))
+				dependencies.add(old.uuid(d));
+			nodes.put(uuid, new Node(context < 0 ? null : old.uuid(context), dependencies));
+		}
+		int changes = journal.size();
+		for (Map.Entry<UUID, Node> e : journal.entrySet())
+			if (e.getValue() != null)
+				nodes.put(e.getKey(), e.getValue());
+		write(nodes);
+		journal.clear();
+		logger.debug("Dependency graph refreshed: " + changes + " changes in " + (System.nanoTime() - t0) / 1000000 + " ms");
+		return true;
+	}
+
+	/**
+	 * The given statements and all the statements they transitively depend
+	 * on, in the current snapshot.
+	 */
+	public List<UUID> dependencyClosure(Collection<UUID> uuids)
+	{
+		Snapshot snapshot = this.snapshot;
+		return snapshot.uuids(snapshot.dependencyClosure(snapshot.indexes(uuids)));
+	}
+
+	/**
+	 * The given statements and all the statements that transitively depend
+	 * on them, in the current snapshot.
+	 */
+	public List<UUID> dependentClosure(Collection<UUID> uuids)
+	{
+		Snapshot snapshot = this.snapshot;
+		return snapshot.uuids(snapshot.dependentClosure(snapshot.indexes(uuids)));
+	}
+
+	/**
+	 * All the statements in the current snapshot, every one after all its
+	 * dependencies.
+	 */
+	public List<UUID> topologicalOrder()
+	{
+		Snapshot snapshot = this.snapshot;
+		int[] order = snapshot.topologicalOrder();
+		List<UUID> list = new ArrayList<>(order.length);
+		for (int index : order)
+			list.add(snapshot.uuid(index));
+		return list;
+	}
+
+	/**
+	 * Stops journaling the changes. The file is kept.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (!closed)
+		{
+			closed = true;
+			persistenceManager.unregisterDependencyGraph(this);
+			journal.clear();
+		}
+	}
+
+}
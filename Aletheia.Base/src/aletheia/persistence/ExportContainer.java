@@ -0,0 +1,847 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.logging.log4j.Logger;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.model.authority.Person;
+import aletheia.model.authority.protocol.PersonProtocol;
+import aletheia.model.statement.RootContext;
+import aletheia.model.statement.Statement;
+import aletheia.model.statement.protocol.StatementProtocol;
+import aletheia.persistence.ExportImport.RegisterType;
+import aletheia.persistence.ExportImport.RegisterWriter;
+import aletheia.persistence.ExportImport.StatementAuthorityDelegateTreeProtocol;
+import aletheia.protocol.ProtocolException;
+import aletheia.protocol.VersionProtocol;
+import aletheia.protocol.collection.ListProtocol;
+import aletheia.protocol.enumerate.ByteExportableEnumProtocol;
+import aletheia.protocol.primitive.IntegerProtocol;
+import aletheia.protocol.primitive.LongProtocol;
+import aletheia.protocol.primitive.NullableProtocol;
+import aletheia.protocol.primitive.UUIDProtocol;
+import aletheia.utilities.aborter.Aborter.AbortException;
+import aletheia.utilities.aborter.ListenableAborter;
+
+/**
+ * <p>
+ * The seekable export container (export version 5).
+ * </p>
+ * <p>
+ * The registers are the same as in the plain export stream (see
+ * {@link ExportImport}), but instead of a single compressed stream they are
+ * grouped into independently compressed blocks, followed by an index:
+ * <ul>
+ * <li>The header: the magic number and the version.</li>
+ * <li>The blocks, each one a deflated sequence of registers. A block always
+ * holds whole units (a statement and the registers of its authority), and
+ * the last one ends with the {@link RegisterType#End} register.</li>
+ * <li>The index: the offset, sizes and register count of every block; the
+ * statements, with their context, dependencies and position; the root
+ * contexts and the position of every person. The index is deflated too.</li>
+ * <li>The trailer: the offset of the index and the magic number again.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * That makes it possible to inspect the file and to import a selected set of
+ * subtrees without decompressing the rest. The blocks are compressed and
+ * decompressed in parallel.
+ * </p>
+ */
+public class ExportContainer implements AutoCloseable
+{
+	private static final Logger logger = LoggerManager.instance.logger();
+
+	private static final int magic = 0x416c4578;
+	static final int containerVersion = 5;
+	private static final int trailerSize = 12;
+	private static final int blockRegisters = 1000;
+	private static final long transactionTimeout = 10000;
+
+	private static final ExecutorService executor = ForkJoinPool.commonPool();
+	private static final int maxPendingBlocks = 2 * Runtime.getRuntime().availableProcessors() + 1;
+
+	private static final IntegerProtocol integerProtocol = new IntegerProtocol(0);
+	private static final LongProtocol longProtocol = new LongProtocol(0);
+	private static final UUIDProtocol uuidProtocol = new UUIDProtocol(0);
+	private static final NullableProtocol<UUID> nullableUuidProtocol = new NullableProtocol<>(0, uuidProtocol);
+	private static final ListProtocol<UUID> uuidListProtocol = new ListProtocol<>(0, uuidProtocol);
+	private static final VersionProtocol versionProtocol = new VersionProtocol();
+
+	private static class Block
+	{
+		private final long offset;
+		private final int compressedLength;
+		private final int length;
+		private final int registers;
+
+		private Block(long offset, int compressedLength, int length, int registers)
+		{
+			this.offset = offset;
+			this.compressedLength = compressedLength;
+			this.length = length;
+			this.registers = registers;
+		}
+
+	}
+
+	/**
+	 * The index entry of an exported statement.
+	 */
+	public static class Entry
+	{
+		private final UUID uuid;
+		private final UUID contextUuid;
+		private final List<UUID> dependencies;
+		private final int block;
+		private final int firstRegister;
+		private final int registers;
+
+		private Entry(UUID uuid, UUID contextUuid, List<UUID> dependencies, int block, int firstRegister, int registers)
+		{
+			this.uuid = uuid;
+			this.contextUuid = contextUuid;
+			this.dependencies = dependencies;
+			this.block = block;
+			this.firstRegister = firstRegister;
+			this.registers = registers;
+		}
+
+		public UUID getUuid()
+		{
+			return uuid;
+		}
+
+		/**
+		 * @return The context of the statement, or null for root contexts.
+		 */
+		public UUID getContextUuid()
+		{
+			return contextUuid;
+		}
+
+		public List<UUID> getDependencies()
+		{
+			return Collections.unmodifiableList(dependencies);
+		}
+
+	}
+
+	private static class Position
+	{
+		private final int block;
+		private final int register;
+
+		private Position(int block, int register)
+		{
+			this.block = block;
+			this.register = register;
+		}
+
+	}
+
+	private static byte[] deflate(byte[] data)
+	{
+		Deflater deflater = new Deflater();
+		try
+		{
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+			byte[] buffer = new byte[8192];
+			while (!deflater.finished())
+			{
+				int n = deflater.deflate(buffer);
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] data, int length) throws DataFormatException
+	{
+		Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(data);
+			byte[] out = new byte[length];
+			int n = 0;
+			while (n < length && !inflater.finished())
+			{
+				int r = inflater.inflate(out, n, length - n);
+				if (r == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				n += r;
+			}
+			if (n != length)
+				throw new DataFormatException("Bad block length");
+			return out;
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+
+	private static <T> T get(Future<T> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IOException(e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Checks if the file starts like an export container (as opposed to the
+	 * GZIP compressed export streams).
+	 */
+	static boolean isExportContainer(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try
+		{
+			return in.readInt() == magic;
+		}
+		catch (EOFException e)
+		{
+			return false;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes the registers into blocks, compressing them in the background,
+	 * and builds the index.
+	 */
+	private static class ContainerRegisterWriter extends RegisterWriter
+	{
+		private class PendingBlock
+		{
+			private final Future<byte[]> compressed;
+			private final int length;
+			private final int registers;
+
+			private PendingBlock(Future<byte[]> compressed, int length, int registers)
+			{
+				this.compressed = compressed;
+				this.length = length;
+				this.registers = registers;
+			}
+
+		}
+
+		private final Transaction transaction;
+		private final OutputStream out;
+		private long position;
+		private final ByteArrayOutputStream blockBuffer;
+		private final DataOutputStream blockOut;
+		private int blockRegisterCount;
+		private final Deque<PendingBlock> pending;
+		private final List<Block> blocks;
+		private final Map<UUID, Entry> entries;
+		private final Map<UUID, Position> persons;
+		private Statement unitStatement;
+		private int unitFirstRegister;
+
+		private ContainerRegisterWriter(PersistenceManager persistenceManager, Transaction transaction, OutputStream out) throws IOException
+		{
+			super(persistenceManager, transaction);
+			this.transaction = transaction;
+			this.out = out;
+			this.position = 0;
+			this.blockBuffer = new ByteArrayOutputStream();
+			this.blockOut = new DataOutputStream(blockBuffer);
+			this.blockRegisterCount = 0;
+			this.pending = new ArrayDeque<>();
+			this.blocks = new ArrayList<>();
+			this.entries = new LinkedHashMap<>();
+			this.persons = new HashMap<>();
+			DataOutputStream headerOut = new DataOutputStream(out);
+			headerOut.writeInt(magic);
+			versionProtocol.send(headerOut, containerVersion);
+			position = headerOut.size();
+		}
+
+		private int currentBlock()
+		{
+			return blocks.size() + pending.size();
+		}
+
+		@Override
+		protected DataOutput out()
+		{
+			return blockOut;
+		}
+
+		@Override
+		protected void register(RegisterType type) throws IOException
+		{
+			super.register(type);
+			blockRegisterCount++;
+		}
+
+		@Override
+		protected void beginUnit(Statement statement) throws IOException
+		{
+			if (blockRegisterCount >= blockRegisters)
+				flushBlock();
+			unitStatement = statement;
+			unitFirstRegister = blockRegisterCount;
+		}
+
+		@Override
+		protected void person(Person person) throws IOException
+		{
+			persons.putIfAbsent(person.getUuid(), new Position(currentBlock(), blockRegisterCount));
+			super.person(person);
+		}
+
+		@Override
+		protected void endUnit(Statement statement) throws IOException
+		{
+			if (!entries.containsKey(statement.getUuid()))
+			{
+				UUID contextUuid = statement instanceof RootContext ? null : statement.getContextUuid();
+				entries.put(statement.getUuid(), new Entry(statement.getUuid(), contextUuid, new ArrayList<>(statement.getUuidDependencies()), currentBlock(),
+						unitFirstRegister, blockRegisterCount - unitFirstRegister));
+			}
+			unitStatement = null;
+		}
+
+		@Override
+		protected void end() throws IOException
+		{
+			if (unitStatement != null)
+				throw new IllegalStateException();
+			super.end();
+			flushBlock();
+			while (!pending.isEmpty())
+				writePending();
+			writeIndex();
+			out.flush();
+		}
+
+		private void flushBlock() throws IOException
+		{
+			byte[] data = blockBuffer.toByteArray();
+			blockBuffer.reset();
+			pending.add(new PendingBlock(executor.submit(() -> deflate(data)), data.length, blockRegisterCount));
+			blockRegisterCount = 0;
+			while (pending.size() > maxPendingBlocks)
+				writePending();
+		}
+
+		private void writePending() throws IOException
+		{
+			PendingBlock pendingBlock = pending.poll();
+			byte[] compressed = get(pendingBlock.compressed);
+			out.write(compressed);
+			blocks.add(new Block(position, compressed.length, pendingBlock.length, pendingBlock.registers));
+			position += compressed.length;
+		}
+
+		private void writeIndex() throws IOException
+		{
+			long indexOffset = position;
+			ByteArrayOutputStream indexBuffer = new ByteArrayOutputStream();
+			DataOutputStream indexOut = new DataOutputStream(indexBuffer);
+			integerProtocol.send(indexOut, blocks.size());
+			for (Block block : blocks)
+			{
+				longProtocol.send(indexOut, block.offset);
+				integerProtocol.send(indexOut, block.compressedLength);
+				integerProtocol.send(indexOut, block.length);
+				integerProtocol.send(indexOut, block.registers);
+			}
+			integerProtocol.send(indexOut, entries.size());
+			List<UUID> rootContexts = new ArrayList<>();
+			for (Entry entry : entries.values())
+			{
+				uuidProtocol.send(indexOut, entry.uuid);
+				nullableUuidProtocol.send(indexOut, entry.contextUuid);
+				uuidListProtocol.send(indexOut, entry.dependencies);
+				integerProtocol.send(indexOut, entry.block);
+				integerProtocol.send(indexOut, entry.firstRegister);
+				integerProtocol.send(indexOut, entry.registers);
+				if (entry.contextUuid == null)
+					rootContexts.add(entry.uuid);
+			}
+			uuidListProtocol.send(indexOut, rootContexts);
+			integerProtocol.send(indexOut, persons.size());
+			for (Map.Entry<UUID, Position> e : persons.entrySet())
+			{
+				uuidProtocol.send(indexOut, e.getKey());
+				integerProtocol.send(indexOut, e.getValue().block);
+				integerProtocol.send(indexOut, e.getValue().register);
+			}
+			indexOut.flush();
+			byte[] index = indexBuffer.toByteArray();
+			DataOutputStream tailOut = new DataOutputStream(out);
+			tailOut.writeInt(index.length);
+			tailOut.write(deflate(index));
+			tailOut.writeLong(indexOffset);
+			tailOut.writeInt(magic);
+			tailOut.flush();
+			logger.debug("Export container written: " + blocks.size() + " blocks, " + entries.size() + " statements (" + transaction + ")");
+		}
+
+	}
+
+	/**
+	 * Exports a set of statements to a container file. See
+	 * {@link ExportImport#export(File, Transaction, Collection, boolean, boolean, int)}
+	 * for the meaning of the parameters.
+	 */
+	static void export(ExportImport exportImport, PersistenceManager persistenceManager, File file, Transaction transaction,
+			Collection<Statement> statements, boolean signed, boolean skipSignedProof, int readTransactions) throws IOException
+	{
+		OutputStream out = new FileOutputStream(file);
+		try
+		{
+			exportImport.export(new ContainerRegisterWriter(persistenceManager, transaction, out), transaction, statements, signed, skipSignedProof,
+					readTransactions);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private final PersistenceManager persistenceManager;
+	private final RandomAccessFile file;
+	private final List<Block> blocks;
+	private final Map<UUID, Entry> entries;
+	private final List<UUID> rootContexts;
+	private final Map<UUID, Position> persons;
+
+	private ExportContainer(PersistenceManager persistenceManager, File file) throws IOException, ProtocolException
+	{
+		this.persistenceManager = persistenceManager;
+		this.file = new RandomAccessFile(file, "r");
+		try
+		{
+			if (this.file.readInt() != magic)
+				throw new ProtocolException("Not an export container");
+			int version = versionProtocol.recv(this.file);
+			if (version != containerVersion)
+				throw new ProtocolException("Export container version " + version + " not supported :(");
+			long length = this.file.length();
+			if (length < trailerSize)
+				throw new ProtocolException("Truncated export container");
+			this.file.seek(length - trailerSize);
+			long indexOffset = this.file.readLong();
+			if (this.file.readInt() != magic || indexOffset < 0 || indexOffset > length - trailerSize - 4)
+				throw new ProtocolException("Bad export container trailer");
+			this.file.seek(indexOffset);
+			int indexLength = this.file.readInt();
+			byte[] indexData = new byte[(int) (length - trailerSize - indexOffset - 4)];
+			this.file.readFully(indexData);
+			DataInput in;
+			try
+			{
+				in = new DataInputStream(new ByteArrayInputStream(inflate(indexData, indexLength)));
+			}
+			catch (DataFormatException e)
+			{
+				throw new ProtocolException(e);
+			}
+			int nBlocks = integerProtocol.recv(in);
+			this.blocks = new ArrayList<>(nBlocks);
+			for (int i = 0; i < nBlocks; i++)
+				blocks.add(new Block(longProtocol.recv(in), integerProtocol.recv(in), integerProtocol.recv(in), integerProtocol.recv(in)));
+			int nEntries = integerProtocol.recv(in);
+			this.entries = new LinkedHashMap<>();
+			for (int i = 0; i < nEntries; i++)
+			{
+				Entry entry = new Entry(uuidProtocol.recv(in), nullableUuidProtocol.recv(in), uuidListProtocol.recv(in), integerProtocol.recv(in),
+						integerProtocol.recv(in), integerProtocol.recv(in));
+				entries.put(entry.uuid, entry);
+			}
+			this.rootContexts = uuidListProtocol.recv(in);
+			int nPersons = integerProtocol.recv(in);
+			this.persons = new HashMap<>();
+			for (int i = 0; i < nPersons; i++)
+				persons.put(uuidProtocol.recv(in), new Position(integerProtocol.recv(in), integerProtocol.recv(in)));
+		}
+		catch (IOException | ProtocolException | RuntimeException e)
+		{
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens an export container file for reading.
+	 */
+	public static ExportContainer open(PersistenceManager persistenceManager, File file) throws IOException, ProtocolException
+	{
+		return new ExportContainer(persistenceManager, file);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		file.close();
+	}
+
+	/**
+	 * The root contexts exported into this container.
+	 */
+	public List<UUID> getRootContextUuids()
+	{
+		return Collections.unmodifiableList(rootContexts);
+	}
+
+	/**
+	 * The statements exported into this container, in export order.
+	 */
+	public Collection<Entry> getEntries()
+	{
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	public Entry getEntry(UUID uuid)
+	{
+		return entries.get(uuid);
+	}
+
+	private synchronized byte[] readCompressed(Block block) throws IOException
+	{
+		byte[] data = new byte[block.compressedLength];
+		file.seek(block.offset);
+		file.readFully(data);
+		return data;
+	}
+
+	/**
+	 * Reads and decompresses a sequence of blocks, keeping a few of them being
+	 * decompressed in the background ahead of the one being consumed.
+	 */
+	private class BlockReader
+	{
+		private final Deque<Integer> toRead;
+		private final Deque<Future<byte[]>> inflating;
+
+		private BlockReader(Collection<Integer> blockNumbers)
+		{
+			this.toRead = new ArrayDeque<>(blockNumbers);
+			this.inflating = new ArrayDeque<>();
+		}
+
+		private void fill() throws IOException
+		{
+			while (inflating.size() < maxPendingBlocks && !toRead.isEmpty())
+			{
+				Block block = blocks.get(toRead.poll());
+				byte[] compressed = readCompressed(block);
+				inflating.add(executor.submit(() -> inflate(compressed, block.length)));
+			}
+		}
+
+		/**
+		 * @return The next block data, or null if there are no more blocks.
+		 */
+		private byte[] next() throws IOException
+		{
+			fill();
+			if (inflating.isEmpty())
+				return null;
+			return get(inflating.poll());
+		}
+
+	}
+
+	private class BlockInputStream extends InputStream
+	{
+		private final BlockReader reader;
+		private InputStream current;
+
+		private BlockInputStream(BlockReader reader)
+		{
+			this.reader = reader;
+			this.current = null;
+		}
+
+		private boolean advance() throws IOException
+		{
+			while (current == null || current.available() <= 0)
+			{
+				byte[] data = reader.next();
+				if (data == null)
+					return false;
+				current = new ByteArrayInputStream(data);
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			if (!advance())
+				return -1;
+			return current.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+				return 0;
+			if (!advance())
+				return -1;
+			return current.read(b, off, len);
+		}
+
+	}
+
+	private List<Integer> allBlocks()
+	{
+		List<Integer> all = new ArrayList<>(blocks.size());
+		for (int i = 0; i < blocks.size(); i++)
+			all.add(i);
+		return all;
+	}
+
+	/**
+	 * The registers of all the blocks in sequence, just like the plain export
+	 * stream (without the version header).
+	 */
+	InputStream registerStream()
+	{
+		return new BlockInputStream(new BlockReader(allBlocks()));
+	}
+
+	/**
+	 * Imports the whole container.
+	 */
+	public void import_(ListenableAborter aborter) throws IOException, ProtocolException, AbortException
+	{
+		new ExportImport(persistenceManager).import_(new DataInputStream(registerStream()), aborter, 4, 0, 0);
+	}
+
+	/**
+	 * Computes the statements needed to import the subtrees of these
+	 * statements: the subtrees themselves plus their ancestors and
+	 * dependencies (and, recursively, the ancestors and dependencies of
+	 * those). Statements not in this container are assumed to be already in
+	 * the persistence environment.
+	 */
+	public Set<UUID> closure(Collection<UUID> statementUuids)
+	{
+		Map<UUID, List<UUID>> children = new HashMap<>();
+		for (Entry entry : entries.values())
+			if (entry.contextUuid != null)
+				children.computeIfAbsent(entry.contextUuid, k -> new ArrayList<>()).add(entry.uuid);
+		Set<UUID> closure = new HashSet<>();
+		Deque<UUID> pending = new ArrayDeque<>();
+		Deque<UUID> stack = new ArrayDeque<>();
+		for (UUID uuid : statementUuids)
+			if (entries.containsKey(uuid))
+				stack.push(uuid);
+		while (!stack.isEmpty())
+		{
+			UUID uuid = stack.pop();
+			if (closure.add(uuid))
+			{
+				pending.add(uuid);
+				List<UUID> cs = children.get(uuid);
+				if (cs != null)
+					stack.addAll(cs);
+			}
+		}
+		while (!pending.isEmpty())
+		{
+			Entry entry = entries.get(pending.poll());
+			if (entry.contextUuid != null && entries.containsKey(entry.contextUuid) && closure.add(entry.contextUuid))
+				pending.add(entry.contextUuid);
+			for (UUID dep : entry.dependencies)
+				if (entries.containsKey(dep) && closure.add(dep))
+					pending.add(dep);
+		}
+		return closure;
+	}
+
+	/**
+	 * Imports only the subtrees of these statements, with everything they
+	 * need (see {@link #closure(Collection)}). Only the blocks that contain
+	 * some of those statements are read.
+	 */
+	public void import_(Collection<UUID> statementUuids, ListenableAborter aborter) throws IOException, ProtocolException, AbortException
+	{
+		SortedMap<Integer, BitSet> selected = new TreeMap<>();
+		for (UUID uuid : closure(statementUuids))
+		{
+			Entry entry = entries.get(uuid);
+			selected.computeIfAbsent(entry.block, k -> new BitSet()).set(entry.firstRegister, entry.firstRegister + entry.registers);
+		}
+		if (selected.isEmpty())
+			return;
+		for (Position position : persons.values())
+			selected.computeIfAbsent(position.block, k -> new BitSet()).set(position.register);
+
+		class AborterListener implements ListenableAborter.Listener
+		{
+			private Transaction transaction;
+
+			public void setTransaction(Transaction transaction)
+			{
+				this.transaction = transaction;
+			}
+
+			@Override
+			public void abort()
+			{
+				transaction.abort();
+			}
+		}
+		AborterListener aborterListener = new AborterListener();
+		aborter.addListener(aborterListener);
+
+		ByteExportableEnumProtocol<RegisterType> registerTypeProtocol = new ByteExportableEnumProtocol<>(0, RegisterType.class, 0);
+		BlockReader reader = new BlockReader(selected.keySet());
+		int recvd = 0;
+		Transaction transaction = null;
+		try
+		{
+			for (Map.Entry<Integer, BitSet> e : selected.entrySet())
+			{
+				Block block = blocks.get(e.getKey());
+				DataInput in = new DataInputStream(new ByteArrayInputStream(reader.next()));
+				BitSet registers = e.getValue();
+				for (int i = 0; i < block.registers; i++)
+				{
+					if (transaction == null)
+					{
+						transaction = persistenceManager.beginTransaction(transactionTimeout);
+						aborterListener.setTransaction(transaction);
+					}
+					StatementProtocol statementProtocol = new StatementProtocol(4, persistenceManager, transaction);
+					StatementAuthorityDelegateTreeProtocol statementAuthorityProtocol = new StatementAuthorityDelegateTreeProtocol(0, persistenceManager,
+							transaction);
+					PersonProtocol personProtocol = new PersonProtocol(0, persistenceManager, transaction);
+					RegisterType type = registerTypeProtocol.recv(in);
+					boolean apply = registers.get(i);
+					switch (type)
+					{
+					case Statement:
+						if (apply)
+							statementProtocol.recv(in);
+						else
+							statementProtocol.skip(in);
+						break;
+					case Authority:
+						if (apply)
+							statementAuthorityProtocol.recv(in);
+						else
+							statementAuthorityProtocol.skip(in);
+						break;
+					case Person:
+						if (apply)
+							personProtocol.recv(in);
+						else
+							personProtocol.skip(in);
+						break;
+					case End:
+						break;
+					}
+					if (apply && type != RegisterType.End)
+					{
+						recvd++;
+						if (recvd % 1000 == 0)
+						{
+							transaction.commit();
+							transaction.close();
+							transaction = null;
+							logger.info("--> partial restore:" + recvd);
+						}
+					}
+				}
+			}
+			if (transaction != null)
+				transaction.commit();
+		}
+		catch (Exception e)
+		{
+			aborter.checkAbort();
+			throw e;
+		}
+		finally
+		{
+			if (transaction != null)
+				transaction.close();
+			aborter.removeListener(aborterListener);
+		}
+		logger.info("--> partial restore:" + recvd);
+	}
+
+}
@@ -19,6 +19,8 @@
  ******************************************************************************/
 package aletheia.persistence;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
@@ -26,12 +28,16 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -44,7 +50,6 @@ import aletheia.model.authority.StatementAuthority;
 import aletheia.model.authority.protocol.DelegateTreeRootNodeWithAuthorizersProtocol;
 import aletheia.model.authority.protocol.PersonProtocol;
 import aletheia.model.authority.protocol.StatementAuthorityProtocol;
-import aletheia.model.statement.Context;
 import aletheia.model.statement.Statement;
 import aletheia.model.statement.protocol.StatementProtocol;
 import aletheia.protocol.ProtocolException;
@@ -56,13 +61,14 @@ import aletheia.protocol.enumerate.ExportableEnumInfo;
 import aletheia.protocol.primitive.NullableProtocol;
 import aletheia.utilities.aborter.Aborter.AbortException;
 import aletheia.utilities.aborter.ListenableAborter;
-import aletheia.utilities.collections.BufferedList;
 
 class ExportImport
 {
 	private static final Logger logger = LoggerManager.instance.logger();
 	private static final int exportVersion = 4;
 	private static final long transactionTimeout = 10000;
+	private static final int bulkBatchSize = 10000;
+	private static final int bulkQueueCapacity = 1024;
 
 	private final PersistenceManager persistenceManager;
 
@@ -79,17 +85,24 @@ class ExportImport
 		return persistenceManager.beginTransaction(transactionTimeout);
 	}
 
+	/**
+	 * Exports to a file using the seekable container format (see
+	 * {@link ExportContainer}).
+	 */
 	public void export(File file, Transaction transaction, Collection<Statement> statements, boolean signed, boolean skipSignedProof) throws IOException
 	{
-		DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)));
-		try
-		{
-			export(out, transaction, statements, signed, skipSignedProof);
-		}
-		finally
-		{
-			out.close();
-		}
+		export(file, transaction, statements, signed, skipSignedProof, 1);
+	}
+
+	/**
+	 * Same as {@link #export(File, Transaction, Collection, boolean, boolean)}
+	 * but fetching the statements needed to plan the export with several
+	 * read transactions in parallel (see {@link ExportPlanner}).
+	 */
+	public void export(File file, Transaction transaction, Collection<Statement> statements, boolean signed, boolean skipSignedProof, int readTransactions)
+			throws IOException
+	{
+		ExportContainer.export(this, persistenceManager, file, transaction, statements, signed, skipSignedProof, readTransactions);
 	}
 
 	public void import_(DataInput in) throws IOException, ProtocolException
@@ -106,6 +119,14 @@ class ExportImport
 
 	public void import_(File file, ListenableAborter aborter) throws IOException, ProtocolException, AbortException
 	{
+		if (ExportContainer.isExportContainer(file))
+		{
+			try (ExportContainer container = ExportContainer.open(persistenceManager, file))
+			{
+				container.import_(aborter);
+			}
+			return;
+		}
 		DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)));
 		try
 		{
@@ -141,7 +162,7 @@ class ExportImport
 	}
 
 	@ProtocolInfo(availableVersions = 0)
-	private class StatementAuthorityDelegateTreeProtocol extends StatementAuthorityProtocol
+	static class StatementAuthorityDelegateTreeProtocol extends StatementAuthorityProtocol
 	{
 
 		public StatementAuthorityDelegateTreeProtocol(int requiredVersion, PersistenceManager persistenceManager, Transaction transaction)
@@ -183,7 +204,7 @@ class ExportImport
 	}
 
 	@ExportableEnumInfo(availableVersions = 0)
-	private enum RegisterType implements ByteExportableEnum<RegisterType>
+	enum RegisterType implements ByteExportableEnum<RegisterType>
 	{
 		Statement((byte) 0), Authority((byte) 1), Person((byte) 2), End((byte) 0xff);
 
@@ -201,111 +222,127 @@ class ExportImport
 		}
 	};
 
-	private boolean isDescendent(Transaction transaction, Collection<Statement> statements, Statement d)
+	/**
+	 * Where the registers of an export are written to. The registers come in
+	 * units: a statement register optionally followed by the person and
+	 * authority registers of its authority.
+	 */
+	static abstract class RegisterWriter
 	{
-		for (Statement s : new BufferedList<>(statements))
-			if (s instanceof Context)
-				if (((Context) s).isDescendent(transaction, d))
-					return true;
-		return false;
+		private final ByteExportableEnumProtocol<RegisterType> registerTypeProtocol;
+		private final StatementProtocol statementProtocol;
+		private final StatementAuthorityDelegateTreeProtocol statementAuthorityProtocol;
+		private final PersonProtocol personProtocol;
+
+		protected RegisterWriter(PersistenceManager persistenceManager, Transaction transaction)
+		{
+			this.registerTypeProtocol = new ByteExportableEnumProtocol<>(0, RegisterType.class, 0);
+			this.statementProtocol = new StatementProtocol(4, persistenceManager, transaction);
+			this.statementAuthorityProtocol = new StatementAuthorityDelegateTreeProtocol(0, persistenceManager, transaction);
+			this.personProtocol = new PersonProtocol(0, persistenceManager, transaction);
+		}
+
+		/**
+		 * The output for the next register.
+		 */
+		protected abstract DataOutput out() throws IOException;
+
+		/**
+		 * Called before writing each register.
+		 */
+		protected void register(RegisterType type) throws IOException
+		{
+			registerTypeProtocol.send(out(), type);
+		}
+
+		protected void beginUnit(Statement statement) throws IOException
+		{
+		}
+
+		protected void endUnit(Statement statement) throws IOException
+		{
+		}
+
+		protected void statement(Statement statement) throws IOException
+		{
+			register(RegisterType.Statement);
+			statementProtocol.send(out(), statement);
+		}
+
+		protected void person(Person person) throws IOException
+		{
+			register(RegisterType.Person);
+			personProtocol.send(out(), person);
+		}
+
+		protected void authority(StatementAuthority statementAuthority) throws IOException
+		{
+			register(RegisterType.Authority);
+			statementAuthorityProtocol.send(out(), statementAuthority);
+		}
+
+		protected void end() throws IOException
+		{
+			register(RegisterType.End);
+		}
+
 	}
 
 	public void export(DataOutput out, Transaction transaction, Collection<Statement> statements, boolean signed, boolean skipSignedProof) throws IOException
 	{
 		versionProtocol.send(out, exportVersion);
-		class DequeEntry
+		export(new RegisterWriter(persistenceManager, transaction)
 		{
-			final Statement statement;
-			final boolean descendents;
-			@SuppressWarnings("unused")
-			final boolean proof;
 
-			private DequeEntry(Statement statement, boolean descendents, boolean proof)
+			@Override
+			protected DataOutput out()
 			{
-				super();
-				this.statement = statement;
-				this.descendents = descendents;
-				this.proof = proof;
+				return out;
 			}
 
-		}
-
-		Deque<DequeEntry> deque = new LinkedList<>();
-		{
-			Set<Statement> queued = new HashSet<>();
-			for (Statement statement : statements)
-			{
-				boolean push = false;
-				for (Statement asc : statement.statementPath(transaction))
-				{
-					if (asc.equals(statement) || (!asc.isSignedDependencies(transaction) && !queued.contains(asc)))
-						push = true;
-					if (push)
-					{
-						deque.offer(new DequeEntry(asc, asc.equals(statement), false));
-						queued.add(asc);
-					}
-				}
-			}
-		}
+		}, transaction, statements, signed, skipSignedProof);
+	}
 
-		StatementProtocol statementProtocol = new StatementProtocol(4, persistenceManager, transaction);
-		StatementAuthorityDelegateTreeProtocol statementAuthorityProtocol = new StatementAuthorityDelegateTreeProtocol(0, persistenceManager, transaction);
-		PersonProtocol personProtocol = new PersonProtocol(0, persistenceManager, transaction);
+	void export(RegisterWriter writer, Transaction transaction, Collection<Statement> statements, boolean signed, boolean skipSignedProof) throws IOException
+	{
+		export(writer, transaction, statements, signed, skipSignedProof, 1);
+	}
 
-		Set<Statement> pushedDependencies = new HashSet<>();
+	/**
+	 * Writes the statements planned by an {@link ExportPlanner} to the
+	 * writer.
+	 *
+	 * @param readTransactions
+	 *            The number of read transactions used to plan the export.
+	 *            See {@link ExportPlanner}.
+	 */
+	void export(RegisterWriter writer, Transaction transaction, Collection<Statement> statements, boolean signed, boolean skipSignedProof,
+			int readTransactions) throws IOException
+	{
+		List<UUID> sequence = new ExportPlanner(persistenceManager, transaction, signed, skipSignedProof, readTransactions).plan(statements);
 		Set<Person> exportedPersons = new HashSet<>();
-		while (!deque.isEmpty())
+		for (UUID uuid : sequence)
 		{
-			DequeEntry e = deque.element();
-			{
-				if (signed && !e.statement.isSignedDependencies(transaction))
-				{
-					deque.remove();
-					continue;
-				}
-			}
-			{
-				boolean pushed = false;
-				for (Statement dep : e.statement.dependencies(transaction))
-				{
-					if (!pushedDependencies.contains(dep) && !isDescendent(transaction, statements, dep) && !dep.isSignedDependencies(transaction))
-					{
-						deque.push(new DequeEntry(dep, false, false));
-						pushedDependencies.add(dep);
-						pushed = true;
-					}
-				}
-				if (pushed)
-					continue;
-				deque.remove();
-			}
-			registerTypeProtocol.send(out, RegisterType.Statement);
-			statementProtocol.send(out, e.statement);
-			StatementAuthority stAuth = e.statement.getAuthority(transaction);
+			Statement statement = persistenceManager.getStatement(transaction, uuid);
+			writer.beginUnit(statement);
+			writer.statement(statement);
+			StatementAuthority stAuth = statement.getAuthority(transaction);
 			if (stAuth != null)
 			{
 				for (Person person : stAuth.personDependencies(transaction))
 					if (!exportedPersons.contains(person))
 					{
-						registerTypeProtocol.send(out, RegisterType.Person);
-						personProtocol.send(out, person);
+						writer.person(person);
 						exportedPersons.add(person);
 					}
-				registerTypeProtocol.send(out, RegisterType.Authority);
-				statementAuthorityProtocol.send(out, stAuth);
-			}
-			if (e.descendents && e.statement instanceof Context && (!skipSignedProof || !e.statement.isSignedProof(transaction)))
-			{
-				Context ctx = (Context) e.statement;
-				for (Statement d : ctx.localDependencySortedStatements(transaction))
-					deque.offer(new DequeEntry(d, true, false));
+				writer.authority(stAuth);
 			}
+			writer.endUnit(statement);
 		}
-		registerTypeProtocol.send(out, RegisterType.End);
+		writer.end();
 	}
 
-	private void import_(DataInput in, ListenableAborter aborter, int statementProtocolVersion, int statementAuthorityDelegateTreeProtocolVersion,
+	void import_(DataInput in, ListenableAborter aborter, int statementProtocolVersion, int statementAuthorityDelegateTreeProtocolVersion,
 			int personProtocolVersion) throws IOException, ProtocolException, AbortException
 	{
 		class AborterListener implements ListenableAborter.Listener
@@ -388,4 +425,324 @@ class ExportImport
 		import_(in, aborter, 4, 0, 0);
 	}
 
+	public void bulkImport(File file, ListenableAborter aborter) throws IOException, ProtocolException, AbortException
+	{
+		if (ExportContainer.isExportContainer(file))
+		{
+			try (ExportContainer container = ExportContainer.open(persistenceManager, file))
+			{
+				bulkImport(container.registerStream(), aborter, 4, 0, 0);
+			}
+			return;
+		}
+		InputStream in = new GZIPInputStream(new FileInputStream(file));
+		try
+		{
+			bulkImport(in, aborter);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Like {@link #import_(DataInput, ListenableAborter)} but pipelined for
+	 * big imports: a reader thread decompresses the input and splits it into
+	 * registers while this thread applies them in batches of
+	 * {@link #bulkBatchSize} registers per transaction. The proof status
+	 * checks are deferred within each batch and run once over the whole batch
+	 * before committing it.
+	 */
+	public void bulkImport(InputStream in, ListenableAborter aborter) throws IOException, ProtocolException, AbortException
+	{
+		int version = versionProtocol.recv(new DataInputStream(in));
+		if (version != exportVersion)
+			throw new VersionException(version);
+		bulkImport(in, aborter, 4, 0, 0);
+	}
+
+	/**
+	 * An {@link InputStream} that keeps a copy of the bytes read since the last
+	 * call to {@link #startRecording()}.
+	 */
+	private static class RecordingInputStream extends FilterInputStream
+	{
+		private final ByteArrayOutputStream recorded;
+
+		private RecordingInputStream(InputStream in)
+		{
+			super(in);
+			this.recorded = new ByteArrayOutputStream();
+		}
+
+		private void startRecording()
+		{
+			recorded.reset();
+		}
+
+		private byte[] recorded()
+		{
+			return recorded.toByteArray();
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if (b >= 0)
+				recorded.write(b);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			int n = super.read(b, off, len);
+			if (n > 0)
+				recorded.write(b, off, n);
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			byte[] buffer = new byte[(int) Math.min(n, 4096)];
+			long skipped = 0;
+			while (skipped < n)
+			{
+				int r = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+				if (r < 0)
+					break;
+				skipped += r;
+			}
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+
+	}
+
+	private static class Register
+	{
+		private final RegisterType type;
+		private final byte[] data;
+		private final Exception exception;
+
+		private Register(RegisterType type, byte[] data)
+		{
+			this.type = type;
+			this.data = data;
+			this.exception = null;
+		}
+
+		private Register(Exception exception)
+		{
+			this.type = null;
+			this.data = null;
+			this.exception = exception;
+		}
+
+	}
+
+	/**
+	 * The decoding stage of the bulk import. Splits the input into registers
+	 * (by skipping them with the protocols, which needs no access to the
+	 * persistence environment) and queues their raw data.
+	 */
+	private class RegisterReader extends Thread
+	{
+		private final RecordingInputStream in;
+		private final DataInputStream dataIn;
+		private final BlockingQueue<Register> queue;
+		private final StatementProtocol statementProtocol;
+		private final StatementAuthorityDelegateTreeProtocol statementAuthorityProtocol;
+		private final PersonProtocol personProtocol;
+
+		private RegisterReader(InputStream in, int statementProtocolVersion, int statementAuthorityDelegateTreeProtocolVersion, int personProtocolVersion)
+		{
+			super("ExportImport.RegisterReader");
+			this.in = new RecordingInputStream(in);
+			this.dataIn = new DataInputStream(this.in);
+			this.queue = new ArrayBlockingQueue<>(bulkQueueCapacity);
+			this.statementProtocol = new StatementProtocol(statementProtocolVersion, persistenceManager, null);
+			this.statementAuthorityProtocol = new StatementAuthorityDelegateTreeProtocol(statementAuthorityDelegateTreeProtocolVersion, persistenceManager,
+					null);
+			this.personProtocol = new PersonProtocol(personProtocolVersion, persistenceManager, null);
+			setDaemon(true);
+		}
+
+		/**
+		 * Queues the registers read. The last register queued is always the
+		 * one that tells how the reading ended (the end register or the
+		 * exception caught), unless the reader is interrupted, which means
+		 * that the consumer no longer takes registers.
+		 */
+		@Override
+		public void run()
+		{
+			Register last = null;
+			boolean interrupted = false;
+			try
+			{
+				while (true)
+				{
+					RegisterType type = registerTypeProtocol.recv(dataIn);
+					in.startRecording();
+					switch (type)
+					{
+					case Statement:
+						statementProtocol.skip(dataIn);
+						break;
+					case Authority:
+						statementAuthorityProtocol.skip(dataIn);
+						break;
+					case Person:
+						personProtocol.skip(dataIn);
+						break;
+					case End:
+						break;
+					}
+					Register register = new Register(type, in.recorded());
+					if (type == RegisterType.End)
+					{
+						last = register;
+						break;
+					}
+					queue.put(register);
+				}
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+			catch (IOException | ProtocolException | RuntimeException e)
+			{
+				last = new Register(e);
+			}
+			finally
+			{
+				if (!interrupted)
+				{
+					if (last == null)
+						last = new Register(new RuntimeException("Register reader failed"));
+					try
+					{
+						queue.put(last);
+					}
+					catch (InterruptedException e)
+					{
+					}
+				}
+			}
+		}
+
+		private Register take() throws IOException, ProtocolException, AbortException
+		{
+			Register register;
+			try
+			{
+				register = queue.take();
+			}
+			catch (InterruptedException e)
+			{
+				throw new AbortException(e);
+			}
+			if (register.exception instanceof IOException)
+				throw (IOException) register.exception;
+			if (register.exception instanceof ProtocolException)
+				throw (ProtocolException) register.exception;
+			if (register.exception instanceof RuntimeException)
+				throw (RuntimeException) register.exception;
+			return register;
+		}
+
+	}
+
+	void bulkImport(InputStream in, ListenableAborter aborter, int statementProtocolVersion, int statementAuthorityDelegateTreeProtocolVersion,
+			int personProtocolVersion) throws IOException, ProtocolException, AbortException
+	{
+		class AborterListener implements ListenableAborter.Listener
+		{
+			private Transaction transaction;
+
+			public void setTransaction(Transaction transaction)
+			{
+				this.transaction = transaction;
+			}
+
+			@Override
+			public void abort()
+			{
+				transaction.abort();
+			}
+		}
+		AborterListener aborterListener = new AborterListener();
+		aborter.addListener(aborterListener);
+
+		RegisterReader reader = new RegisterReader(in, statementProtocolVersion, statementAuthorityDelegateTreeProtocolVersion, personProtocolVersion);
+		reader.start();
+		long start = System.nanoTime();
+		int recvd = 0;
+		try
+		{
+			loop: while (true)
+			{
+				try (Transaction transaction = beginTransaction())
+				{
+					aborterListener.setTransaction(transaction);
+					transaction.deferProofChecks();
+					StatementProtocol statementProtocol = new StatementProtocol(statementProtocolVersion, persistenceManager, transaction);
+					StatementAuthorityDelegateTreeProtocol statementAuthorityProtocol = new StatementAuthorityDelegateTreeProtocol(
+							statementAuthorityDelegateTreeProtocolVersion, persistenceManager, transaction);
+					PersonProtocol personProtocol = new PersonProtocol(personProtocolVersion, persistenceManager, transaction);
+					for (int batch = 0; batch < bulkBatchSize; batch++)
+					{
+						Register register = reader.take();
+						DataInput registerIn = new DataInputStream(new ByteArrayInputStream(register.data));
+						switch (register.type)
+						{
+						case Statement:
+							statementProtocol.recv(registerIn);
+							break;
+						case Authority:
+							statementAuthorityProtocol.recv(registerIn);
+							break;
+						case Person:
+							personProtocol.recv(registerIn);
+							break;
+						case End:
+							Statement.runDeferredProofChecks(transaction);
+							transaction.commit();
+							break loop;
+						}
+						recvd++;
+					}
+					Statement.runDeferredProofChecks(transaction);
+					transaction.commit();
+				}
+				double rate = recvd / ((System.nanoTime() - start) * 1e-9);
+				logger.info("--> bulk restore:" + recvd + " (" + String.format("%.1f", rate) + "/s)");
+				aborter.progress(recvd, rate);
+			}
+		}
+		catch (Exception e)
+		{
+			aborter.checkAbort();
+			throw e;
+		}
+		finally
+		{
+			aborter.removeListener(aborterListener);
+			reader.interrupt();
+		}
+		double rate = recvd / ((System.nanoTime() - start) * 1e-9);
+		logger.info("--> bulk restore:" + recvd + " (" + String.format("%.1f", rate) + "/s)");
+		aborter.progress(recvd, rate);
+	}
+
 }
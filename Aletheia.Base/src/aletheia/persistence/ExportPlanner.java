@@ -0,0 +1,418 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.Logger;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.model.statement.Context;
+import aletheia.model.statement.RootContext;
+import aletheia.model.statement.Statement;
+import aletheia.utilities.collections.CloseableIterator;
+
+/**
+ * <p>
+ * Computes the sequence of statements to be written by an export.
+ * </p>
+ * <p>
+ * The plan is done in two phases. First, the information needed about every
+ * statement that might take part in the export (its context, dependencies,
+ * authority flags and, for the contexts whose descendents are exported, its
+ * dependency sorted local statements) is fetched in waves and kept in
+ * compact UUID-keyed records. Every wave is split among several read
+ * transactions when so configured. Then the export order is computed on those
+ * records alone, with the same rules (and the same result) as the straight
+ * walk over the persistent statements: the statements in their context paths
+ * and subtrees, each one preceded by the dependencies not included otherwise
+ * and not signed.
+ * </p>
+ */
+class ExportPlanner
+{
+	private static final Logger logger = LoggerManager.instance.logger();
+	private static final long transactionTimeout = 10000;
+	private static final int minChunkSize = 256;
+
+	private static final ExecutorService executor = ForkJoinPool.commonPool();
+
+	private static final int ROLE_PATH = 1;
+	private static final int ROLE_DESCENDENT = 2;
+	private static final int ROLE_DEPENDENCY = 4;
+	private static final int ROLE_CHAIN = 8;
+
+	private static class Node
+	{
+		private final UUID uuid;
+		private final UUID contextUuid;
+		private final boolean context;
+		private final List<UUID> dependencies;
+		private final boolean signedDependencies;
+		private final boolean signedProof;
+		private List<UUID> localSorted;
+		private int roles;
+
+		private Node(Transaction transaction, Statement statement, boolean withLocalSorted)
+		{
+			this.uuid = statement.getUuid();
+			this.contextUuid = statement instanceof RootContext ? null : statement.getContextUuid();
+			this.context = statement instanceof Context;
+			this.dependencies = new ArrayList<>(statement.getUuidDependencies());
+			this.signedDependencies = statement.isSignedDependencies(transaction);
+			this.signedProof = statement.isSignedProof(transaction);
+			this.localSorted = withLocalSorted ? localSorted(transaction, statement) : null;
+			this.roles = 0;
+		}
+
+		private static List<UUID> localSorted(Transaction transaction, Statement statement)
+		{
+			if (!(statement instanceof Context))
+				return Collections.emptyList();
+			List<UUID> list = new ArrayList<>();
+			CloseableIterator<Statement> iterator = ((Context) statement).localDependencySortedStatements(transaction).iterator();
+			try
+			{
+				while (iterator.hasNext())
+					list.add(iterator.next().getUuid());
+			}
+			finally
+			{
+				iterator.close();
+			}
+			return list;
+		}
+
+	}
+
+	private final PersistenceManager persistenceManager;
+	private final Transaction transaction;
+	private final boolean signed;
+	private final boolean skipSignedProof;
+	private final int readTransactions;
+	private final Map<UUID, Node> nodes;
+
+	/**
+	 * @param readTransactions
+	 *            The number of read transactions the fetching is split into.
+	 *            If it's one the given transaction is used; otherwise new
+	 *            transactions are opened, so it should not be used when the
+	 *            given transaction holds uncommitted changes relevant to the
+	 *            export.
+	 */
+	ExportPlanner(PersistenceManager persistenceManager, Transaction transaction, boolean signed, boolean skipSignedProof, int readTransactions)
+	{
+		this.persistenceManager = persistenceManager;
+		this.transaction = transaction;
+		this.signed = signed;
+		this.skipSignedProof = skipSignedProof;
+		this.readTransactions = Math.max(1, readTransactions);
+		this.nodes = new HashMap<>();
+	}
+
+	/**
+	 * Whether the node would be processed (not dropped) when reaching the
+	 * head of the export queue.
+	 */
+	private boolean processable(Node node)
+	{
+		return !signed || node.signedDependencies;
+	}
+
+	private boolean expandsDescendents(Node node)
+	{
+		return node.context && processable(node) && (!skipSignedProof || !node.signedProof);
+	}
+
+	private boolean needsLocalSorted(Node node, int roles)
+	{
+		return (roles & ROLE_DESCENDENT) != 0 && node.localSorted == null && expandsDescendents(node);
+	}
+
+	private List<Node> fetch(Transaction transaction, List<UUID> uuids, Set<UUID> withLocalSorted)
+	{
+		List<Node> fetched = new ArrayList<>(uuids.size());
+		for (UUID uuid : uuids)
+		{
+			Statement statement = persistenceManager.getStatement(transaction, uuid);
+			if (statement != null)
+				fetched.add(new Node(transaction, statement, withLocalSorted.contains(uuid)));
+		}
+		return fetched;
+	}
+
+	private List<Node> fetchInReadTransaction(List<UUID> uuids, Set<UUID> withLocalSorted)
+	{
+		Transaction transaction = persistenceManager.beginTransaction(transactionTimeout);
+		try
+		{
+			return fetch(transaction, uuids, withLocalSorted);
+		}
+		finally
+		{
+			transaction.abort();
+		}
+	}
+
+	private List<Node> fetchWave(List<UUID> uuids, Set<UUID> withLocalSorted)
+	{
+		int chunks = Math.min(readTransactions, (uuids.size() + minChunkSize - 1) / minChunkSize);
+		if (chunks <= 1)
+			return fetch(transaction, uuids, withLocalSorted);
+		int chunkSize = (uuids.size() + chunks - 1) / chunks;
+		List<Future<List<Node>>> futures = new ArrayList<>();
+		for (int i = 0; i < uuids.size(); i += chunkSize)
+		{
+			List<UUID> chunk = uuids.subList(i, Math.min(uuids.size(), i + chunkSize));
+			futures.add(executor.submit(() -> fetchInReadTransaction(chunk, withLocalSorted)));
+		}
+		List<Node> fetched = new ArrayList<>(uuids.size());
+		try
+		{
+			for (Future<List<Node>> future : futures)
+				fetched.addAll(future.get());
+		}
+		catch (InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		return fetched;
+	}
+
+	private static void request(Map<UUID, Integer> pending, UUID uuid, int roles)
+	{
+		if (uuid != null)
+			pending.merge(uuid, roles, (a, b) -> a | b);
+	}
+
+	/**
+	 * Fetches the records of all the statements the export might need.
+	 */
+	private void load(Collection<Statement> statements)
+	{
+		Map<UUID, Integer> pending = new LinkedHashMap<>();
+		for (Statement statement : statements)
+			request(pending, statement.getUuid(), ROLE_PATH | ROLE_DESCENDENT);
+		int waves = 0;
+		while (!pending.isEmpty())
+		{
+			waves++;
+			List<UUID> toFetch = new ArrayList<>();
+			Set<UUID> withLocalSorted = new HashSet<>();
+			for (Map.Entry<UUID, Integer> e : pending.entrySet())
+			{
+				Node node = nodes.get(e.getKey());
+				if (node == null)
+				{
+					toFetch.add(e.getKey());
+					if ((e.getValue() & ROLE_DESCENDENT) != 0)
+						withLocalSorted.add(e.getKey());
+				}
+				else if (needsLocalSorted(node, e.getValue()))
+				{
+					toFetch.add(e.getKey());
+					withLocalSorted.add(e.getKey());
+				}
+			}
+			for (Node node : fetchWave(toFetch, withLocalSorted))
+			{
+				Node old = nodes.get(node.uuid);
+				if (old == null)
+					nodes.put(node.uuid, node);
+				else if (old.localSorted == null)
+					old.localSorted = node.localSorted;
+			}
+			Map<UUID, Integer> next = new LinkedHashMap<>();
+			for (Map.Entry<UUID, Integer> e : pending.entrySet())
+			{
+				Node node = nodes.get(e.getKey());
+				if (node == null)
+					continue;
+				int roles = e.getValue() & ~node.roles;
+				node.roles |= roles;
+				if ((roles & ROLE_PATH) != 0)
+				{
+					request(next, node.contextUuid, ROLE_PATH);
+					if (processable(node))
+						for (UUID dep : node.dependencies)
+							request(next, dep, ROLE_DEPENDENCY);
+				}
+				if ((roles & ROLE_DESCENDENT) != 0 && processable(node))
+				{
+					for (UUID dep : node.dependencies)
+						request(next, dep, ROLE_DEPENDENCY);
+					if (expandsDescendents(node))
+						for (UUID uuid : node.localSorted)
+							request(next, uuid, ROLE_DESCENDENT);
+				}
+				if ((roles & ROLE_DEPENDENCY) != 0 && !node.signedDependencies)
+				{
+					request(next, node.contextUuid, ROLE_CHAIN);
+					if (processable(node))
+						for (UUID dep : node.dependencies)
+							request(next, dep, ROLE_DEPENDENCY);
+				}
+				if ((roles & ROLE_CHAIN) != 0)
+					request(next, node.contextUuid, ROLE_CHAIN);
+			}
+			pending = next;
+		}
+		logger.debug("Export plan: " + nodes.size() + " statements fetched in " + waves + " waves");
+	}
+
+	private static class QueueEntry
+	{
+		private final Node node;
+		private final boolean descendents;
+
+		private QueueEntry(Node node, boolean descendents)
+		{
+			this.node = node;
+			this.descendents = descendents;
+		}
+
+	}
+
+	private List<Node> path(Node node)
+	{
+		Deque<Node> path = new ArrayDeque<>();
+		while (node != null)
+		{
+			path.addFirst(node);
+			node = node.contextUuid == null ? null : nodes.get(node.contextUuid);
+		}
+		return new ArrayList<>(path);
+	}
+
+	private boolean isDescendent(Set<UUID> contexts, Map<UUID, Boolean> memo, Node node)
+	{
+		List<Node> chain = new ArrayList<>();
+		Boolean result = null;
+		while (result == null)
+		{
+			if (contexts.contains(node.uuid))
+				result = true;
+			else
+			{
+				result = memo.get(node.uuid);
+				if (result == null)
+				{
+					chain.add(node);
+					node = node.contextUuid == null ? null : nodes.get(node.contextUuid);
+					if (node == null)
+						result = false;
+				}
+			}
+		}
+		for (Node n : chain)
+			memo.put(n.uuid, result);
+		return result;
+	}
+
+	/**
+	 * Computes the export sequence for these statements.
+	 *
+	 * @return The UUIDs of the statements to be written, in order. A
+	 *         statement might appear more than once.
+	 */
+	List<UUID> plan(Collection<Statement> statements)
+	{
+		load(statements);
+
+		Set<UUID> contexts = new HashSet<>();
+		for (Statement statement : statements)
+			if (statement instanceof Context)
+				contexts.add(statement.getUuid());
+		Map<UUID, Boolean> descendentMemo = new HashMap<>();
+
+		Deque<QueueEntry> deque = new ArrayDeque<>();
+		{
+			Set<UUID> queued = new HashSet<>();
+			for (Statement statement : statements)
+			{
+				boolean push = false;
+				for (Node asc : path(nodes.get(statement.getUuid())))
+				{
+					boolean self = asc.uuid.equals(statement.getUuid());
+					if (self || (!asc.signedDependencies && !queued.contains(asc.uuid)))
+						push = true;
+					if (push)
+					{
+						deque.offer(new QueueEntry(asc, self));
+						queued.add(asc.uuid);
+					}
+				}
+			}
+		}
+
+		List<UUID> sequence = new ArrayList<>();
+		Set<UUID> pushedDependencies = new HashSet<>();
+		while (!deque.isEmpty())
+		{
+			QueueEntry e = deque.element();
+			if (!processable(e.node))
+			{
+				deque.remove();
+				continue;
+			}
+			boolean pushed = false;
+			for (UUID depUuid : e.node.dependencies)
+			{
+				Node dep = nodes.get(depUuid);
+				if (dep != null && !pushedDependencies.contains(depUuid) && !dep.signedDependencies && !isDescendent(contexts, descendentMemo, dep))
+				{
+					deque.push(new QueueEntry(dep, false));
+					pushedDependencies.add(depUuid);
+					pushed = true;
+				}
+			}
+			if (pushed)
+				continue;
+			deque.remove();
+			sequence.add(e.node.uuid);
+			if (e.descendents && expandsDescendents(e.node))
+				for (UUID uuid : e.node.localSorted)
+					deque.offer(new QueueEntry(nodes.get(uuid), true));
+		}
+		return sequence;
+	}
+
+}
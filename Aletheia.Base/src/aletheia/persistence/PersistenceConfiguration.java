@@ -25,15 +25,21 @@ public abstract class PersistenceConfiguration
 {
 	private final static StartupProgressListener defaultStartupProgressListener = StartupProgressListener.silent;
 	private final static boolean defaultDebug = false;
+	private final static boolean defaultInternTerms = false;
+	private final static boolean defaultCacheStatements = false;
 
 	private StartupProgressListener startupProgressListener;
 	private boolean debug;
+	private boolean internTerms;
+	private boolean cacheStatements;
 
 	public PersistenceConfiguration()
 	{
 		super();
 		this.startupProgressListener = defaultStartupProgressListener;
 		this.debug = defaultDebug;
+		this.internTerms = defaultInternTerms;
+		this.cacheStatements = defaultCacheStatements;
 	}
 
 	public StartupProgressListener getStartupProgressListener()
@@ -56,10 +62,42 @@ public abstract class PersistenceConfiguration
 		this.debug = debug;
 	}
 
+	public boolean isInternTerms()
+	{
+		return internTerms;
+	}
+
+	public void setInternTerms(boolean internTerms)
+	{
+		this.internTerms = internTerms;
+	}
+
+	/**
+	 * Whether the statements obtained through
+	 * {@link PersistenceManager#getStatement(Transaction, java.util.UUID)} are
+	 * cached by the transaction, so repeated lookups within it return the very
+	 * same {@link aletheia.model.statement.Statement} object. Off by default:
+	 * callers must not rely on getting a fresh object (or on getting the same
+	 * one) from two lookups, and the statements written or deleted by a
+	 * persistence manager that does not evict them would be served stale. The
+	 * proved status propagation defers its writes only for the cached
+	 * statements and writes through otherwise.
+	 */
+	public boolean isCacheStatements()
+	{
+		return cacheStatements;
+	}
+
+	public void setCacheStatements(boolean cacheStatements)
+	{
+		this.cacheStatements = cacheStatements;
+	}
+
 	@Override
 	public String toString()
 	{
-		return "Configuration [startupProgressListener=" + startupProgressListener + ", debug=" + debug + "]";
+		return "Configuration [startupProgressListener=" + startupProgressListener + ", debug=" + debug + ", internTerms=" + internTerms + ", cacheStatements="
+				+ cacheStatements + "]";
 	}
 
 }
\ No newline at end of file
@@ -23,9 +23,14 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.Logger;
 
@@ -47,6 +52,7 @@ import aletheia.model.authority.SignatureRequest;
 import aletheia.model.authority.StatementAuthority;
 import aletheia.model.authority.StatementAuthoritySignature;
 import aletheia.model.authority.UnpackedSignatureRequest;
+import aletheia.model.identifier.Identifier;
 import aletheia.model.identifier.Namespace;
 import aletheia.model.identifier.NodeNamespace;
 import aletheia.model.identifier.RootNamespace;
@@ -64,7 +70,10 @@ import aletheia.model.statement.RootContext;
 import aletheia.model.statement.Specialization;
 import aletheia.model.statement.Statement;
 import aletheia.model.statement.UnfoldingContext;
+import aletheia.model.term.IdentifiableVariableTerm;
 import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.Term;
+import aletheia.model.term.TermInterner;
 import aletheia.persistence.collections.authority.DelegateAuthorizerByAuthorizerMap;
 import aletheia.persistence.collections.authority.DelegateAuthorizerSetByDelegate;
 import aletheia.persistence.collections.authority.DelegateTreeRootNodeSetBySuccessor;
@@ -107,6 +116,7 @@ import aletheia.persistence.collections.peertopeer.HookList;
 import aletheia.persistence.collections.peertopeer.NodeDeferredMessagesByNodeMap;
 import aletheia.persistence.collections.peertopeer.NodeDeferredMessagesByRecipientCollection;
 import aletheia.persistence.collections.peertopeer.NodeDeferredMessagesMap;
+import aletheia.persistence.collections.statement.AncestorStatementsByTerm;
 import aletheia.persistence.collections.statement.AssumptionList;
 import aletheia.persistence.collections.statement.ContextLocalIdentifierToStatement;
 import aletheia.persistence.collections.statement.ContextLocalStatementToIdentifier;
@@ -200,6 +210,31 @@ public abstract class PersistenceManager implements AutoCloseable
 
 	private final boolean debug;
 
+	private final boolean cacheStatements;
+
+	/**
+	 * The table the terms of the statements of this persistence manager are
+	 * interned in, or null if they are not.
+	 */
+	private final TermInterner termInterner;
+
+	private final AtomicLong statementCacheHits;
+
+	private final AtomicLong statementCacheMisses;
+
+	private final Map<File, DependencyGraph> dependencyGraphs;
+
+	private final Map<Transaction, DependencyGraph.Changes> dependencyGraphChanges;
+
+	/**
+	 * Whether there is some open dependency graph, so the statement writes
+	 * don't need to take the lock of this persistence manager while there is
+	 * none.
+	 */
+	private volatile boolean dependencyGraphsOpen;
+
+	private final UselessDescendentsCache uselessDescendentsCache;
+
 	private boolean open;
 
 	/**
@@ -212,6 +247,14 @@ public abstract class PersistenceManager implements AutoCloseable
 		this.persistenceSecretKeyManager = new PersistenceSecretKeyManager(this);
 		this.persistenceUndeleteManager = new PersistenceUndeleteManager();
 		this.debug = configuration.isDebug();
+		this.cacheStatements = configuration.isCacheStatements();
+		this.statementCacheHits = new AtomicLong();
+		this.statementCacheMisses = new AtomicLong();
+		this.dependencyGraphs = new HashMap<>();
+		this.dependencyGraphChanges = new HashMap<>();
+		this.dependencyGraphsOpen = false;
+		this.uselessDescendentsCache = new UselessDescendentsCache();
+		this.termInterner = configuration.isInternTerms() ? new TermInterner() : null;
 		this.open = true;
 	}
 
@@ -240,11 +283,60 @@ public abstract class PersistenceManager implements AutoCloseable
 		return debug;
 	}
 
+	public boolean isCacheStatements()
+	{
+		return cacheStatements;
+	}
+
+	/**
+	 * The term interning table of this persistence manager, or null if it is
+	 * not configured to intern its terms.
+	 *
+	 * @see PersistenceConfiguration#isInternTerms()
+	 */
+	public TermInterner getTermInterner()
+	{
+		return termInterner;
+	}
+
+	/**
+	 * Interns a term and its subterms in the table of this persistence
+	 * manager, if there is one.
+	 *
+	 * @see TermInterner#internSubterms(Term)
+	 */
+	public Term internTerm(Term term)
+	{
+		if (termInterner == null)
+			return term;
+		return termInterner.internSubterms(term);
+	}
+
+	/**
+	 * Number of calls to {@link #getStatement(Transaction, UUID)} that were
+	 * served from the statement cache of the transaction.
+	 */
+	public long getStatementCacheHits()
+	{
+		return statementCacheHits.get();
+	}
+
+	/**
+	 * Number of calls to {@link #getStatement(Transaction, UUID)} that had to
+	 * get the entity from the persistence environment.
+	 */
+	public long getStatementCacheMisses()
+	{
+		return statementCacheMisses.get();
+	}
+
 	/**
 	 * Obtains a {@link Statement} given a {@link Transaction} and the
 	 * {@link UUID} that identifies the {@link Statement}. Calls to
 	 * {@link #getStatementEntity(Transaction, UUID)} and then to
-	 * {@link #entityToStatement(StatementEntity)};
+	 * {@link #entityToStatement(StatementEntity)}; unless statement caching is
+	 * enabled and the same statement has already been obtained with this
+	 * transaction, in which case the same {@link Statement} object is returned.
 	 *
 	 * @param transaction
 	 *            The transaction.
@@ -257,10 +349,222 @@ public abstract class PersistenceManager implements AutoCloseable
 	 */
 	public Statement getStatement(Transaction transaction, UUID uuid)
 	{
+		if (cacheStatements)
+		{
+			Statement statement = transaction.cachedStatement(uuid);
+			if (statement != null)
+			{
+				statementCacheHits.incrementAndGet();
+				return statement;
+			}
+			statementCacheMisses.incrementAndGet();
+		}
 		StatementEntity entity = getStatementEntity(transaction, uuid);
 		if (entity == null)
 			return null;
-		return entityToStatement(entity);
+		Statement statement = entityToStatement(entity);
+		if (cacheStatements)
+			transaction.cacheStatement(statement);
+		return statement;
+	}
+
+	/**
+	 * Checks whether this very {@link Statement} object is the one that
+	 * {@link #getStatement(Transaction, UUID)} returns for this transaction,
+	 * so any change made to it in memory will be seen by the subsequent
+	 * lookups.
+	 *
+	 * @param transaction
+	 *            The transaction.
+	 * @param statement
+	 *            The statement.
+	 * @return Whether the statement is cached.
+	 */
+	public boolean isCachedStatement(Transaction transaction, Statement statement)
+	{
+		return cacheStatements && transaction.cachedStatement(statement.getUuid()) == statement;
+	}
+
+	/**
+	 * Evicts a statement from the caches of the transaction. Must be called by
+	 * the implementations of
+	 * {@link #putStatementEntity(Transaction, StatementEntity)} and
+	 * {@link #deleteStatementEntity(Transaction, UUID)}.
+	 *
+	 * @param transaction
+	 *            The transaction.
+	 * @param uuid
+	 *            The UUID of the statement.
+	 * @param identifier
+	 *            The identifier of the statement being written (null if it has
+	 *            none or if it is being deleted).
+	 */
+	protected void evictCachedStatement(Transaction transaction, UUID uuid, Identifier identifier)
+	{
+		transaction.evictCachedStatement(uuid, identifier);
+	}
+
+	/**
+	 * Drops the cached results that a write or deletion of a statement might
+	 * invalidate (see {@link UselessDescendentsCache}). Must be called by the
+	 * implementations of
+	 * {@link #putStatementEntity(Transaction, StatementEntity)} and
+	 * {@link #deleteStatementEntity(Transaction, UUID)}.
+	 *
+	 * @param transaction
+	 *            The transaction.
+	 * @param uuid
+	 *            The UUID of the statement.
+	 * @param contextUuid
+	 *            The UUID of the context of the statement (null for a root
+	 *            context).
+	 */
+	protected void statementEntityChanged(Transaction transaction, UUID uuid, UUID contextUuid)
+	{
+		uselessDescendentsCache.statementChanged(transaction, uuid, contextUuid);
+	}
+
+	/**
+	 * Journals a statement just stored for the first time into the open
+	 * dependency graphs (see {@link DependencyGraph}). Must be called by the
+	 * implementations of
+	 * {@link #putStatementEntity(Transaction, StatementEntity)}.
+	 *
+	 * @param transaction
+	 *            The transaction.
+	 * @param entity
+	 *            The entity of the new statement.
+	 */
+	protected void statementEntityAdded(Transaction transaction, StatementEntity entity)
+	{
+		DependencyGraph.Changes changes = dependencyGraphChanges(transaction);
+		if (changes != null)
+			changes.added(entity);
+	}
+
+	/**
+	 * Journals a deleted statement into the open dependency graphs (see
+	 * {@link DependencyGraph}). Must be called by the implementations of
+	 * {@link #deleteStatementEntity(Transaction, UUID)}.
+	 *
+	 * @param transaction
+	 *            The transaction.
+	 * @param uuid
+	 *            The UUID of the deleted statement.
+	 */
+	protected void statementEntityDeleted(Transaction transaction, UUID uuid)
+	{
+		DependencyGraph.Changes changes = dependencyGraphChanges(transaction);
+		if (changes != null)
+			changes.deleted(uuid);
+	}
+
+	/**
+	 * Whether there is some open dependency graph. Implementations of
+	 * {@link #putStatementEntity(Transaction, StatementEntity)} might skip
+	 * checking if the statement is new when there is none.
+	 */
+	protected boolean isDependencyGraphOpen()
+	{
+		return dependencyGraphsOpen;
+	}
+
+	/**
+	 * The changes journaled by a transaction, to be handed to the open
+	 * dependency graphs when (and if) it's committed. Null if there are no
+	 * open dependency graphs.
+	 */
+	private DependencyGraph.Changes dependencyGraphChanges(Transaction transaction)
+	{
+		if (!dependencyGraphsOpen)
+			return null;
+		synchronized (this)
+		{
+			if (dependencyGraphs.isEmpty())
+				return null;
+			DependencyGraph.Changes changes = dependencyGraphChanges.get(transaction);
+			if (changes == null)
+			{
+				changes = new DependencyGraph.Changes();
+				dependencyGraphChanges.put(transaction, changes);
+				transaction.runWhenClose(new Transaction.Hook()
+				{
+					@Override
+					public void run(Transaction closedTransaction)
+					{
+						DependencyGraph.Changes changes;
+						List<DependencyGraph> graphs;
+						synchronized (PersistenceManager.this)
+						{
+							changes = dependencyGraphChanges.remove(closedTransaction);
+							graphs = new ArrayList<>(dependencyGraphs.values());
+						}
+						if (changes != null && closedTransaction.isCommited())
+							for (DependencyGraph graph : graphs)
+								graph.journal(changes);
+					}
+				});
+			}
+			return changes;
+		}
+	}
+
+	void registerDependencyGraph(DependencyGraph graph)
+	{
+		DependencyGraph old;
+		synchronized (this)
+		{
+			old = dependencyGraphs.put(graph.getFile().getAbsoluteFile(), graph);
+			dependencyGraphsOpen = true;
+		}
+		if (old != null && old != graph)
+			old.close();
+	}
+
+	synchronized void unregisterDependencyGraph(DependencyGraph graph)
+	{
+		dependencyGraphs.remove(graph.getFile().getAbsoluteFile(), graph);
+		dependencyGraphsOpen = !dependencyGraphs.isEmpty();
+	}
+
+	/**
+	 * Builds a snapshot of the dependency graph of all the statements and
+	 * writes it to a file. The graph is kept open (and up to date with the
+	 * changes committed, see {@link DependencyGraph#refresh()}) until closed
+	 * or until this persistence manager is closed.
+	 *
+	 * @param transaction
+	 *            The transaction to use in the operation.
+	 * @param file
+	 *            The file to write.
+	 * @return The graph.
+	 * @throws IOException
+	 */
+	public DependencyGraph buildDependencyGraph(Transaction transaction, File file) throws IOException
+	{
+		return DependencyGraph.build(this, transaction, file);
+	}
+
+	/**
+	 * Gets the dependency graph kept in a file, opening it if it is not open
+	 * yet.
+	 *
+	 * @param file
+	 *            The file.
+	 * @return The graph.
+	 * @throws IOException
+	 *
+	 * @see #buildDependencyGraph(Transaction, File)
+	 */
+	public DependencyGraph openDependencyGraph(File file) throws IOException
+	{
+		synchronized (this)
+		{
+			DependencyGraph graph = dependencyGraphs.get(file.getAbsoluteFile());
+			if (graph != null)
+				return graph;
+		}
+		return DependencyGraph.open(this, file);
 	}
 
 	/**
@@ -399,6 +703,15 @@ public abstract class PersistenceManager implements AutoCloseable
 	 */
 	public abstract void deleteStatementEntity(Transaction transaction, UUID uuid);
 
+	/**
+	 * The cache of the useless descendents of the contexts (see
+	 * {@link Context#uselessDescendents(Transaction)}).
+	 */
+	public UselessDescendentsCache getUselessDescendentsCache()
+	{
+		return uselessDescendentsCache;
+	}
+
 	public boolean lockStatement(Transaction transaction, Statement statement)
 	{
 		return lockStatementEntity(transaction, statement.getUuid());
@@ -543,6 +856,25 @@ public abstract class PersistenceManager implements AutoCloseable
 	 */
 	public abstract DescendantContextsByConsequent descendantContextsByConsequent(Transaction transaction, Context context, SimpleTerm consequent);
 
+	/**
+	 * Creates a set view of all the statements local to a given context or to
+	 * any of its ancestors that match a given term. It's the same set that
+	 * results of combining the {@linkplain #localStatementsByTerm local
+	 * statements by term} of the context and all of its ancestors, but this
+	 * view should be obtained without having to look up every ancestor.
+	 *
+	 * @param transaction
+	 *            The transaction to be used in the operations on the set.
+	 * @param context
+	 *            The context.
+	 * @param term
+	 *            The term to be matched.
+	 * @return The set view.
+	 *
+	 * @see AncestorStatementsByTerm
+	 */
+	public abstract AncestorStatementsByTerm ancestorStatementsByTerm(Transaction transaction, Context context, Term term);
+
 	/**
 	 * Creates a set view of all the {@linkplain UnfoldingContext unfolding
 	 * contexts} that unfolds the given {@link Declaration}.
@@ -580,9 +912,18 @@ public abstract class PersistenceManager implements AutoCloseable
 				throw new PersistenceException(e);
 			}
 			persistenceSecretKeyManager.close();
+			List<DependencyGraph> graphs;
+			synchronized (this)
+			{
+				graphs = new ArrayList<>(dependencyGraphs.values());
+			}
+			for (DependencyGraph graph : graphs)
+				graph.close();
 		}
 		finally
 		{
+			if (termInterner != null)
+				termInterner.clear();
 			open = false;
 		}
 	}
@@ -686,6 +1027,8 @@ public abstract class PersistenceManager implements AutoCloseable
 	 */
 	public Statement entityToStatement(StatementEntity e)
 	{
+		if (termInterner != null)
+			internStatementTerm(e);
 		if (e instanceof AssumptionEntity)
 			return assumptionEntityToStatement((AssumptionEntity) e);
 		else if (e instanceof ContextEntity)
@@ -698,6 +1041,19 @@ public abstract class PersistenceManager implements AutoCloseable
 			throw new Error();
 	}
 
+	/**
+	 * Replaces the variable of a statement entity just read from the store
+	 * with one whose type is interned, so the statements of this persistence
+	 * manager share their equal subterms.
+	 */
+	private void internStatementTerm(StatementEntity entity)
+	{
+		IdentifiableVariableTerm variable = entity.getVariable();
+		Term term = termInterner.internSubterms(variable.getType());
+		if (term != variable.getType())
+			entity.setVariable(new IdentifiableVariableTerm(term, variable.getUuid()));
+	}
+
 	/**
 	 * Envelopes an {@link AssumptionEntity} with an {@link Assumption}
 	 *
@@ -838,6 +1194,10 @@ public abstract class PersistenceManager implements AutoCloseable
 		out.setIdentifier(in.getIdentifier());
 		out.getUuidDependencies().clear();
 		out.getUuidDependencies().addAll(in.getUuidDependencies());
+		if (in.getContextUuid() == null)
+			out.initializeContextData(null);
+		else
+			out.initializeContextData((ContextEntity) getStatementEntity(transaction, in.getContextUuid()));
 		if (in instanceof AssumptionEntity)
 		{
 			AssumptionEntity in_ = (AssumptionEntity) in;
@@ -848,8 +1208,6 @@ public abstract class PersistenceManager implements AutoCloseable
 		{
 			ContextEntity in_ = (ContextEntity) in;
 			ContextEntity out_ = (ContextEntity) out;
-			ContextEntity parent = (ContextEntity) getStatementEntity(transaction, in.getContextUuid());
-			out_.initializeContextData(parent);
 			out_.setConsequent(in_.getConsequent());
 			if (in instanceof UnfoldingContextEntity)
 			{
@@ -1633,6 +1991,19 @@ public abstract class PersistenceManager implements AutoCloseable
 		new ExportImport(this).export(file, transaction, statements, signed, skipSignedProof);
 	}
 
+	/**
+	 * Exports like {@link #export(File, Transaction, Collection, boolean, boolean)}
+	 * but fetching the statements needed to plan the export with that number
+	 * of read transactions in parallel. When that number is greater than one
+	 * the plan won't take into account the uncommitted changes of the given
+	 * transaction.
+	 */
+	public void export(File file, Transaction transaction, Collection<Statement> statements, boolean signed, boolean skipSignedProof, int readTransactions)
+			throws IOException
+	{
+		new ExportImport(this).export(file, transaction, statements, signed, skipSignedProof, readTransactions);
+	}
+
 	public void import_(DataInput in) throws IOException, ProtocolException
 	{
 		new ExportImport(this).import_(in);
@@ -1658,4 +2029,29 @@ public abstract class PersistenceManager implements AutoCloseable
 		new ExportImport(this).import_(in, aborter);
 	}
 
+	/**
+	 * Imports a file like {@link #import_(File, ListenableAborter)} but
+	 * pipelining the decoding and the application of the registers, using
+	 * bigger transactions and deferring the proof status checks to the end of
+	 * each transaction. The progress is reported to the aborter through
+	 * {@link ListenableAborter#progress(long, double)}.
+	 */
+	public void bulkImport(File file, ListenableAborter aborter) throws IOException, ProtocolException, AbortException
+	{
+		new ExportImport(this).bulkImport(file, aborter);
+	}
+
+	/**
+	 * Imports from an export container file only the subtrees of the given
+	 * statements, along with the statements they depend on (see
+	 * {@link ExportContainer#import_(Collection, ListenableAborter)}).
+	 */
+	public void import_(File file, Collection<UUID> statementUuids, ListenableAborter aborter) throws IOException, ProtocolException, AbortException
+	{
+		try (ExportContainer container = ExportContainer.open(this, file))
+		{
+			container.import_(statementUuids, aborter);
+		}
+	}
+
 }
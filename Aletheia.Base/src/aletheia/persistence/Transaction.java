@@ -20,11 +20,19 @@
 package aletheia.persistence;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
+import aletheia.model.identifier.Identifier;
+import aletheia.model.nomenclator.IdentifierResolutionCache;
+import aletheia.model.statement.Statement;
 import aletheia.persistence.exceptions.PersistenceManagerClosedException;
 import aletheia.utilities.MiscUtilities;
+import aletheia.utilities.collections.SoftCacheMap;
 
 /**
  * The equivalent of the relational database transactions for the persistence
@@ -49,6 +57,9 @@ public abstract class Transaction implements AutoCloseable
 	private boolean commited;
 	private Collection<Hook> commitHooks;
 	private Collection<Hook> closeHooks;
+	private Map<UUID, Statement> statementCache;
+	private IdentifierResolutionCache identifierResolutionCache;
+	private DeferredProofChecks deferredProofChecks;
 
 	/**
 	 * Creates a new transaction and registers it on the persistence manager as
@@ -72,6 +83,9 @@ public abstract class Transaction implements AutoCloseable
 		this.commited = false;
 		this.commitHooks = null;
 		this.closeHooks = null;
+		this.statementCache = null;
+		this.identifierResolutionCache = null;
+		this.deferredProofChecks = null;
 	}
 
 	/**
@@ -117,6 +131,9 @@ public abstract class Transaction implements AutoCloseable
 	{
 		open = false;
 		commited = true;
+		statementCache = null;
+		identifierResolutionCache = null;
+		deferredProofChecks = null;
 		if (commitHooks != null)
 		{
 			for (Hook hook : commitHooks)
@@ -140,6 +157,9 @@ public abstract class Transaction implements AutoCloseable
 		{
 			open = false;
 			commited = false;
+			statementCache = null;
+			identifierResolutionCache = null;
+			deferredProofChecks = null;
 			if (closeHooks != null)
 			{
 				for (Hook hook : closeHooks)
@@ -225,6 +245,128 @@ public abstract class Transaction implements AutoCloseable
 		}
 	}
 
+	/**
+	 * The statements already obtained with this transaction, to be used by
+	 * {@link PersistenceManager#getStatement(Transaction, UUID)}. The persistence
+	 * manager must evict any statement it writes or deletes. The cache is
+	 * dropped when the transaction is closed.
+	 */
+	synchronized Statement cachedStatement(UUID uuid)
+	{
+		if (statementCache == null)
+			return null;
+		return statementCache.get(uuid);
+	}
+
+	synchronized void cacheStatement(Statement statement)
+	{
+		if (!open)
+			return;
+		if (statementCache == null)
+			statementCache = new SoftCacheMap<>();
+		statementCache.put(statement.getUuid(), statement);
+	}
+
+	void evictCachedStatement(UUID uuid, Identifier identifier)
+	{
+		IdentifierResolutionCache identifierResolutionCache;
+		synchronized (this)
+		{
+			if (statementCache != null)
+				statementCache.remove(uuid);
+			identifierResolutionCache = this.identifierResolutionCache;
+		}
+		if (identifierResolutionCache != null)
+			identifierResolutionCache.statementIdentifierChanged(uuid, identifier);
+	}
+
+	/**
+	 * The identifier resolutions made by the nomenclators used with this
+	 * transaction. Kept up to date by the persistence manager on every
+	 * statement write and dropped when the transaction is closed.
+	 *
+	 * @return The cache, or null if the transaction is no longer open.
+	 */
+	public synchronized IdentifierResolutionCache getIdentifierResolutionCache()
+	{
+		if (!open)
+			return null;
+		if (identifierResolutionCache == null)
+			identifierResolutionCache = new IdentifierResolutionCache();
+		return identifierResolutionCache;
+	}
+
+	/**
+	 * The proof status checks requested while they are being deferred in a
+	 * transaction (see {@link Transaction#deferProofChecks()}).
+	 */
+	public static class DeferredProofChecks
+	{
+		private final Set<UUID> provedChecks;
+		private final Set<UUID> signedProofChecks;
+
+		private DeferredProofChecks()
+		{
+			this.provedChecks = new LinkedHashSet<>();
+			this.signedProofChecks = new LinkedHashSet<>();
+		}
+
+		/**
+		 * The statements whose proved status is to be checked.
+		 */
+		public Set<UUID> getProvedChecks()
+		{
+			return provedChecks;
+		}
+
+		/**
+		 * The statement authorities whose signed proof status is to be
+		 * checked.
+		 */
+		public Set<UUID> getSignedProofChecks()
+		{
+			return signedProofChecks;
+		}
+
+	}
+
+	/**
+	 * From now on, the proved status (and signed proof status) checks
+	 * triggered by the operations performed with this transaction will just be
+	 * collected instead of run. Used for bulk operations where running them
+	 * once over the whole set of affected statements is much cheaper than
+	 * running them once per operation. The collected checks must be run
+	 * before committing the transaction.
+	 *
+	 * @see aletheia.model.statement.Statement#runDeferredProofChecks(Transaction)
+	 */
+	public synchronized void deferProofChecks()
+	{
+		if (deferredProofChecks == null)
+			deferredProofChecks = new DeferredProofChecks();
+	}
+
+	/**
+	 * @return The proof status checks collected so far, or null if they are
+	 *         not being deferred.
+	 */
+	public synchronized DeferredProofChecks getDeferredProofChecks()
+	{
+		return deferredProofChecks;
+	}
+
+	/**
+	 * Stops deferring the proof status checks.
+	 *
+	 * @return The checks collected, or null if they were not being deferred.
+	 */
+	public synchronized DeferredProofChecks endDeferredProofChecks()
+	{
+		DeferredProofChecks deferredProofChecks = this.deferredProofChecks;
+		this.deferredProofChecks = null;
+		return deferredProofChecks;
+	}
+
 	@Override
 	public String toString()
 	{
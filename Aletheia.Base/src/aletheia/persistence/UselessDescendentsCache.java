@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import aletheia.model.statement.Context;
+import aletheia.utilities.collections.SoftCacheMap;
+
+/**
+ * In-memory cache of the useless descendents of the contexts (see
+ * {@link Context#uselessDescendents(Transaction)}), so they aren't computed
+ * again for a context while nothing changes under it. Nothing of it is ever
+ * written into the persistence environment.
+ *
+ * Every entry keeps the contexts under its context (including itself), and
+ * it's dropped when a statement in any of them is written or deleted. The
+ * persistence manager must call to
+ * {@link #statementChanged(Transaction, UUID, UUID)} on every statement write
+ * or deletion.
+ *
+ * Since the entries are shared by all the transactions, a computed result is
+ * only stored when its transaction is closed and if no statement has changed
+ * since it was started (see {@link #changes()}). The contexts changed by a
+ * transaction are dropped again when it's closed, so a result computed by
+ * another transaction before that is not kept.
+ */
+public class UselessDescendentsCache
+{
+	private static class Entry
+	{
+		private final Set<UUID> contextUuids;
+		private final Set<UUID> uselessUuids;
+
+		private Entry(Set<UUID> contextUuids, Set<UUID> uselessUuids)
+		{
+			this.contextUuids = contextUuids;
+			this.uselessUuids = Collections.unmodifiableSet(uselessUuids);
+		}
+	}
+
+	private final Map<UUID, Entry> entries;
+	private final AtomicLong changes;
+	private final Map<Transaction, Set<UUID>> changedContextUuids;
+
+	public UselessDescendentsCache()
+	{
+		this.entries = new SoftCacheMap<>();
+		this.changes = new AtomicLong();
+		this.changedContextUuids = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * The cached useless descendents of a context.
+	 *
+	 * @return The UUIDs of the useless descendents, or null if they are not
+	 *         cached.
+	 */
+	public synchronized Set<UUID> get(UUID contextUuid)
+	{
+		Entry entry = entries.get(contextUuid);
+		if (entry == null)
+			return null;
+		return entry.uselessUuids;
+	}
+
+	/**
+	 * The number of statement changes so far. Must be taken before starting
+	 * the computation to be stored with
+	 * {@link #put(Transaction, UUID, Set, Set, long)}.
+	 */
+	public long changes()
+	{
+		return changes.get();
+	}
+
+	/**
+	 * Stores the useless descendents of a context when the transaction they
+	 * have been computed with is closed, unless some statement has changed
+	 * since.
+	 *
+	 * @param transaction
+	 *            The transaction used in the computation.
+	 * @param contextUuid
+	 *            The context.
+	 * @param contextUuids
+	 *            The contexts under it, including itself.
+	 * @param uselessUuids
+	 *            The useless descendents.
+	 * @param changes
+	 *            The value of {@link #changes()} before the computation.
+	 */
+	public void put(Transaction transaction, UUID contextUuid, Set<UUID> contextUuids, Set<UUID> uselessUuids, long changes)
+	{
+		Entry entry = new Entry(contextUuids, uselessUuids);
+		transaction.runWhenClose(new Transaction.Hook()
+		{
+			@Override
+			public void run(Transaction closedTransaction)
+			{
+				synchronized (UselessDescendentsCache.this)
+				{
+					if (UselessDescendentsCache.this.changes.get() == changes)
+						entries.put(contextUuid, entry);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Drops the entries that a write or deletion of a statement might
+	 * invalidate.
+	 *
+	 * @param transaction
+	 *            The transaction of the change.
+	 * @param uuid
+	 *            The statement.
+	 * @param contextUuid
+	 *            The context of the statement (null for a root context).
+	 */
+	public void statementChanged(Transaction transaction, UUID uuid, UUID contextUuid)
+	{
+		changes.incrementAndGet();
+		Set<UUID> changed = changedContextUuids.get(transaction);
+		if (changed == null)
+		{
+			changed = new HashSet<>();
+			Set<UUID> old = changedContextUuids.putIfAbsent(transaction, changed);
+			if (old != null)
+				changed = old;
+			else
+				transaction.runWhenClose(new Transaction.Hook()
+				{
+					@Override
+					public void run(Transaction closedTransaction)
+					{
+						changes.incrementAndGet();
+						Set<UUID> changed = changedContextUuids.remove(closedTransaction);
+						if (changed != null)
+							synchronized (changed)
+							{
+								drop(changed);
+							}
+					}
+				});
+		}
+		Set<UUID> uuids = new HashSet<>();
+		uuids.add(uuid);
+		if (contextUuid != null)
+			uuids.add(contextUuid);
+		synchronized (changed)
+		{
+			changed.addAll(uuids);
+		}
+		drop(uuids);
+	}
+
+	private synchronized void drop(Set<UUID> contextUuids)
+	{
+		List<UUID> dropped = new ArrayList<>();
+		for (Map.Entry<UUID, Entry> e : entries.entrySet())
+		{
+			Entry entry = e.getValue();
+			if (contextUuids.contains(e.getKey()) || (entry != null && !Collections.disjoint(contextUuids, entry.contextUuids)))
+				dropped.add(e.getKey());
+		}
+		for (UUID uuid : dropped)
+			entries.remove(uuid);
+	}
+
+}
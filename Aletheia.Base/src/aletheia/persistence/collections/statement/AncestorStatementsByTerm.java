@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.collections.statement;
+
+import aletheia.model.statement.Context;
+import aletheia.model.statement.Statement;
+import aletheia.model.term.Term;
+import aletheia.persistence.PersistenceManager;
+import aletheia.persistence.collections.PersistenceManagerDataStructure;
+import aletheia.utilities.collections.CloseableSet;
+
+/**
+ * The set of {@link Statement}s local to a given context or to any of its
+ * ancestors whose term matches a given one. That is, the statements in scope
+ * of the context that might solve it if the term is its consequent.
+ *
+ * @see PersistenceManager#ancestorStatementsByTerm(aletheia.persistence.Transaction,
+ *      Context, Term)
+ */
+public interface AncestorStatementsByTerm extends PersistenceManagerDataStructure, CloseableSet<Statement>
+{
+	/**
+	 * The context.
+	 *
+	 * @return The context.
+	 */
+	public Context getContext();
+
+	/**
+	 * The term.
+	 *
+	 * @return The term.
+	 */
+	public Term getTerm();
+
+}
@@ -106,7 +106,7 @@ public class BerkeleyDBAletheiaEntityStore extends BerkeleyDBAletheiaAbstractEnt
 {
 	private static final Logger logger = LoggerManager.instance.logger();
 
-	private static final int storeVersion = 27;
+	private static final int storeVersion = 30;
 	private static final int minimalStoreVersion = 27;
 
 	private static final Collection<Class<?>> registerClasses = Arrays.<Class<?>> asList(
@@ -212,6 +212,19 @@ public class BerkeleyDBAletheiaEntityStore extends BerkeleyDBAletheiaAbstractEnt
 		int currentStoreVersion = environment.getStoreVersion(storeName);
 		if (currentStoreVersion >= 0 && (currentStoreVersion < minimalStoreVersion || currentStoreVersion > storeVersion))
 			throw new UnsupportedEntityStoreVersionException(currentStoreVersion, storeVersion);
+		if (currentStoreVersion >= 0 && currentStoreVersion < storeVersion)
+		{
+			EntityStoreUpgrade upgrade = EntityStoreUpgrade.getEntityStoreUpgrade(currentStoreVersion);
+			if (upgrade != null && upgrade.isEager())
+			{
+				if (environment.getConfig().getReadOnly() || !allowUpgrade)
+					throw new EntityStoreVersionException("Entity store version " + currentStoreVersion + " must be upgraded", currentStoreVersion,
+							storeVersion);
+				logger.info("Upgrading from store version:" + currentStoreVersion);
+				upgrade.upgrade(environment, storeName);
+				logger.info("Upgrade success!!! :D");
+			}
+		}
 		try
 		{
 			return new BerkeleyDBAletheiaEntityStore(environment, storeName, bulkLoad);
@@ -287,19 +300,24 @@ public class BerkeleyDBAletheiaEntityStore extends BerkeleyDBAletheiaAbstractEnt
 		return statementEntityDependenciesSecondaryIndex().subIndex(uuidKey);
 	}
 
-	public SecondaryIndex<BerkeleyDBStatementEntity.UUIDKeyTermHash, UUIDKey, BerkeleyDBStatementEntity> statementEntityTermHashSecondaryIndex()
+	public SecondaryIndex<BerkeleyDBStatementEntity.UUIDKeyTermDigest, UUIDKey, BerkeleyDBStatementEntity> statementEntityTermDigestSecondaryIndex()
+			throws DatabaseException
+	{
+		return getSecondaryIndex(statementEntityPrimaryIndex(), BerkeleyDBStatementEntity.UUIDKeyTermDigest.class,
+				BerkeleyDBStatementEntity.uuidKeyTermDigest_FieldName);
+	}
+
+	public EntityIndex<UUIDKey, BerkeleyDBStatementEntity> statementEntityTermDigestSubIndex(UUIDKey uuidKeyContext, UUIDKey termDigest)
 			throws DatabaseException
 	{
-		return getSecondaryIndex(statementEntityPrimaryIndex(), BerkeleyDBStatementEntity.UUIDKeyTermHash.class,
-				BerkeleyDBStatementEntity.uuidKeyTermHash_FieldName);
+		return statementEntityTermDigestSecondaryIndex().subIndex(new BerkeleyDBStatementEntity.UUIDKeyTermDigest(uuidKeyContext, termDigest));
 	}
 
-	public EntityIndex<UUIDKey, BerkeleyDBStatementEntity> statementEntityTermHashSubIndex(UUIDKey uuidKeyContext, int termHash) throws DatabaseException
+	public SecondaryIndex<BerkeleyDBStatementEntity.UUIDKeyRootTermDigest, UUIDKey, BerkeleyDBStatementEntity> statementEntityRootTermDigestSecondaryIndex()
+			throws DatabaseException
 	{
-		BerkeleyDBStatementEntity.UUIDKeyTermHash uuidKeyTermHash = new BerkeleyDBStatementEntity.UUIDKeyTermHash();
-		uuidKeyTermHash.setUUIDKey(uuidKeyContext);
-		uuidKeyTermHash.setTermHash(termHash);
-		return statementEntityTermHashSecondaryIndex().subIndex(uuidKeyTermHash);
+		return getSecondaryIndex(statementEntityPrimaryIndex(), BerkeleyDBStatementEntity.UUIDKeyRootTermDigest.class,
+				BerkeleyDBStatementEntity.uuidKeyRootTermDigest_FieldName);
 	}
 
 	public SecondaryIndex<UUIDKeyOrder, UUIDKey, BerkeleyDBAssumptionEntity> assumptionEntityKeyOrderIndex() throws DatabaseException
@@ -0,0 +1,542 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.berkeleydb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.model.identifier.Identifier;
+import aletheia.model.identifier.NamespacePattern;
+import aletheia.model.identifier.NodeNamespace.InvalidNameException;
+import aletheia.model.statement.Context;
+import aletheia.model.statement.RootContext;
+import aletheia.persistence.PersistenceManager;
+import aletheia.persistence.Transaction;
+import aletheia.prooffinder.Proof;
+import aletheia.prooffinder.Proof.ExecutionException;
+import aletheia.prooffinder.ProofFinder;
+import aletheia.utilities.CommandLineArguments;
+import aletheia.utilities.CommandLineArguments.Option;
+import aletheia.utilities.CommandLineArguments.Parameter;
+import aletheia.utilities.CommandLineArguments.Switch;
+import aletheia.version.VersionManager;
+
+/**
+ * Headless batch run of the {@link ProofFinder} over a Berkeley DB
+ * environment. The unproved leaf contexts (the unproved contexts with no
+ * unproved subcontexts) under the selected root contexts are dispatched to
+ * the proof finder, never more at once than its parallelism, and each one is
+ * taken out of the proving pool when it exceeds its time budget (reported as
+ * a timeout) or its queue exceeds its size budget (reported as discarded).
+ * The found proofs are committed to the persistence environment unless in
+ * dry run mode. One tab-separated line is written to the report for every
+ * context as soon as its search is over.
+ */
+public class BerkeleyDBAletheiaProofFinderTool
+{
+	private final static Logger logger = LoggerManager.instance.logger();
+
+	private class ArgumentsException extends Exception
+	{
+		private static final long serialVersionUID = 2785236046338611493L;
+
+		public ArgumentsException(String message)
+		{
+			super(message);
+		}
+
+		public ArgumentsException(Throwable cause)
+		{
+			super(cause);
+		}
+
+	}
+
+	private enum Result
+	{
+		Proved("proved"), Discarded("discarded"), Timeout("timeout"), Failed("failed");
+
+		private final String tag;
+
+		private Result(String tag)
+		{
+			this.tag = tag;
+		}
+
+	}
+
+	private final boolean help;
+	private final boolean version;
+	private final File dbFile;
+	private final boolean dryRun;
+	private final int parallelism;
+	private final long timeout;
+	private final int maxQueueSize;
+	private final float throttle;
+	private final File memoFile;
+	private final File reportFile;
+	private final NamespacePattern namespacePattern;
+	private final List<String> rootSpecs;
+
+	private final static int defaultParallelism = Runtime.getRuntime().availableProcessors();
+	private final static long defaultTimeout = 60;
+	private final static int defaultMaxQueueSize = 5000;
+
+	private String removeOptionValue(Map<String, Switch> switches, String key) throws ArgumentsException
+	{
+		Switch sw = switches.remove(key);
+		if (sw == null)
+			return null;
+		if (!(sw instanceof Option) || ((Option) sw).getValue() == null)
+			throw new ArgumentsException("Missing option value " + key);
+		return ((Option) sw).getValue();
+	}
+
+	private long removeOptionLongValue(Map<String, Switch> switches, String key, long defaultValue, long minValue) throws ArgumentsException
+	{
+		String value = removeOptionValue(switches, key);
+		if (value == null)
+			return defaultValue;
+		try
+		{
+			long l = Long.parseLong(value);
+			if (l < minValue)
+				throw new ArgumentsException("Option value " + key + " must be at least " + minValue);
+			return l;
+		}
+		catch (NumberFormatException e)
+		{
+			throw new ArgumentsException(e);
+		}
+	}
+
+	public BerkeleyDBAletheiaProofFinderTool(CommandLineArguments commandLineArguments) throws ArgumentsException
+	{
+		Map<String, Switch> globalSwitches = new HashMap<>(commandLineArguments.getGlobalSwitches());
+		this.version = globalSwitches.remove("version") != null;
+		this.help = !version && globalSwitches.isEmpty() && commandLineArguments.getParameters().isEmpty();
+		if (version || help)
+		{
+			this.dbFile = null;
+			this.dryRun = false;
+			this.parallelism = 0;
+			this.timeout = 0;
+			this.maxQueueSize = 0;
+			this.throttle = 0;
+			this.memoFile = null;
+			this.reportFile = null;
+			this.namespacePattern = null;
+			this.rootSpecs = null;
+		}
+		else
+		{
+			String sDbFile = removeOptionValue(globalSwitches, "dbFile");
+			if (sDbFile == null)
+				throw new ArgumentsException("Missing option dbFile");
+			this.dbFile = new File(sDbFile);
+			this.dryRun = globalSwitches.remove("dryRun") != null;
+			this.parallelism = (int) removeOptionLongValue(globalSwitches, "parallelism", defaultParallelism, 1);
+			this.timeout = TimeUnit.SECONDS.toNanos(removeOptionLongValue(globalSwitches, "timeout", defaultTimeout, 1));
+			this.maxQueueSize = (int) removeOptionLongValue(globalSwitches, "maxQueueSize", defaultMaxQueueSize, 1);
+			String sThrottle = removeOptionValue(globalSwitches, "throttle");
+			try
+			{
+				this.throttle = sThrottle == null ? 1.0f : Float.parseFloat(sThrottle);
+			}
+			catch (NumberFormatException e)
+			{
+				throw new ArgumentsException(e);
+			}
+			if (!(throttle > 0 && throttle <= 1))
+				throw new ArgumentsException("Option value throttle must be in (0,1]");
+			String sMemoFile = removeOptionValue(globalSwitches, "memo");
+			this.memoFile = sMemoFile == null ? null : new File(sMemoFile);
+			String sReportFile = removeOptionValue(globalSwitches, "report");
+			this.reportFile = sReportFile == null ? null : new File(sReportFile);
+			String sPattern = removeOptionValue(globalSwitches, "pattern");
+			this.namespacePattern = sPattern == null ? null : NamespacePattern.instantiate(sPattern);
+			if (!globalSwitches.isEmpty())
+				throw new ArgumentsException("Unrecognized switches/options: " + globalSwitches.keySet());
+			this.rootSpecs = new ArrayList<>();
+			for (Parameter parameter : commandLineArguments.getParameters())
+			{
+				if (!parameter.getSwitches().isEmpty())
+					throw new ArgumentsException("Unrecognized switches/options: " + parameter.getSwitches().keySet());
+				rootSpecs.add(parameter.getValue());
+			}
+		}
+	}
+
+	private void printHelp()
+	{
+		System.out.println(BerkeleyDBAletheiaProofFinderTool.class.getName() + " [-version] --dbFile=<environment path> [<option>...] [<root context>...]");
+		System.out.println();
+		System.out.println("Runs the proof finder over the unproved leaf contexts of the given root contexts (uuids or identifiers; all of them if none given).");
+		System.out.println();
+		System.out.println("Switches:");
+		System.out.println("\t-version: Show version number");
+		System.out.println("\t--dbFile: Berkeley DB path location");
+		System.out.println("\t--pattern=<namespace pattern>: Only the contexts under a context whose identifier matches the pattern");
+		System.out.println("\t--parallelism=<n>: Number of proof finder workers and of contexts searched at once (default: " + defaultParallelism + ")");
+		System.out.println("\t--timeout=<seconds>: Time budget of every context (default: " + defaultTimeout + ")");
+		System.out.println("\t--maxQueueSize=<n>: Size budget of the search queue of every context (default: " + defaultMaxQueueSize + ")");
+		System.out.println("\t--throttle=<fraction>: Fraction of the cpu time that the proof finder workers might use (default: 1)");
+		System.out.println("\t--memo=<file>: Proof search memo file to use");
+		System.out.println("\t--report=<file>: Report file (default: standard output)");
+		System.out.println("\t-dryRun: Don't commit the found proofs");
+		System.out.println();
+		System.out.println("Report columns: uuid, identifier, result (proved/discarded/timeout/failed), expanded queue entries, milliseconds.");
+	}
+
+	private Collection<RootContext> rootContexts(PersistenceManager persistenceManager, Transaction transaction) throws ArgumentsException
+	{
+		if (rootSpecs.isEmpty())
+			return new ArrayList<>(persistenceManager.rootContexts(transaction).values());
+		Collection<RootContext> rootContexts = new ArrayList<>();
+		for (String spec : rootSpecs)
+		{
+			RootContext rootContext = null;
+			try
+			{
+				rootContext = persistenceManager.getRootContext(transaction, UUID.fromString(spec));
+			}
+			catch (IllegalArgumentException e)
+			{
+			}
+			if (rootContext != null)
+				rootContexts.add(rootContext);
+			else
+			{
+				try
+				{
+					Map<?, RootContext> map = persistenceManager.identifierToRootContexts(transaction).get(Identifier.parse(spec));
+					if (map == null || map.isEmpty())
+						throw new ArgumentsException("Root context not found: " + spec);
+					rootContexts.addAll(map.values());
+				}
+				catch (InvalidNameException e)
+				{
+					throw new ArgumentsException("Root context not found: " + spec);
+				}
+			}
+		}
+		return rootContexts;
+	}
+
+	/**
+	 * @return Whether the context is proved.
+	 */
+	private boolean collectLeaves(Transaction transaction, Context context, boolean selected, Collection<Context> leaves)
+	{
+		if (!selected)
+		{
+			Identifier identifier = context.getIdentifier();
+			selected = identifier != null && namespacePattern.matches(identifier);
+		}
+		boolean leaf = true;
+		for (Context subContext : context.subContexts(transaction))
+			if (!collectLeaves(transaction, subContext, selected, leaves))
+				leaf = false;
+		if (context.isProved())
+			return true;
+		if (leaf && selected)
+			leaves.add(context);
+		return false;
+	}
+
+	private class Search
+	{
+		private final Context context;
+		private final String identifier;
+		private final AtomicInteger expanded;
+		private long startTime;
+		private volatile boolean overflown;
+
+		private Search(Transaction transaction, Context context)
+		{
+			this.context = context;
+			Identifier identifier = context.identifier(transaction);
+			this.identifier = identifier == null ? "" : identifier.toString();
+			this.expanded = new AtomicInteger();
+			this.overflown = false;
+		}
+	}
+
+	private enum EventKind
+	{
+		Proved, Discarded, Overflown
+	}
+
+	private class Event
+	{
+		private final Search search;
+		private final EventKind kind;
+		private final Proof proof;
+
+		private Event(Search search, EventKind kind, Proof proof)
+		{
+			this.search = search;
+			this.kind = kind;
+			this.proof = proof;
+		}
+	}
+
+	/**
+	 * Runs the searches, keeping at most {@link #parallelism} of them in the
+	 * proving pool. The proof finder listener only queues events, so the
+	 * proofs are executed and the report is written by the calling thread.
+	 */
+	private class Dispatcher implements ProofFinder.Listener
+	{
+		private final PersistenceManager persistenceManager;
+		private final ProofFinder proofFinder;
+		private final PrintStream report;
+		private final Map<UUID, Search> running;
+		private final BlockingQueue<Event> events;
+		private final Map<Result, Integer> counts;
+
+		private Dispatcher(PersistenceManager persistenceManager, ProofFinder proofFinder, PrintStream report)
+		{
+			this.persistenceManager = persistenceManager;
+			this.proofFinder = proofFinder;
+			this.report = report;
+			this.running = new ConcurrentHashMap<>();
+			this.events = new LinkedBlockingQueue<>();
+			this.counts = new HashMap<>();
+		}
+
+		@Override
+		public void contextProved(Context context, Proof proof)
+		{
+			Search search = running.get(context.getUuid());
+			if (search != null)
+				events.add(new Event(search, EventKind.Proved, proof));
+		}
+
+		@Override
+		public void contextDiscarded(Context context)
+		{
+			Search search = running.get(context.getUuid());
+			if (search != null)
+				events.add(new Event(search, EventKind.Discarded, null));
+		}
+
+		@Override
+		public void contextExpanded(Context context, int queueSize)
+		{
+			Search search = running.get(context.getUuid());
+			if (search != null)
+			{
+				search.expanded.incrementAndGet();
+				if (queueSize > maxQueueSize && !search.overflown)
+				{
+					search.overflown = true;
+					events.add(new Event(search, EventKind.Overflown, null));
+				}
+			}
+		}
+
+		private void start(Search search)
+		{
+			search.startTime = System.nanoTime();
+			running.put(search.context.getUuid(), search);
+			proofFinder.addToProvingPool(search.context);
+		}
+
+		private void finish(Search search, Result result)
+		{
+			long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - search.startTime);
+			running.remove(search.context.getUuid());
+			counts.merge(result, 1, Integer::sum);
+			report.println(search.context.getUuid() + "\t" + search.identifier + "\t" + result.tag + "\t" + search.expanded.get() + "\t" + time);
+			report.flush();
+		}
+
+		private Result execute(Search search, Proof proof) throws InterruptedException
+		{
+			if (dryRun)
+				return Result.Proved;
+			Transaction transaction = persistenceManager.beginTransaction();
+			try
+			{
+				proof.execute(transaction);
+				transaction.commit();
+				return Result.Proved;
+			}
+			catch (ExecutionException | RuntimeException e)
+			{
+				logger.error("Error executing the proof of context " + search.context.getUuid(), e);
+				return Result.Failed;
+			}
+			finally
+			{
+				transaction.abort();
+			}
+		}
+
+		private void handle(Event event) throws InterruptedException
+		{
+			Search search = event.search;
+			if (running.get(search.context.getUuid()) != search)
+				return;
+			switch (event.kind)
+			{
+			case Proved:
+				finish(search, execute(search, event.proof));
+				break;
+			case Discarded:
+				finish(search, Result.Discarded);
+				break;
+			case Overflown:
+				if (proofFinder.removeFromProvingPool(search.context))
+					finish(search, Result.Discarded);
+				break;
+			}
+		}
+
+		private void run(Queue<Search> pending) throws InterruptedException
+		{
+			proofFinder.addListener(this);
+			try
+			{
+				while (!pending.isEmpty() || !running.isEmpty())
+				{
+					while (running.size() < parallelism && !pending.isEmpty())
+						start(pending.poll());
+					long now = System.nanoTime();
+					long wait = timeout;
+					for (Search search : running.values())
+						wait = Math.min(wait, search.startTime + timeout - now);
+					Event event = events.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+					if (event != null)
+						handle(event);
+					now = System.nanoTime();
+					for (Search search : new ArrayList<>(running.values()))
+						if (now - search.startTime >= timeout && proofFinder.removeFromProvingPool(search.context))
+							finish(search, Result.Timeout);
+				}
+			}
+			finally
+			{
+				proofFinder.removeListener(this);
+			}
+		}
+	}
+
+	public void execute() throws ArgumentsException, InterruptedException, IOException
+	{
+		if (version)
+		{
+			System.out.println(VersionManager.getVersion());
+			return;
+		}
+		if (help)
+		{
+			printHelp();
+			return;
+		}
+		BerkeleyDBPersistenceConfiguration configuration = new BerkeleyDBPersistenceConfiguration();
+		configuration.setDbFile(dbFile);
+		configuration.setAllowCreate(false);
+		configuration.setReadOnly(dryRun);
+		configuration.setAllowUpgrade(false);
+		BerkeleyDBPersistenceManager persistenceManager = new BerkeleyDBPersistenceManager(configuration);
+		try
+		{
+			Queue<Search> pending = new ArrayDeque<>();
+			Transaction transaction = persistenceManager.beginTransaction();
+			try
+			{
+				Collection<Context> leaves = new ArrayList<>();
+				for (RootContext rootContext : rootContexts(persistenceManager, transaction))
+					collectLeaves(transaction, rootContext, namespacePattern == null, leaves);
+				for (Context context : leaves)
+					pending.add(new Search(transaction, context));
+			}
+			finally
+			{
+				transaction.abort();
+			}
+			logger.info("Searching proofs for " + pending.size() + " contexts");
+			ProofFinder proofFinder = new ProofFinder(persistenceManager);
+			try
+			{
+				proofFinder.setParallelism(parallelism);
+				proofFinder.setThrottle(throttle);
+				// The queue size budget is enforced per context by the dispatcher.
+				proofFinder.setMaxTotalSize(Integer.MAX_VALUE);
+				if (memoFile != null)
+					proofFinder.openMemo(memoFile);
+				PrintStream report = reportFile == null ? System.out : new PrintStream(reportFile);
+				try
+				{
+					Dispatcher dispatcher = new Dispatcher(persistenceManager, proofFinder, report);
+					dispatcher.run(pending);
+					logger.info("Proof search finished: " + dispatcher.counts);
+				}
+				finally
+				{
+					if (report != System.out)
+						report.close();
+				}
+			}
+			finally
+			{
+				proofFinder.shutdown();
+			}
+		}
+		finally
+		{
+			persistenceManager.close();
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		try
+		{
+			BerkeleyDBAletheiaProofFinderTool tool = new BerkeleyDBAletheiaProofFinderTool(new CommandLineArguments(args));
+			tool.execute();
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+}
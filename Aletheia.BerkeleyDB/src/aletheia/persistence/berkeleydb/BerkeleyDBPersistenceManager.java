@@ -59,6 +59,7 @@ import aletheia.model.statement.Context;
 import aletheia.model.statement.Declaration;
 import aletheia.model.statement.Statement;
 import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.Term;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
 import aletheia.persistence.berkeleydb.collections.authority.BerkeleyDBDelegateAuthorizerByAuthorizerMap;
@@ -103,6 +104,7 @@ import aletheia.persistence.berkeleydb.collections.peertopeer.BerkeleyDBHookList
 import aletheia.persistence.berkeleydb.collections.peertopeer.BerkeleyDBNodeDeferredMessagesByNodeMap;
 import aletheia.persistence.berkeleydb.collections.peertopeer.BerkeleyDBNodeDeferredMessagesByRecipientCollection;
 import aletheia.persistence.berkeleydb.collections.peertopeer.BerkeleyDBNodeDeferredMessagesMap;
+import aletheia.persistence.berkeleydb.collections.statement.BerkeleyDBAncestorStatementsByTerm;
 import aletheia.persistence.berkeleydb.collections.statement.BerkeleyDBAssumptionList;
 import aletheia.persistence.berkeleydb.collections.statement.BerkeleyDBContextLocalIdentifierToStatement;
 import aletheia.persistence.berkeleydb.collections.statement.BerkeleyDBContextLocalStatementToIdentifier;
@@ -679,7 +681,12 @@ public class BerkeleyDBPersistenceManager extends PersistenceManager
 
 	private void putStatementEntity(BerkeleyDBTransaction transaction, BerkeleyDBStatementEntity entity)
 	{
-		transaction.putNoReturn(getEntityStore().statementEntityPrimaryIndex(), entity);
+		evictCachedStatement(transaction, entity.getUuid(), entity.getIdentifier());
+		statementEntityChanged(transaction, entity.getUuid(), entity.getContextUuid());
+		if (!isDependencyGraphOpen())
+			transaction.putNoReturn(getEntityStore().statementEntityPrimaryIndex(), entity);
+		else if (transaction.put(getEntityStore().statementEntityPrimaryIndex(), entity) == null)
+			statementEntityAdded(transaction, entity);
 	}
 
 	@Override
@@ -690,7 +697,13 @@ public class BerkeleyDBPersistenceManager extends PersistenceManager
 
 	private void deleteStatementEntity(BerkeleyDBTransaction transaction, UUIDKey uuidKey)
 	{
-		transaction.delete(getEntityStore().statementEntityPrimaryIndex(), uuidKey);
+		evictCachedStatement(transaction, uuidKey.uuid(), null);
+		BerkeleyDBStatementEntity entity = transaction.get(getEntityStore().statementEntityPrimaryIndex(), uuidKey);
+		if (transaction.delete(getEntityStore().statementEntityPrimaryIndex(), uuidKey) && entity != null)
+		{
+			statementEntityChanged(transaction, entity.getUuid(), entity.getContextUuid());
+			statementEntityDeleted(transaction, uuidKey.uuid());
+		}
 	}
 
 	@Override
@@ -770,6 +783,12 @@ public class BerkeleyDBPersistenceManager extends PersistenceManager
 		return new BerkeleyDBDescendantContextsByConsequent(this, (BerkeleyDBTransaction) transaction, context, consequent);
 	}
 
+	@Override
+	public BerkeleyDBAncestorStatementsByTerm ancestorStatementsByTerm(Transaction transaction, Context context, Term term)
+	{
+		return new BerkeleyDBAncestorStatementsByTerm(this, (BerkeleyDBTransaction) transaction, context, term);
+	}
+
 	@Override
 	public BerkeleyDBUnfoldingContextsByDeclaration unfoldingContextsByDeclaration(Transaction transaction, Declaration declaration)
 	{
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.berkeleydb.collections.statement;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+import com.sleepycat.persist.SecondaryIndex;
+
+import aletheia.model.statement.Context;
+import aletheia.model.statement.Statement;
+import aletheia.model.term.Term;
+import aletheia.model.term.TermDigest;
+import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
+import aletheia.persistence.berkeleydb.BerkeleyDBTransaction;
+import aletheia.persistence.berkeleydb.entities.UUIDKey;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBContextEntity;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity.UUIDKeyRootTermDigest;
+import aletheia.persistence.collections.statement.AncestorStatementsByTerm;
+import aletheia.utilities.collections.AbstractCloseableSet;
+import aletheia.utilities.collections.CloseableIterator;
+
+/**
+ * Scans the keys of the statements of the whole context tree with the given
+ * term digest and keeps the ones whose context is in the ancestor path of our
+ * context, so the statements out of scope are never loaded. The statements in
+ * scope are loaded and kept only if their term is equal to the given one.
+ */
+public class BerkeleyDBAncestorStatementsByTerm extends AbstractCloseableSet<Statement> implements AncestorStatementsByTerm
+{
+	private final BerkeleyDBPersistenceManager persistenceManager;
+	private final SecondaryIndex<UUIDKeyRootTermDigest, UUIDKey, BerkeleyDBStatementEntity> statementEntityRootTermDigestSecondaryIndex;
+	private final BerkeleyDBTransaction transaction;
+	private final Context context;
+	private final Term term;
+	private final UUIDKey uuidKeyRoot;
+	private final Set<UUIDKey> uuidKeyAncestors;
+	private final UUIDKey termDigest;
+
+	public BerkeleyDBAncestorStatementsByTerm(BerkeleyDBPersistenceManager persistenceManager, BerkeleyDBTransaction transaction, Context context, Term term)
+	{
+		super();
+		try
+		{
+			this.persistenceManager = persistenceManager;
+			this.statementEntityRootTermDigestSecondaryIndex = persistenceManager.getEntityStore().statementEntityRootTermDigestSecondaryIndex();
+			this.transaction = transaction;
+			this.context = context;
+			this.term = term;
+			BerkeleyDBContextEntity contextEntity = (BerkeleyDBContextEntity) context.getEntity();
+			this.uuidKeyRoot = contextEntity.getUuidKeyRoot();
+			this.uuidKeyAncestors = new HashSet<>(contextEntity.getUuidKeyAncestors());
+			this.termDigest = new UUIDKey(TermDigest.digest(term));
+		}
+		catch (DatabaseException e)
+		{
+			throw persistenceManager.convertDatabaseException(e);
+		}
+	}
+
+	@Override
+	public BerkeleyDBPersistenceManager getPersistenceManager()
+	{
+		return persistenceManager;
+	}
+
+	@Override
+	public BerkeleyDBTransaction getTransaction()
+	{
+		return transaction;
+	}
+
+	@Override
+	public Context getContext()
+	{
+		return context;
+	}
+
+	@Override
+	public Term getTerm()
+	{
+		return term;
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		if (!(o instanceof Statement))
+			return false;
+		Statement statement = (Statement) o;
+		UUIDKey uuidKeyContext = ((BerkeleyDBStatementEntity) statement.getEntity()).getUuidKeyContext();
+		if (uuidKeyContext == null || !uuidKeyAncestors.contains(uuidKeyContext) || !statement.getTerm().equals(term))
+			return false;
+		return persistenceManager.getStatementEntity(transaction, statement.getUuid()) != null;
+	}
+
+	@Override
+	public CloseableIterator<Statement> iterator()
+	{
+		final EntityCursor<UUIDKeyRootTermDigest> cursor = transaction.keys(statementEntityRootTermDigestSecondaryIndex,
+				UUIDKeyRootTermDigest.minValue(uuidKeyRoot, termDigest), true, UUIDKeyRootTermDigest.maxValue(uuidKeyRoot, termDigest), true);
+		return new CloseableIterator<>()
+		{
+			Statement next;
+
+			{
+				advance();
+			}
+
+			private void advance()
+			{
+				next = null;
+				while (true)
+				{
+					UUIDKeyRootTermDigest key = transaction.next(cursor);
+					if (key == null)
+					{
+						transaction.close(cursor);
+						break;
+					}
+					if (uuidKeyAncestors.contains(key.getUuidKeyContext()))
+					{
+						Statement statement = persistenceManager.getStatement(transaction, key.getUuidKey().uuid());
+						if (statement != null && statement.getTerm().equals(term))
+						{
+							next = statement;
+							break;
+						}
+					}
+				}
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return next != null;
+			}
+
+			@Override
+			public Statement next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+				Statement statement = next;
+				advance();
+				return statement;
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close()
+			{
+				transaction.close(cursor);
+			}
+
+			@Override
+			protected void finalize() throws Throwable
+			{
+				close();
+			}
+		};
+	}
+
+	@Override
+	public int size()
+	{
+		int j = 0;
+		for (Iterator<Statement> i = iterator(); i.hasNext(); i.next())
+			j++;
+		return j;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		CloseableIterator<Statement> i = iterator();
+		try
+		{
+			return !i.hasNext();
+		}
+		finally
+		{
+			i.close();
+		}
+	}
+
+}
@@ -116,7 +116,7 @@ public abstract class BerkeleyDBGenericStatementsMap<S extends Statement, E exte
 		E entity = transaction.get(index, uuidKey);
 		if (entity == null)
 			return null;
-		transaction.delete(index, uuidKey);
+		persistenceManager.deleteStatementEntity(transaction, var.getUuid());
 		return entityToStatement(entity);
 	}
 
@@ -29,11 +29,12 @@ import com.sleepycat.persist.SecondaryIndex;
 import aletheia.model.statement.Context;
 import aletheia.model.statement.Statement;
 import aletheia.model.term.Term;
+import aletheia.model.term.TermDigest;
 import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
 import aletheia.persistence.berkeleydb.BerkeleyDBTransaction;
 import aletheia.persistence.berkeleydb.entities.UUIDKey;
 import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity;
-import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity.UUIDKeyTermHash;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity.UUIDKeyTermDigest;
 import aletheia.persistence.collections.statement.LocalStatementsByTerm;
 import aletheia.utilities.collections.AbstractCloseableMap;
 import aletheia.utilities.collections.AbstractCloseableSet;
@@ -43,7 +44,7 @@ import aletheia.utilities.collections.CloseableSet;
 public class BerkeleyDBLocalStatementsByTerm extends AbstractCloseableMap<Term, CloseableSet<Statement>> implements LocalStatementsByTerm
 {
 	private final BerkeleyDBPersistenceManager persistenceManager;
-	private final SecondaryIndex<UUIDKeyTermHash, UUIDKey, BerkeleyDBStatementEntity> statementEntityTermHashSecondaryIndex;
+	private final SecondaryIndex<UUIDKeyTermDigest, UUIDKey, BerkeleyDBStatementEntity> statementEntityTermDigestSecondaryIndex;
 	private final BerkeleyDBTransaction transaction;
 	private final Context context;
 	private final UUIDKey uuidKeyContext;
@@ -54,7 +55,7 @@ public class BerkeleyDBLocalStatementsByTerm extends AbstractCloseableMap<Term,
 		try
 		{
 			this.persistenceManager = persistenceManager;
-			this.statementEntityTermHashSecondaryIndex = persistenceManager.getEntityStore().statementEntityTermHashSecondaryIndex();
+			this.statementEntityTermDigestSecondaryIndex = persistenceManager.getEntityStore().statementEntityTermDigestSecondaryIndex();
 			this.transaction = transaction;
 			this.context = context;
 			this.uuidKeyContext = ((BerkeleyDBStatementEntity) context.getEntity()).getUuidKey();
@@ -87,11 +88,13 @@ public class BerkeleyDBLocalStatementsByTerm extends AbstractCloseableMap<Term,
 	private class FilteredSet extends AbstractCloseableSet<Statement>
 	{
 		private final Term term;
+		private final UUIDKey termDigest;
 
 		public FilteredSet(Term term)
 		{
 			super();
 			this.term = term;
+			this.termDigest = new UUIDKey(TermDigest.digest(term));
 		}
 
 		@Override
@@ -108,11 +111,9 @@ public class BerkeleyDBLocalStatementsByTerm extends AbstractCloseableMap<Term,
 		@Override
 		public CloseableIterator<Statement> iterator()
 		{
-			UUIDKeyTermHash uuidKeyTermHash = new UUIDKeyTermHash();
-			uuidKeyTermHash.setUUIDKey(uuidKeyContext);
-			uuidKeyTermHash.setTermHash(term.hashCode());
-			final EntityCursor<BerkeleyDBStatementEntity> cursor = transaction.entities(statementEntityTermHashSecondaryIndex, uuidKeyTermHash, true,
-					uuidKeyTermHash, true);
+			UUIDKeyTermDigest uuidKeyTermDigest = new UUIDKeyTermDigest(uuidKeyContext, termDigest);
+			final EntityCursor<BerkeleyDBStatementEntity> cursor = transaction.entities(statementEntityTermDigestSecondaryIndex, uuidKeyTermDigest, true,
+					uuidKeyTermDigest, true);
 			return new CloseableIterator<>()
 			{
 				BerkeleyDBStatementEntity next;
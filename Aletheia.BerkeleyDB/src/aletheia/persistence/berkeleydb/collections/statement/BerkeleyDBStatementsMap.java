@@ -23,6 +23,7 @@ import com.sleepycat.je.DatabaseException;
 import com.sleepycat.persist.PrimaryIndex;
 
 import aletheia.model.statement.Statement;
+import aletheia.model.term.IdentifiableVariableTerm;
 import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
 import aletheia.persistence.berkeleydb.BerkeleyDBTransaction;
 import aletheia.persistence.berkeleydb.entities.UUIDKey;
@@ -54,4 +55,12 @@ public class BerkeleyDBStatementsMap extends BerkeleyDBGenericStatementsMap<Stat
 		return (PrimaryIndex<UUIDKey, BerkeleyDBStatementEntity>) super.getIndex();
 	}
 
+	@Override
+	public Statement get(Object key)
+	{
+		if (!(key instanceof IdentifiableVariableTerm))
+			return null;
+		return getPersistenceManager().getStatement(getTransaction(), ((IdentifiableVariableTerm) key).getUuid());
+	}
+
 }
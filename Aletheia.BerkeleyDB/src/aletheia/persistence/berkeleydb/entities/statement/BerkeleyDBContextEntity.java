@@ -71,9 +71,27 @@ public class BerkeleyDBContextEntity extends BerkeleyDBStatementEntity implement
 	@Override
 	public void initializeContextData(ContextEntity contextEntity)
 	{
+		super.initializeContextData(contextEntity);
 		initializeUuidKeyAncestorsConsequentHash((BerkeleyDBContextEntity) contextEntity);
 	}
 
+	/**
+	 * The UUIDs of the ancestors of this context, from the root context down to
+	 * this context itself.
+	 */
+	public List<UUIDKey> getUuidKeyAncestors()
+	{
+		List<UUIDKey> uuidKeyAncestors = new ArrayList<>(uuidKeyAncestorsConsequentHash.size());
+		for (UUIDKeyTermHash uuidKeyTermHash : uuidKeyAncestorsConsequentHash)
+			uuidKeyAncestors.add(uuidKeyTermHash.getUUIDKey());
+		return uuidKeyAncestors;
+	}
+
+	public UUIDKey getUuidKeyRoot()
+	{
+		return uuidKeyAncestorsConsequentHash.get(0).getUUIDKey();
+	}
+
 	@Override
 	public void setUuidKeyContext(UUIDKey uuidKeyContext)
 	{
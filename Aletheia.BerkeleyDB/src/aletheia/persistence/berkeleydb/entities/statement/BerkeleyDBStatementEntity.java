@@ -37,6 +37,7 @@ import aletheia.model.identifier.NodeNamespace.InvalidNameException;
 import aletheia.model.identifier.RootNamespace;
 import aletheia.model.parameteridentification.ParameterIdentification;
 import aletheia.model.term.IdentifiableVariableTerm;
+import aletheia.model.term.TermDigest;
 import aletheia.persistence.berkeleydb.entities.UUIDKey;
 import aletheia.persistence.entities.statement.ContextEntity;
 import aletheia.persistence.entities.statement.RootContextEntity;
@@ -44,7 +45,7 @@ import aletheia.persistence.entities.statement.StatementEntity;
 import aletheia.utilities.collections.Bijection;
 import aletheia.utilities.collections.BijectionSet;
 
-@Entity(version = 2)
+@Entity(version = 5)
 public abstract class BerkeleyDBStatementEntity implements StatementEntity
 {
 	@PrimaryKey
@@ -118,12 +119,242 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 
 	}
 
-	public static final String uuidKeyTermHash_FieldName = "uuidKeyTermHash";
-	@SecondaryKey(name = uuidKeyTermHash_FieldName, relate = Relationship.MANY_TO_ONE)
-	private UUIDKeyTermHash uuidKeyTermHash;
+	/**
+	 * Key of the statements of a context by their term: the UUID of the
+	 * context followed by the {@link TermDigest} of the term. Unlike
+	 * {@link UUIDKeyTermHash}, distinct terms never share a key, so a range
+	 * scan on it yields exactly the statements of the context whose term is
+	 * the given one.
+	 */
+	@Persistent(version = 0)
+	public static class UUIDKeyTermDigest
+	{
+		@KeyField(1)
+		private long mostSigBits;
+
+		@KeyField(2)
+		private long leastSigBits;
+
+		@KeyField(3)
+		private long digestMostSigBits;
+
+		@KeyField(4)
+		private long digestLeastSigBits;
+
+		public UUIDKeyTermDigest()
+		{
+			super();
+		}
+
+		public UUIDKeyTermDigest(UUIDKey uuidKey, UUIDKey termDigest)
+		{
+			super();
+			setUUIDKey(uuidKey);
+			setTermDigest(termDigest);
+		}
+
+		public UUIDKey getUUIDKey()
+		{
+			return new UUIDKey(mostSigBits, leastSigBits);
+		}
+
+		public void setUUIDKey(UUIDKey uuidKey)
+		{
+			this.mostSigBits = uuidKey.getMostSigBits();
+			this.leastSigBits = uuidKey.getLeastSigBits();
+		}
+
+		public UUIDKey getTermDigest()
+		{
+			return new UUIDKey(digestMostSigBits, digestLeastSigBits);
+		}
+
+		public void setTermDigest(UUIDKey termDigest)
+		{
+			this.digestMostSigBits = termDigest.getMostSigBits();
+			this.digestLeastSigBits = termDigest.getLeastSigBits();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (int) (leastSigBits ^ (leastSigBits >>> 32));
+			result = prime * result + (int) (mostSigBits ^ (mostSigBits >>> 32));
+			result = prime * result + (int) (digestLeastSigBits ^ (digestLeastSigBits >>> 32));
+			result = prime * result + (int) (digestMostSigBits ^ (digestMostSigBits >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if ((obj == null) || (getClass() != obj.getClass()))
+				return false;
+			UUIDKeyTermDigest other = (UUIDKeyTermDigest) obj;
+			if ((leastSigBits != other.leastSigBits) || (mostSigBits != other.mostSigBits) || (digestLeastSigBits != other.digestLeastSigBits)
+					|| (digestMostSigBits != other.digestMostSigBits))
+				return false;
+			return true;
+		}
+
+	}
+
+	public static final String uuidKeyTermDigest_FieldName = "uuidKeyTermDigest";
+	@SecondaryKey(name = uuidKeyTermDigest_FieldName, relate = Relationship.MANY_TO_ONE)
+	private UUIDKeyTermDigest uuidKeyTermDigest;
+
+	/**
+	 * Key of the statements of a whole tree of contexts by their term: the UUID
+	 * of the root context and the {@link TermDigest} of the term, followed by
+	 * the UUIDs of the context and the statement itself. A range scan on the
+	 * first two fields yields the statements of that term in the tree, and the
+	 * statements in scope of a given context can be told apart by the context
+	 * field without loading them.
+	 */
+	@Persistent(version = 0)
+	public static class UUIDKeyRootTermDigest
+	{
+		@KeyField(1)
+		private long rootMostSigBits;
+
+		@KeyField(2)
+		private long rootLeastSigBits;
+
+		@KeyField(3)
+		private long digestMostSigBits;
+
+		@KeyField(4)
+		private long digestLeastSigBits;
+
+		@KeyField(5)
+		private long contextMostSigBits;
+
+		@KeyField(6)
+		private long contextLeastSigBits;
+
+		@KeyField(7)
+		private long mostSigBits;
+
+		@KeyField(8)
+		private long leastSigBits;
+
+		public UUIDKeyRootTermDigest()
+		{
+			super();
+		}
+
+		public UUIDKey getUuidKeyRoot()
+		{
+			return new UUIDKey(rootMostSigBits, rootLeastSigBits);
+		}
+
+		public void setUuidKeyRoot(UUIDKey uuidKeyRoot)
+		{
+			this.rootMostSigBits = uuidKeyRoot.getMostSigBits();
+			this.rootLeastSigBits = uuidKeyRoot.getLeastSigBits();
+		}
+
+		public UUIDKey getTermDigest()
+		{
+			return new UUIDKey(digestMostSigBits, digestLeastSigBits);
+		}
+
+		public void setTermDigest(UUIDKey termDigest)
+		{
+			this.digestMostSigBits = termDigest.getMostSigBits();
+			this.digestLeastSigBits = termDigest.getLeastSigBits();
+		}
+
+		public UUIDKey getUuidKeyContext()
+		{
+			return new UUIDKey(contextMostSigBits, contextLeastSigBits);
+		}
+
+		public void setUuidKeyContext(UUIDKey uuidKeyContext)
+		{
+			this.contextMostSigBits = uuidKeyContext.getMostSigBits();
+			this.contextLeastSigBits = uuidKeyContext.getLeastSigBits();
+		}
+
+		public UUIDKey getUuidKey()
+		{
+			return new UUIDKey(mostSigBits, leastSigBits);
+		}
+
+		public void setUuidKey(UUIDKey uuidKey)
+		{
+			this.mostSigBits = uuidKey.getMostSigBits();
+			this.leastSigBits = uuidKey.getLeastSigBits();
+		}
+
+		private static UUIDKeyRootTermDigest bound(UUIDKey uuidKeyRoot, UUIDKey termDigest, long sigBits)
+		{
+			UUIDKeyRootTermDigest bound = new UUIDKeyRootTermDigest();
+			bound.setUuidKeyRoot(uuidKeyRoot);
+			bound.setTermDigest(termDigest);
+			bound.contextMostSigBits = sigBits;
+			bound.contextLeastSigBits = sigBits;
+			bound.mostSigBits = sigBits;
+			bound.leastSigBits = sigBits;
+			return bound;
+		}
+
+		public static UUIDKeyRootTermDigest minValue(UUIDKey uuidKeyRoot, UUIDKey termDigest)
+		{
+			return bound(uuidKeyRoot, termDigest, Long.MIN_VALUE);
+		}
+
+		public static UUIDKeyRootTermDigest maxValue(UUIDKey uuidKeyRoot, UUIDKey termDigest)
+		{
+			return bound(uuidKeyRoot, termDigest, Long.MAX_VALUE);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (int) (rootLeastSigBits ^ (rootLeastSigBits >>> 32));
+			result = prime * result + (int) (rootMostSigBits ^ (rootMostSigBits >>> 32));
+			result = prime * result + (int) (digestLeastSigBits ^ (digestLeastSigBits >>> 32));
+			result = prime * result + (int) (digestMostSigBits ^ (digestMostSigBits >>> 32));
+			result = prime * result + (int) (contextLeastSigBits ^ (contextLeastSigBits >>> 32));
+			result = prime * result + (int) (contextMostSigBits ^ (contextMostSigBits >>> 32));
+			result = prime * result + (int) (leastSigBits ^ (leastSigBits >>> 32));
+			result = prime * result + (int) (mostSigBits ^ (mostSigBits >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if ((obj == null) || (getClass() != obj.getClass()))
+				return false;
+			UUIDKeyRootTermDigest other = (UUIDKeyRootTermDigest) obj;
+			if ((rootLeastSigBits != other.rootLeastSigBits) || (rootMostSigBits != other.rootMostSigBits)
+					|| (digestLeastSigBits != other.digestLeastSigBits) || (digestMostSigBits != other.digestMostSigBits)
+					|| (contextLeastSigBits != other.contextLeastSigBits) || (contextMostSigBits != other.contextMostSigBits)
+					|| (leastSigBits != other.leastSigBits) || (mostSigBits != other.mostSigBits))
+				return false;
+			return true;
+		}
+
+	}
+
+	public static final String uuidKeyRootTermDigest_FieldName = "uuidKeyRootTermDigest";
+	@SecondaryKey(name = uuidKeyRootTermDigest_FieldName, relate = Relationship.ONE_TO_ONE)
+	private UUIDKeyRootTermDigest uuidKeyRootTermDigest;
 
 	private IdentifiableVariableTerm variable;
 
+	private UUIDKey termDigest;
+
 	private ParameterIdentification termParameterIdentification;
 
 	public static final String uuidKeyDependencies_FieldName = "uuidKeyDependencies";
@@ -484,9 +715,9 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 	{
 		super();
 		if (!(this instanceof RootContextEntity))
-			this.uuidKeyTermHash = new UUIDKeyTermHash();
+			this.uuidKeyTermDigest = new UUIDKeyTermDigest();
 		else
-			this.uuidKeyTermHash = null;
+			this.uuidKeyTermDigest = null;
 		this.uuidKeyDependencies = new HashSet<>();
 		this.localSortKey = new LocalSortKey();
 	}
@@ -499,6 +730,8 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 	private void setUuidKey(UUIDKey uuidKey)
 	{
 		this.uuidKey = uuidKey;
+		if (uuidKeyRootTermDigest != null)
+			uuidKeyRootTermDigest.setUuidKey(uuidKey);
 	}
 
 	public UUIDKey getUuidKeyContext()
@@ -509,8 +742,10 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 	public void setUuidKeyContext(UUIDKey uuidKeyContext)
 	{
 		this.uuidKeyContext = uuidKeyContext;
-		if (uuidKeyTermHash != null)
-			uuidKeyTermHash.setUUIDKey(uuidKeyContext);
+		if (uuidKeyTermDigest != null)
+			uuidKeyTermDigest.setUUIDKey(uuidKeyContext);
+		if (uuidKeyRootTermDigest != null)
+			uuidKeyRootTermDigest.setUuidKeyContext(uuidKeyContext);
 		if (uuidContextIdentifier != null)
 			uuidContextIdentifier.setUUIDKey(uuidKeyContext);
 		localSortKey.setUuidKeyContext(uuidKeyContext);
@@ -526,8 +761,19 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 	public void setVariable(IdentifiableVariableTerm variable)
 	{
 		this.variable = variable;
-		if (uuidKeyTermHash != null)
-			uuidKeyTermHash.setTermHash(variable.getType().hashCode());
+		this.termDigest = new UUIDKey(TermDigest.digest(variable.getType()));
+		if (uuidKeyTermDigest != null)
+			uuidKeyTermDigest.setTermDigest(termDigest);
+		if (uuidKeyRootTermDigest != null)
+			uuidKeyRootTermDigest.setTermDigest(termDigest);
+	}
+
+	/**
+	 * The {@link TermDigest} of the term of this statement.
+	 */
+	public UUIDKey getTermDigest()
+	{
+		return termDigest;
 	}
 
 	@Override
@@ -601,8 +847,10 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 		result = prime * result + ((uuidKey == null) ? 0 : uuidKey.hashCode());
 		result = prime * result + ((uuidKeyContext == null) ? 0 : uuidKeyContext.hashCode());
 		result = prime * result + ((uuidKeyDependencies == null) ? 0 : uuidKeyDependencies.hashCode());
-		result = prime * result + ((uuidKeyTermHash == null) ? 0 : uuidKeyTermHash.hashCode());
+		result = prime * result + ((uuidKeyTermDigest == null) ? 0 : uuidKeyTermDigest.hashCode());
+		result = prime * result + ((uuidKeyRootTermDigest == null) ? 0 : uuidKeyRootTermDigest.hashCode());
 		result = prime * result + ((variable == null) ? 0 : variable.hashCode());
+		result = prime * result + ((termDigest == null) ? 0 : termDigest.hashCode());
 		return result;
 	}
 
@@ -660,12 +908,19 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 		}
 		else if (!uuidKeyDependencies.equals(other.uuidKeyDependencies))
 			return false;
-		if (uuidKeyTermHash == null)
+		if (uuidKeyTermDigest == null)
 		{
-			if (other.uuidKeyTermHash != null)
+			if (other.uuidKeyTermDigest != null)
 				return false;
 		}
-		else if (!uuidKeyTermHash.equals(other.uuidKeyTermHash))
+		else if (!uuidKeyTermDigest.equals(other.uuidKeyTermDigest))
+			return false;
+		if (uuidKeyRootTermDigest == null)
+		{
+			if (other.uuidKeyRootTermDigest != null)
+				return false;
+		}
+		else if (!uuidKeyRootTermDigest.equals(other.uuidKeyRootTermDigest))
 			return false;
 		if (variable == null)
 		{
@@ -674,6 +929,13 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 		}
 		else if (!variable.equals(other.variable))
 			return false;
+		if (termDigest == null)
+		{
+			if (other.termDigest != null)
+				return false;
+		}
+		else if (!termDigest.equals(other.termDigest))
+			return false;
 		return true;
 	}
 
@@ -731,9 +993,24 @@ public abstract class BerkeleyDBStatementEntity implements StatementEntity
 		return localSortKey;
 	}
 
+	public UUIDKeyRootTermDigest getUuidKeyRootTermDigest()
+	{
+		return uuidKeyRootTermDigest;
+	}
+
 	@Override
 	public void initializeContextData(ContextEntity contextEntity)
 	{
+		if (contextEntity == null)
+			this.uuidKeyRootTermDigest = null;
+		else
+		{
+			this.uuidKeyRootTermDigest = new UUIDKeyRootTermDigest();
+			this.uuidKeyRootTermDigest.setUuidKeyRoot(((BerkeleyDBContextEntity) contextEntity).getUuidKeyRoot());
+			this.uuidKeyRootTermDigest.setTermDigest(termDigest);
+			this.uuidKeyRootTermDigest.setUuidKeyContext(uuidKeyContext);
+			this.uuidKeyRootTermDigest.setUuidKey(uuidKey);
+		}
 	}
 
 }
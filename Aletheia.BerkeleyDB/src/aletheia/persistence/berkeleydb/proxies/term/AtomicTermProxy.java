@@ -23,8 +23,7 @@ import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.AtomicTerm;
 
-@Persistent(proxyFor = AtomicTerm.class, version = 0)
+@Persistent(proxyFor = AtomicTerm.class, version = 1)
 public abstract class AtomicTermProxy<T extends AtomicTerm> extends SimpleTermProxy<T>
 {
-
 }
@@ -22,26 +22,8 @@ package aletheia.persistence.berkeleydb.proxies.term;
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.CastTypeTerm;
-import aletheia.model.term.Term;
 
-@Persistent(proxyFor = CastTypeTerm.class, version = 1)
+@Persistent(proxyFor = CastTypeTerm.class, version = 2)
 public abstract class CastTypeTermProxy<T extends CastTypeTerm> extends AtomicTermProxy<T>
 {
-	private Term term;
-
-	protected Term getTerm()
-	{
-		return term;
-	}
-
-	@Override
-	public void initializeProxy(T castTypeTerm)
-	{
-		super.initializeProxy(castTypeTerm);
-		term = castTypeTerm.getTerm();
-	}
-
-	@Override
-	public abstract T convertProxy();
-
 }
@@ -22,45 +22,15 @@ package aletheia.persistence.berkeleydb.proxies.term;
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.CompositionTerm;
-import aletheia.model.term.CompositionTerm.CompositionTypeException;
-import aletheia.model.term.SimpleTerm;
-import aletheia.model.term.Term;
 
-@Persistent(proxyFor = CompositionTerm.class, version = 0)
+@Persistent(proxyFor = CompositionTerm.class, version = 1)
 public class CompositionTermProxy extends SimpleTermProxy<CompositionTerm>
 {
-	private SimpleTerm head;
-	private Term tail;
-
-	protected SimpleTerm getHead()
-	{
-		return head;
-	}
-
-	protected Term getTail()
-	{
-		return tail;
-	}
-
-	@Override
-	public void initializeProxy(CompositionTerm compositionTerm)
-	{
-		super.initializeProxy(compositionTerm);
-		head = compositionTerm.getHead();
-		tail = compositionTerm.getTail();
-	}
 
 	@Override
-	public CompositionTerm convertProxy()
+	protected Class<CompositionTerm> termClass()
 	{
-		try
-		{
-			return new CompositionTerm(head, tail);
-		}
-		catch (CompositionTypeException e)
-		{
-			throw new ProxyConversionException(e);
-		}
+		return CompositionTerm.class;
 	}
 
 }
@@ -22,52 +22,15 @@ package aletheia.persistence.berkeleydb.proxies.term;
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.FoldingCastTypeTerm;
-import aletheia.model.term.FoldingCastTypeTerm.FoldingCastTypeException;
-import aletheia.model.term.IdentifiableVariableTerm;
-import aletheia.model.term.Term;
 
-@Persistent(proxyFor = FoldingCastTypeTerm.class, version = 0)
+@Persistent(proxyFor = FoldingCastTypeTerm.class, version = 1)
 public class FoldingCastTypeTermProxy extends CastTypeTermProxy<FoldingCastTypeTerm>
 {
-	private Term type;
-	private IdentifiableVariableTerm variable;
-	private Term value;
-
-	protected Term getType()
-	{
-		return type;
-	}
-
-	protected IdentifiableVariableTerm getVariable()
-	{
-		return variable;
-	}
-
-	protected Term getValue()
-	{
-		return value;
-	}
-
-	@Override
-	public FoldingCastTypeTerm convertProxy()
-	{
-		try
-		{
-			return new FoldingCastTypeTerm(getTerm(), getType(), getVariable(), getValue());
-		}
-		catch (FoldingCastTypeException e)
-		{
-			throw new ProxyConversionException(e);
-		}
-	}
 
 	@Override
-	public void initializeProxy(FoldingCastTypeTerm foldingCastTypeTerm)
+	protected Class<FoldingCastTypeTerm> termClass()
 	{
-		super.initializeProxy(foldingCastTypeTerm);
-		type = foldingCastTypeTerm.getType();
-		variable = foldingCastTypeTerm.getVariable();
-		value = foldingCastTypeTerm.getValue();
+		return FoldingCastTypeTerm.class;
 	}
 
 }
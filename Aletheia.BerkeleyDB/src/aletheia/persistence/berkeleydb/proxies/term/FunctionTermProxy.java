@@ -22,37 +22,15 @@ package aletheia.persistence.berkeleydb.proxies.term;
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.FunctionTerm;
-import aletheia.model.term.ParameterVariableTerm;
-import aletheia.model.term.Term;
 
-@Persistent(proxyFor = FunctionTerm.class, version = 0)
+@Persistent(proxyFor = FunctionTerm.class, version = 1)
 public class FunctionTermProxy extends TermProxy<FunctionTerm>
 {
-	private ParameterVariableTerm parameter;
-	private Term body;
-
-	protected ParameterVariableTerm getParameter()
-	{
-		return parameter;
-	}
-
-	protected Term getBody()
-	{
-		return body;
-	}
-
-	@Override
-	public void initializeProxy(FunctionTerm functionTerm)
-	{
-		super.initializeProxy(functionTerm);
-		this.parameter = functionTerm.getParameter();
-		this.body = functionTerm.getBody();
-	}
 
 	@Override
-	public FunctionTerm convertProxy()
+	protected Class<FunctionTerm> termClass()
 	{
-		return new FunctionTerm(parameter, body);
+		return FunctionTerm.class;
 	}
 
 }
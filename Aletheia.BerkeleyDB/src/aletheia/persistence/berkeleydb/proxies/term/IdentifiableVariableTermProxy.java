@@ -19,28 +19,18 @@
  ******************************************************************************/
 package aletheia.persistence.berkeleydb.proxies.term;
 
-import java.util.UUID;
-
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.IdentifiableVariableTerm;
 
-@Persistent(proxyFor = IdentifiableVariableTerm.class, version = 0)
+@Persistent(proxyFor = IdentifiableVariableTerm.class, version = 1)
 public class IdentifiableVariableTermProxy extends VariableTermProxy<IdentifiableVariableTerm>
 {
-	private UUID uuid;
-
-	@Override
-	public void initializeProxy(IdentifiableVariableTerm uuidVariableTerm)
-	{
-		super.initializeProxy(uuidVariableTerm);
-		this.uuid = uuidVariableTerm.getUuid();
-	}
 
 	@Override
-	public IdentifiableVariableTerm convertProxy()
+	protected Class<IdentifiableVariableTerm> termClass()
 	{
-		return new IdentifiableVariableTerm(getType(), uuid);
+		return IdentifiableVariableTerm.class;
 	}
 
 }
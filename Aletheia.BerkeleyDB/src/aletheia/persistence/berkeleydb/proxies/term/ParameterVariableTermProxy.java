@@ -23,14 +23,14 @@ import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.ParameterVariableTerm;
 
-@Persistent(proxyFor = ParameterVariableTerm.class, version = 0)
+@Persistent(proxyFor = ParameterVariableTerm.class, version = 1)
 public class ParameterVariableTermProxy extends VariableTermProxy<ParameterVariableTerm>
 {
 
 	@Override
-	public ParameterVariableTerm convertProxy()
+	protected Class<ParameterVariableTerm> termClass()
 	{
-		return new ParameterVariableTerm(getType());
+		return ParameterVariableTerm.class;
 	}
 
 }
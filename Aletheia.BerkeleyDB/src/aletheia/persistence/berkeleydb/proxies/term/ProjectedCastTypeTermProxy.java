@@ -22,23 +22,15 @@ package aletheia.persistence.berkeleydb.proxies.term;
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.ProjectedCastTypeTerm;
-import aletheia.model.term.ProjectedCastTypeTerm.ProjectedCastTypeException;
 
-@Persistent(proxyFor = ProjectedCastTypeTerm.class, version = 1)
+@Persistent(proxyFor = ProjectedCastTypeTerm.class, version = 2)
 public class ProjectedCastTypeTermProxy extends ProjectionCastTypeTermProxy<ProjectedCastTypeTerm>
 {
 
 	@Override
-	public ProjectedCastTypeTerm convertProxy()
+	protected Class<ProjectedCastTypeTerm> termClass()
 	{
-		try
-		{
-			return new ProjectedCastTypeTerm(getTerm());
-		}
-		catch (ProjectedCastTypeException e)
-		{
-			throw new ProxyConversionException(e);
-		}
+		return ProjectedCastTypeTerm.class;
 	}
 
 }
@@ -23,8 +23,7 @@ import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.ProjectionCastTypeTerm;
 
-@Persistent(proxyFor = ProjectionCastTypeTerm.class, version = 1)
+@Persistent(proxyFor = ProjectionCastTypeTerm.class, version = 2)
 public abstract class ProjectionCastTypeTermProxy<T extends ProjectionCastTypeTerm> extends CastTypeTermProxy<T>
 {
-
 }
@@ -21,33 +21,16 @@ package aletheia.persistence.berkeleydb.proxies.term;
 
 import com.sleepycat.persist.model.Persistent;
 
-import aletheia.model.term.FunctionTerm;
 import aletheia.model.term.ProjectionTerm;
-import aletheia.model.term.ProjectionTerm.ProjectionTypeException;
 
-@Persistent(proxyFor = ProjectionTerm.class, version = 0)
+@Persistent(proxyFor = ProjectionTerm.class, version = 1)
 public class ProjectionTermProxy extends AtomicTermProxy<ProjectionTerm>
 {
-	private FunctionTerm function;
 
 	@Override
-	public void initializeProxy(ProjectionTerm projectionTerm)
+	protected Class<ProjectionTerm> termClass()
 	{
-		super.initializeProxy(projectionTerm);
-		function = projectionTerm.getFunction();
-	}
-
-	@Override
-	public ProjectionTerm convertProxy()
-	{
-		try
-		{
-			return new ProjectionTerm(function);
-		}
-		catch (ProjectionTypeException e)
-		{
-			throw new ProxyConversionException(e);
-		}
+		return ProjectionTerm.class;
 	}
 
 }
@@ -23,8 +23,7 @@ import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.SimpleTerm;
 
-@Persistent(proxyFor = SimpleTerm.class, version = 0)
+@Persistent(proxyFor = SimpleTerm.class, version = 1)
 public abstract class SimpleTermProxy<T extends SimpleTerm> extends TermProxy<T>
 {
-
 }
@@ -23,14 +23,14 @@ import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.TauTerm;
 
-@Persistent(proxyFor = TauTerm.class, version = 1)
+@Persistent(proxyFor = TauTerm.class, version = 2)
 public class TauTermProxy extends AtomicTermProxy<TauTerm>
 {
 
 	@Override
-	public TauTerm convertProxy()
+	protected Class<TauTerm> termClass()
 	{
-		return TauTerm.instance;
+		return TauTerm.class;
 	}
 
 }
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.berkeleydb.proxies.term;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import aletheia.model.term.CompositionTerm;
+import aletheia.model.term.CompositionTerm.CompositionTypeException;
+import aletheia.model.term.FoldingCastTypeTerm;
+import aletheia.model.term.FoldingCastTypeTerm.FoldingCastTypeException;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.IdentifiableVariableTerm;
+import aletheia.model.term.ParameterVariableTerm;
+import aletheia.model.term.ProjectedCastTypeTerm;
+import aletheia.model.term.ProjectedCastTypeTerm.ProjectedCastTypeException;
+import aletheia.model.term.ProjectionTerm;
+import aletheia.model.term.ProjectionTerm.ProjectionTypeException;
+import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.TauTerm;
+import aletheia.model.term.Term;
+import aletheia.model.term.UnprojectedCastTypeTerm;
+import aletheia.model.term.UnprojectedCastTypeTerm.UnprojectedCastTypeException;
+
+/**
+ * Compact binary encoding of a {@link Term} as a DAG of shared subterms, used
+ * by the {@link TermProxy} hierarchy to persist terms.
+ *
+ * <p>
+ * The encoded term is a table of nodes in post-order, every node referring to
+ * its subterms by their (variable-length encoded) position in the table. Equal
+ * subterms are encoded only once, so are the {@link IdentifiableVariableTerm}s,
+ * which are resolved by their {@link UUID} to a single table entry holding
+ * their type instead of nesting a full copy of it at every occurrence. The
+ * {@link ParameterVariableTerm}s are also encoded once and referred from their
+ * binding {@link FunctionTerm} and from all their occurrences in its body.
+ * </p>
+ */
+public class TermDagCodec
+{
+	private static final byte formatVersion = 0;
+
+	private static final byte TAU = 0;
+	private static final byte PARAMETER_VARIABLE = 1;
+	private static final byte IDENTIFIABLE_VARIABLE = 2;
+	private static final byte FUNCTION = 3;
+	private static final byte COMPOSITION = 4;
+	private static final byte PROJECTION = 5;
+	private static final byte PROJECTED_CAST = 6;
+	private static final byte UNPROJECTED_CAST = 7;
+	private static final byte FOLDING_CAST = 8;
+
+	public static class DecodeException extends Exception
+	{
+		private static final long serialVersionUID = -3592733404513541470L;
+
+		private DecodeException(String message)
+		{
+			super(message);
+		}
+
+		private DecodeException(Throwable cause)
+		{
+			super(cause);
+		}
+	}
+
+	private TermDagCodec()
+	{
+	}
+
+	private static void writeVarInt(DataOutput out, int i) throws IOException
+	{
+		while ((i & ~0x7f) != 0)
+		{
+			out.writeByte((i & 0x7f) | 0x80);
+			i >>>= 7;
+		}
+		out.writeByte(i);
+	}
+
+	private static int readVarInt(DataInput in) throws IOException
+	{
+		int i = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			byte b = in.readByte();
+			i |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return i;
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+
+	private static class Encoder
+	{
+		private final ByteArrayOutputStream nodesStream;
+		private final DataOutputStream nodesOut;
+		private final Map<Term, Integer> nodeMap;
+
+		private Encoder()
+		{
+			this.nodesStream = new ByteArrayOutputStream();
+			this.nodesOut = new DataOutputStream(nodesStream);
+			this.nodeMap = new HashMap<>();
+		}
+
+		private int encode(Term term) throws IOException
+		{
+			Integer node = nodeMap.get(term);
+			if (node != null)
+				return node;
+			if (term instanceof TauTerm)
+				nodesOut.writeByte(TAU);
+			else if (term instanceof ParameterVariableTerm)
+			{
+				int type = encode(term.getType());
+				nodesOut.writeByte(PARAMETER_VARIABLE);
+				writeVarInt(nodesOut, type);
+			}
+			else if (term instanceof IdentifiableVariableTerm)
+			{
+				int type = encode(term.getType());
+				UUID uuid = ((IdentifiableVariableTerm) term).getUuid();
+				nodesOut.writeByte(IDENTIFIABLE_VARIABLE);
+				nodesOut.writeLong(uuid.getMostSignificantBits());
+				nodesOut.writeLong(uuid.getLeastSignificantBits());
+				writeVarInt(nodesOut, type);
+			}
+			else if (term instanceof FunctionTerm)
+			{
+				FunctionTerm function = (FunctionTerm) term;
+				int parameter = encode(function.getParameter());
+				int body = encode(function.getBody());
+				nodesOut.writeByte(FUNCTION);
+				writeVarInt(nodesOut, parameter);
+				writeVarInt(nodesOut, body);
+			}
+			else if (term instanceof CompositionTerm)
+			{
+				CompositionTerm composition = (CompositionTerm) term;
+				int head = encode(composition.getHead());
+				int tail = encode(composition.getTail());
+				nodesOut.writeByte(COMPOSITION);
+				writeVarInt(nodesOut, head);
+				writeVarInt(nodesOut, tail);
+			}
+			else if (term instanceof ProjectionTerm)
+			{
+				int function = encode(((ProjectionTerm) term).getFunction());
+				nodesOut.writeByte(PROJECTION);
+				writeVarInt(nodesOut, function);
+			}
+			else if (term instanceof ProjectedCastTypeTerm)
+			{
+				int inner = encode(((ProjectedCastTypeTerm) term).getTerm());
+				nodesOut.writeByte(PROJECTED_CAST);
+				writeVarInt(nodesOut, inner);
+			}
+			else if (term instanceof UnprojectedCastTypeTerm)
+			{
+				int inner = encode(((UnprojectedCastTypeTerm) term).getTerm());
+				nodesOut.writeByte(UNPROJECTED_CAST);
+				writeVarInt(nodesOut, inner);
+			}
+			else if (term instanceof FoldingCastTypeTerm)
+			{
+				FoldingCastTypeTerm folding = (FoldingCastTypeTerm) term;
+				int inner = encode(folding.getTerm());
+				int type = encode(folding.getType());
+				int variable = encode(folding.getVariable());
+				int value = encode(folding.getValue());
+				nodesOut.writeByte(FOLDING_CAST);
+				writeVarInt(nodesOut, inner);
+				writeVarInt(nodesOut, type);
+				writeVarInt(nodesOut, variable);
+				writeVarInt(nodesOut, value);
+			}
+			else
+				throw new Error("Unsupported term class: " + term.getClass().getName());
+			node = nodeMap.size();
+			nodeMap.put(term, node);
+			return node;
+		}
+
+		private byte[] toByteArray() throws IOException
+		{
+			nodesOut.flush();
+			ByteArrayOutputStream stream = new ByteArrayOutputStream(nodesStream.size() + 6);
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeByte(formatVersion);
+			writeVarInt(out, nodeMap.size());
+			nodesStream.writeTo(out);
+			out.flush();
+			return stream.toByteArray();
+		}
+
+	}
+
+	/**
+	 * Encodes a term.
+	 *
+	 * @param term
+	 *            The term to encode.
+	 * @return The encoded data, or null if the term is null.
+	 */
+	public static byte[] encode(Term term)
+	{
+		if (term == null)
+			return null;
+		try
+		{
+			Encoder encoder = new Encoder();
+			encoder.encode(term);
+			return encoder.toByteArray();
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static class Decoder
+	{
+		private final DataInput in;
+		private final List<Term> nodes;
+
+		private Decoder(DataInput in, int size)
+		{
+			this.in = in;
+			this.nodes = new ArrayList<>(size);
+		}
+
+		private Term node() throws IOException, DecodeException
+		{
+			int i = readVarInt(in);
+			if (i < 0 || i >= nodes.size())
+				throw new DecodeException("Forward or out of range node reference: " + i);
+			return nodes.get(i);
+		}
+
+		private <T extends Term> T node(Class<T> clazz) throws IOException, DecodeException
+		{
+			Term term = node();
+			if (!clazz.isInstance(term))
+				throw new DecodeException("Expected a " + clazz.getSimpleName() + " node");
+			return clazz.cast(term);
+		}
+
+		private Term decodeNode() throws IOException, DecodeException
+		{
+			try
+			{
+				byte tag = in.readByte();
+				switch (tag)
+				{
+				case TAU:
+					return TauTerm.instance;
+				case PARAMETER_VARIABLE:
+					return new ParameterVariableTerm(node());
+				case IDENTIFIABLE_VARIABLE:
+				{
+					long mostSigBits = in.readLong();
+					long leastSigBits = in.readLong();
+					return new IdentifiableVariableTerm(node(), new UUID(mostSigBits, leastSigBits));
+				}
+				case FUNCTION:
+				{
+					ParameterVariableTerm parameter = node(ParameterVariableTerm.class);
+					return new FunctionTerm(parameter, node());
+				}
+				case COMPOSITION:
+				{
+					SimpleTerm head = node(SimpleTerm.class);
+					return new CompositionTerm(head, node());
+				}
+				case PROJECTION:
+					return new ProjectionTerm(node(FunctionTerm.class));
+				case PROJECTED_CAST:
+					return new ProjectedCastTypeTerm(node());
+				case UNPROJECTED_CAST:
+					return new UnprojectedCastTypeTerm(node());
+				case FOLDING_CAST:
+				{
+					Term term = node();
+					Term type = node();
+					IdentifiableVariableTerm variable = node(IdentifiableVariableTerm.class);
+					return new FoldingCastTypeTerm(term, type, variable, node());
+				}
+				default:
+					throw new DecodeException("Unknown node tag: " + tag);
+				}
+			}
+			catch (CompositionTypeException | ProjectionTypeException | ProjectedCastTypeException | UnprojectedCastTypeException
+					| FoldingCastTypeException e)
+			{
+				throw new DecodeException(e);
+			}
+		}
+
+		private Term decode(int size) throws IOException, DecodeException
+		{
+			for (int i = 0; i < size; i++)
+				nodes.add(decodeNode());
+			return nodes.get(size - 1);
+		}
+
+	}
+
+	/**
+	 * Decodes a term previously encoded with {@link #encode(Term)}.
+	 *
+	 * @param data
+	 *            The encoded data.
+	 * @return The decoded term, or null if the data is null.
+	 * @throws DecodeException
+	 *             If the data is not a valid encoding of a term.
+	 */
+	public static Term decode(byte[] data) throws DecodeException
+	{
+		if (data == null)
+			return null;
+		try
+		{
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			byte version = in.readByte();
+			if (version != formatVersion)
+				throw new DecodeException("Unsupported term encoding format version: " + version);
+			int size = readVarInt(in);
+			if (size <= 0)
+				throw new DecodeException("Empty term encoding");
+			Term term = new Decoder(in, Math.min(size, data.length)).decode(size);
+			if (in.available() > 0)
+				throw new DecodeException("Trailing data after term encoding");
+			return term;
+		}
+		catch (IOException e)
+		{
+			throw new DecodeException(e);
+		}
+	}
+
+}
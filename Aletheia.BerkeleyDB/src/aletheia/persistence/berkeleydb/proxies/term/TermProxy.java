@@ -23,14 +23,45 @@ import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.Term;
 import aletheia.persistence.berkeleydb.proxies.AletheiaPersistentProxy;
+import aletheia.persistence.berkeleydb.proxies.term.TermDagCodec.DecodeException;
 
-@Persistent(proxyFor = Term.class, version = 0)
+/**
+ * Common base of the term proxies. The whole term is stored as a single
+ * compact byte array encoded with {@link TermDagCodec}; the subclasses are
+ * only needed to bind every concrete {@link Term} class to this storage
+ * format.
+ */
+@Persistent(proxyFor = Term.class, version = 1)
 public abstract class TermProxy<T extends Term> implements AletheiaPersistentProxy<T>
 {
+	private byte[] data;
+
+	protected byte[] getData()
+	{
+		return data;
+	}
 
 	@Override
 	public void initializeProxy(T term)
 	{
+		this.data = TermDagCodec.encode(term);
 	}
 
+	protected abstract Class<T> termClass();
+
+	@Override
+	public T convertProxy()
+	{
+		try
+		{
+			Term term = TermDagCodec.decode(data);
+			if (!termClass().isInstance(term))
+				throw new ProxyConversionException("Decoded term is not a " + termClass().getSimpleName());
+			return termClass().cast(term);
+		}
+		catch (DecodeException e)
+		{
+			throw new ProxyConversionException(e);
+		}
+	}
 }
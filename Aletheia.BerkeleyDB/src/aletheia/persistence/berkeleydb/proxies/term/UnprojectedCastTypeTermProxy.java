@@ -22,23 +22,15 @@ package aletheia.persistence.berkeleydb.proxies.term;
 import com.sleepycat.persist.model.Persistent;
 
 import aletheia.model.term.UnprojectedCastTypeTerm;
-import aletheia.model.term.UnprojectedCastTypeTerm.UnprojectedCastTypeException;
 
-@Persistent(proxyFor = UnprojectedCastTypeTerm.class, version = 1)
+@Persistent(proxyFor = UnprojectedCastTypeTerm.class, version = 2)
 public class UnprojectedCastTypeTermProxy extends ProjectionCastTypeTermProxy<UnprojectedCastTypeTerm>
 {
 
 	@Override
-	public UnprojectedCastTypeTerm convertProxy()
+	protected Class<UnprojectedCastTypeTerm> termClass()
 	{
-		try
-		{
-			return new UnprojectedCastTypeTerm(getTerm());
-		}
-		catch (UnprojectedCastTypeException e)
-		{
-			throw new ProxyConversionException(e);
-		}
+		return UnprojectedCastTypeTerm.class;
 	}
 
 }
@@ -21,24 +21,9 @@ package aletheia.persistence.berkeleydb.proxies.term;
 
 import com.sleepycat.persist.model.Persistent;
 
-import aletheia.model.term.Term;
 import aletheia.model.term.VariableTerm;
 
-@Persistent(version = 1)
+@Persistent(version = 2)
 public abstract class VariableTermProxy<T extends VariableTerm> extends AtomicTermProxy<T>
 {
-	private Term type;
-
-	protected Term getType()
-	{
-		return type;
-	}
-
-	@Override
-	public void initializeProxy(T variableTerm)
-	{
-		super.initializeProxy(variableTerm);
-		this.type = variableTerm.getType();
-	}
-
 }
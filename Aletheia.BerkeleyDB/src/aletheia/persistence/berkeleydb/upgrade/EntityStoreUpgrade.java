@@ -61,6 +61,9 @@ public abstract class EntityStoreUpgrade
 	// @formatter:off
 	private static final Class<? extends EntityStoreUpgrade>[] upgradeClasses = (Class<? extends EntityStoreUpgrade>[]) new Class<?>[]
 			{
+					EntityStoreUpgrade_027.class,
+					EntityStoreUpgrade_028.class,
+					EntityStoreUpgrade_029.class,
 			};
 	// @formatter:on
 
@@ -97,6 +100,17 @@ public abstract class EntityStoreUpgrade
 
 	public abstract Collection<Integer> versions();
 
+	/**
+	 * Whether this upgrade must be applied even if the store can be opened
+	 * with the current entity model. Otherwise it's only tried when opening the
+	 * store fails. Upgrades that compute data that the class evolution of the
+	 * store wouldn't fill in must be eager.
+	 */
+	public boolean isEager()
+	{
+		return false;
+	}
+
 	public static EntityStoreUpgrade getEntityStoreUpgrade(int version)
 	{
 		return upgradeMap.get(version);
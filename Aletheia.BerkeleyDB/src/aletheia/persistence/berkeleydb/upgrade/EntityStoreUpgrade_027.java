@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.berkeleydb.upgrade;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import com.sleepycat.persist.model.EntityModel;
+import com.sleepycat.persist.raw.RawObject;
+import com.sleepycat.persist.raw.RawType;
+
+import aletheia.model.term.CompositionTerm;
+import aletheia.model.term.CompositionTerm.CompositionTypeException;
+import aletheia.model.term.FoldingCastTypeTerm;
+import aletheia.model.term.FoldingCastTypeTerm.FoldingCastTypeException;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.IdentifiableVariableTerm;
+import aletheia.model.term.ParameterVariableTerm;
+import aletheia.model.term.ProjectedCastTypeTerm;
+import aletheia.model.term.ProjectedCastTypeTerm.ProjectedCastTypeException;
+import aletheia.model.term.ProjectionTerm;
+import aletheia.model.term.ProjectionTerm.ProjectionTypeException;
+import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.TauTerm;
+import aletheia.model.term.Term;
+import aletheia.model.term.UnprojectedCastTypeTerm;
+import aletheia.model.term.UnprojectedCastTypeTerm.UnprojectedCastTypeException;
+import aletheia.persistence.berkeleydb.BerkeleyDBAletheiaEnvironment;
+import aletheia.persistence.berkeleydb.proxies.term.TermProxy;
+
+/**
+ * Upgrade from store version 27, where the terms were persisted as trees of
+ * per-class proxies (every occurrence of an identifiable variable nesting a
+ * full copy of its type), to the compact DAG encoding of
+ * {@link aletheia.persistence.berkeleydb.proxies.term.TermDagCodec}. The terms
+ * are rebuilt from the raw objects of the old proxies and stored again through
+ * the current ones. The derived keys are rebuilt afterwards as in
+ * {@link EntityStoreUpgrade_028}.
+ */
+public class EntityStoreUpgrade_027 extends EntityStoreUpgrade_028
+{
+	private static final String termProxyPackagePrefix = TermProxy.class.getPackage().getName() + ".";
+
+	@Override
+	public Collection<Integer> versions()
+	{
+		return Arrays.asList(27);
+	}
+
+	protected class UpgradeInstance extends EntityStoreUpgrade_028.AbstractUpgradeInstance
+	{
+
+		protected UpgradeInstance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+		{
+			super(environment, storeName);
+		}
+
+		private Object rawField(EntityModel model, RawObject rawObject, String fieldName, Map<RawObject, Object> converted)
+				throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException,
+				IllegalArgumentException, InvocationTargetException
+		{
+			for (RawObject rawObject_ = rawObject; rawObject_ != null; rawObject_ = rawObject_.getSuper())
+			{
+				if (rawObject_.getValues().containsKey(fieldName))
+				{
+					Object value = rawObject_.getValues().get(fieldName);
+					if (value instanceof RawObject)
+						return partialConvertRawObject(model, (RawObject) value, converted);
+					return value;
+				}
+			}
+			throw new ClassNotFoundException("Field " + fieldName + " not found in raw object of type " + rawObject.getType().getClassName());
+		}
+
+		private Term rawTerm(EntityModel model, RawObject rawObject, String fieldName, Map<RawObject, Object> converted) throws ClassNotFoundException,
+				NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException
+		{
+			return (Term) rawField(model, rawObject, fieldName, converted);
+		}
+
+		private Term convertOldTermProxy(EntityModel model, RawObject rawObject, String className, Map<RawObject, Object> converted)
+				throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException,
+				IllegalArgumentException, InvocationTargetException
+		{
+			try
+			{
+				switch (className.substring(termProxyPackagePrefix.length()))
+				{
+				case "TauTermProxy":
+					return TauTerm.instance;
+				case "ParameterVariableTermProxy":
+					return new ParameterVariableTerm(rawTerm(model, rawObject, "type", converted));
+				case "IdentifiableVariableTermProxy":
+					return new IdentifiableVariableTerm(rawTerm(model, rawObject, "type", converted), (UUID) rawField(model, rawObject, "uuid", converted));
+				case "FunctionTermProxy":
+					return new FunctionTerm((ParameterVariableTerm) rawTerm(model, rawObject, "parameter", converted),
+							rawTerm(model, rawObject, "body", converted));
+				case "CompositionTermProxy":
+					return new CompositionTerm((SimpleTerm) rawTerm(model, rawObject, "head", converted), rawTerm(model, rawObject, "tail", converted));
+				case "ProjectionTermProxy":
+					return new ProjectionTerm((FunctionTerm) rawTerm(model, rawObject, "function", converted));
+				case "ProjectedCastTypeTermProxy":
+					return new ProjectedCastTypeTerm(rawTerm(model, rawObject, "term", converted));
+				case "UnprojectedCastTypeTermProxy":
+					return new UnprojectedCastTypeTerm(rawTerm(model, rawObject, "term", converted));
+				case "FoldingCastTypeTermProxy":
+					return new FoldingCastTypeTerm(rawTerm(model, rawObject, "term", converted), rawTerm(model, rawObject, "type", converted),
+							(IdentifiableVariableTerm) rawTerm(model, rawObject, "variable", converted), rawTerm(model, rawObject, "value", converted));
+				default:
+					throw new ClassNotFoundException(className);
+				}
+			}
+			catch (CompositionTypeException | ProjectionTypeException | ProjectedCastTypeException | UnprojectedCastTypeException
+					| FoldingCastTypeException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		protected Object partialConvertRawObjectDefaultType(EntityModel model, RawObject rawObject, RawType rawType, Map<RawObject, Object> converted)
+				throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException,
+				IllegalArgumentException, InvocationTargetException
+		{
+			if (rawType.getClassName().startsWith(termProxyPackagePrefix))
+				return convertOldTermProxy(model, rawObject, rawType.getClassName(), converted);
+			else
+				return super.partialConvertRawObjectDefaultType(model, rawObject, rawType, converted);
+		}
+
+	}
+
+	@Override
+	protected UpgradeInstance instance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+	{
+		return new UpgradeInstance(environment, storeName);
+	}
+
+}
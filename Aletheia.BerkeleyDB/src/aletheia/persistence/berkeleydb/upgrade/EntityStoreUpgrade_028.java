@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.berkeleydb.upgrade;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.sleepycat.je.Transaction;
+import com.sleepycat.persist.PrimaryIndex;
+import com.sleepycat.persist.model.EntityModel;
+import com.sleepycat.persist.raw.RawObject;
+
+import aletheia.persistence.berkeleydb.BerkeleyDBAletheiaEnvironment;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity;
+
+/**
+ * Upgrade from store version 28, where the statements of a context were
+ * indexed by the {@link Object#hashCode()} of their term and had no term
+ * digest. The statement entities are converted field by field and their
+ * derived keys recomputed, so the term digests and the new index by term
+ * digest get filled in. The remaining keys are rebuilt afterwards as in
+ * {@link EntityStoreUpgrade_029}.
+ */
+public class EntityStoreUpgrade_028 extends EntityStoreUpgrade_029
+{
+
+	@Override
+	public Collection<Integer> versions()
+	{
+		return Arrays.asList(28);
+	}
+
+	protected abstract class AbstractUpgradeInstance extends EntityStoreUpgrade_029.AbstractUpgradeInstance
+	{
+
+		protected AbstractUpgradeInstance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+		{
+			super(environment, storeName);
+		}
+
+		@Override
+		protected void putConvertedRawObject(Transaction tx, EntityModel aletheiaModel, Class<Object> entityClass, Class<Object> primaryKeyClass,
+				PrimaryIndex<Object, Object> newPrimaryIndex, RawObject oldRawObject)
+		{
+			if (BerkeleyDBStatementEntity.class.equals(entityClass))
+			{
+				try
+				{
+					BerkeleyDBStatementEntity entity = (BerkeleyDBStatementEntity) partialConvertRawObject(aletheiaModel, oldRawObject);
+					if (entity.getUuidKeyContext() != null)
+						entity.setUuidKeyContext(entity.getUuidKeyContext());
+					entity.setVariable(entity.getVariable());
+					newPrimaryIndex.put(tx, entity);
+				}
+				catch (ClassNotFoundException | NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
+						| IllegalArgumentException | InvocationTargetException e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+			else
+				super.putConvertedRawObject(tx, aletheiaModel, entityClass, primaryKeyClass, newPrimaryIndex, oldRawObject);
+		}
+
+	}
+
+	protected class UpgradeInstance extends AbstractUpgradeInstance
+	{
+
+		protected UpgradeInstance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+		{
+			super(environment, storeName);
+		}
+
+	}
+
+	@Override
+	protected AbstractUpgradeInstance instance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+	{
+		return new UpgradeInstance(environment, storeName);
+	}
+
+}
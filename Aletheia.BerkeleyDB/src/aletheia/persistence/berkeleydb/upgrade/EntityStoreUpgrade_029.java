@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.persistence.berkeleydb.upgrade;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.logging.log4j.Logger;
+
+import com.sleepycat.persist.EntityCursor;
+
+import aletheia.log4j.LoggerManager;
+import aletheia.persistence.berkeleydb.BerkeleyDBAletheiaEntityStore;
+import aletheia.persistence.berkeleydb.BerkeleyDBAletheiaEnvironment;
+import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
+import aletheia.persistence.berkeleydb.BerkeleyDBTransaction;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBContextEntity;
+import aletheia.persistence.berkeleydb.entities.statement.BerkeleyDBStatementEntity;
+
+/**
+ * Upgrade from store version 29, that had no index of the statements by root
+ * context and term digest. The context data of every statement is initialized
+ * again from its context so the new key gets filled in.
+ */
+public class EntityStoreUpgrade_029 extends EntityStoreUpgrade
+{
+	private static final Logger logger = LoggerManager.instance.logger();
+
+	@Override
+	public Collection<Integer> versions()
+	{
+		return Arrays.asList(29);
+	}
+
+	@Override
+	public boolean isEager()
+	{
+		return true;
+	}
+
+	protected abstract class AbstractUpgradeInstance extends EntityStoreUpgrade.UpgradeInstance
+	{
+
+		protected AbstractUpgradeInstance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+		{
+			super(environment, storeName);
+		}
+
+		protected void rebuildRootTermDigestKeys(BerkeleyDBPersistenceManager persistenceManager)
+		{
+			logger.debug("Rebuilding root term digest keys");
+			BerkeleyDBAletheiaEntityStore entityStore = persistenceManager.getEntityStore();
+			BerkeleyDBTransaction transaction = persistenceManager.beginTransaction();
+			try
+			{
+				int n = 0;
+				EntityCursor<BerkeleyDBStatementEntity> cursor = transaction.entities(entityStore.statementEntityPrimaryIndex());
+				try
+				{
+					for (BerkeleyDBStatementEntity entity = transaction.first(cursor); entity != null; entity = transaction.next(cursor))
+					{
+						if (entity.getUuidKeyContext() == null)
+							continue;
+						BerkeleyDBContextEntity contextEntity = (BerkeleyDBContextEntity) transaction.get(entityStore.statementEntityPrimaryIndex(),
+								entity.getUuidKeyContext());
+						entity.initializeContextData(contextEntity);
+						if (entity instanceof BerkeleyDBContextEntity)
+						{
+							BerkeleyDBContextEntity entity_ = (BerkeleyDBContextEntity) entity;
+							entity_.setConsequent(entity_.getConsequent());
+						}
+						transaction.update(cursor, entity);
+						n++;
+					}
+				}
+				finally
+				{
+					transaction.close(cursor);
+				}
+				transaction.commit();
+				logger.debug("Rebuilt root term digest keys (" + n + " statements)");
+			}
+			finally
+			{
+				transaction.abort();
+			}
+		}
+
+		@Override
+		protected void postProcessing(BerkeleyDBPersistenceManager persistenceManager)
+		{
+			super.postProcessing(persistenceManager);
+			rebuildRootTermDigestKeys(persistenceManager);
+		}
+
+	}
+
+	protected class UpgradeInstance extends AbstractUpgradeInstance
+	{
+
+		protected UpgradeInstance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+		{
+			super(environment, storeName);
+		}
+
+		@Override
+		protected void upgrade() throws UpgradeException
+		{
+			justPostProcessingUpgrade();
+		}
+
+	}
+
+	@Override
+	protected AbstractUpgradeInstance instance(BerkeleyDBAletheiaEnvironment environment, String storeName)
+	{
+		return new UpgradeInstance(environment, storeName);
+	}
+
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.gui.cli.command.prooffinder;
+
+import aletheia.gui.cli.command.CommandSource;
+
+public class ProofFinderGetParallelism extends ProofFinderParallelism
+{
+
+	protected ProofFinderGetParallelism(CommandSource from)
+	{
+		super(from);
+	}
+
+	@Override
+	public void run() throws Exception
+	{
+		getOut().println(getProofFinder().getParallelism());
+	}
+
+}
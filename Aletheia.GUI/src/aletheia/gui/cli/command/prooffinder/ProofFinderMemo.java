@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.gui.cli.command.prooffinder;
+
+import java.io.File;
+import java.util.List;
+
+import aletheia.gui.cli.command.AbstractVoidCommandFactory;
+import aletheia.gui.cli.command.Command;
+import aletheia.gui.cli.command.CommandSource;
+import aletheia.gui.cli.command.TaggedCommand;
+import aletheia.persistence.Transaction;
+import aletheia.prooffinder.ProofSearchMemo;
+
+@TaggedCommand(tag = "pfmemo", groupPath = "/prooffinder", factory = ProofFinderMemo.Factory.class)
+public class ProofFinderMemo extends Command
+{
+	private final File file;
+	private final boolean close;
+
+	protected ProofFinderMemo(CommandSource from, File file, boolean close)
+	{
+		super(from);
+		this.file = file;
+		this.close = close;
+	}
+
+	@Override
+	public void run() throws Exception
+	{
+		if (close)
+			getProofFinder().closeMemo();
+		else if (file != null)
+			getProofFinder().openMemo(file);
+		else
+		{
+			ProofSearchMemo memo = getProofFinder().getMemo();
+			if (memo == null)
+				getOut().println("No proof search memo open.");
+			else
+				getOut().println(memo.getFile() + ": " + memo.size() + " targets.");
+		}
+	}
+
+	public static class Factory extends AbstractVoidCommandFactory<ProofFinderMemo>
+	{
+
+		@Override
+		public ProofFinderMemo parse(CommandSource from, Transaction transaction, Void extra, List<String> split) throws CommandParseException
+		{
+			if (split.isEmpty())
+				return new ProofFinderMemo(from, null, false);
+			else if (split.get(0).equals("-close"))
+				return new ProofFinderMemo(from, null, true);
+			else
+				return new ProofFinderMemo(from, new File(split.get(0)), false);
+		}
+
+		@Override
+		protected int minParameters()
+		{
+			return 0;
+		}
+
+		@Override
+		protected String paramSpec()
+		{
+			return "[<file> | -close]";
+		}
+
+		@Override
+		public String shortHelp()
+		{
+			return "Opens/closes the on-disk memo of the proof finder, or shows the current one.";
+		}
+
+	}
+
+}
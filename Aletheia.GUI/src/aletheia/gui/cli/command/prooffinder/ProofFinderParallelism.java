@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.gui.cli.command.prooffinder;
+
+import java.util.List;
+
+import aletheia.gui.cli.command.AbstractVoidCommandFactory;
+import aletheia.gui.cli.command.Command;
+import aletheia.gui.cli.command.CommandSource;
+import aletheia.gui.cli.command.TaggedCommand;
+import aletheia.persistence.Transaction;
+
+@TaggedCommand(tag = "pfp", groupPath = "/prooffinder", factory = ProofFinderParallelism.Factory.class)
+public abstract class ProofFinderParallelism extends Command
+{
+
+	protected ProofFinderParallelism(CommandSource from)
+	{
+		super(from);
+	}
+
+	public static class Factory extends AbstractVoidCommandFactory<ProofFinderParallelism>
+	{
+
+		@Override
+		protected int minParameters()
+		{
+			return 0;
+		}
+
+		@Override
+		public ProofFinderParallelism parse(CommandSource from, Transaction transaction, Void extra, List<String> split) throws CommandParseException
+		{
+			if (split.size() > 0)
+			{
+				int parallelism = Integer.parseInt(split.get(0));
+				if (parallelism < 1)
+					throw new CommandParseException("Parallelism must be positive");
+				return new ProofFinderSetParallelism(from, parallelism);
+			}
+			else
+			{
+				return new ProofFinderGetParallelism(from);
+			}
+		}
+
+		@Override
+		protected String paramSpec()
+		{
+			return "[<parallelism>]";
+		}
+
+		@Override
+		public String shortHelp()
+		{
+			return "Obtains/changes the parallelism (number of worker threads, a positive integer) of the proof finder.";
+		}
+
+	}
+
+}
@@ -68,7 +68,7 @@ public abstract class ProofFinderThrottle extends Command
 		@Override
 		public String shortHelp()
 		{
-			return "Obtains/changes the cpu throttle (float number from 0 to 1) of the proof finder thread.";
+			return "Obtains/changes the cpu throttle (float number from 0 to 1) of the proof finder workers, all of them together.";
 		}
 
 	}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.gui.cli.command.statement;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import aletheia.gui.cli.command.AbstractVoidCommandFactory;
+import aletheia.gui.cli.command.CommandSource;
+import aletheia.gui.cli.command.TaggedCommand;
+import aletheia.gui.cli.command.TransactionalCommand;
+import aletheia.model.statement.Statement;
+import aletheia.persistence.DependencyGraph;
+import aletheia.persistence.Transaction;
+
+@TaggedCommand(tag = "depgraph", groupPath = "/statement", factory = DepGraph.Factory.class)
+public class DepGraph extends TransactionalCommand
+{
+	public enum Action
+	{
+		build, refresh, close, deps, dpds, topo,
+	}
+
+	private final Action action;
+	private final File file;
+	private final Statement statement;
+	private final boolean list;
+
+	public DepGraph(CommandSource from, Transaction transaction, Action action, File file, Statement statement, boolean list)
+	{
+		super(from, transaction);
+		this.action = action;
+		this.file = file;
+		this.statement = statement;
+		this.list = list;
+	}
+
+	private void printStatements(DependencyGraph.Snapshot snapshot, int[] indexes)
+	{
+		for (int index : indexes)
+		{
+			Statement st = getPersistenceManager().getStatement(getTransaction(), snapshot.uuid(index));
+			getOut().println(" -> " + (st == null ? snapshot.uuid(index) : st.statementPathString(getTransaction(), getActiveContext())));
+		}
+	}
+
+	@Override
+	protected RunTransactionalReturnData runTransactional() throws Exception
+	{
+		long t0 = System.nanoTime();
+		if (action == Action.build)
+		{
+			DependencyGraph graph = getPersistenceManager().buildDependencyGraph(getTransaction(), file);
+			DependencyGraph.Snapshot snapshot = graph.snapshot();
+			getOut().println(snapshot.size() + " statements, " + snapshot.edges() + " dependencies (" + (System.nanoTime() - t0) / 1000000 + " ms).");
+			return null;
+		}
+		DependencyGraph graph = getPersistenceManager().openDependencyGraph(file);
+		switch (action)
+		{
+		case refresh:
+		{
+			int changes = graph.pendingChanges();
+			graph.refresh();
+			getOut().println(changes + " changes merged (" + (System.nanoTime() - t0) / 1000000 + " ms).");
+			break;
+		}
+		case close:
+			graph.close();
+			break;
+		case deps:
+		case dpds:
+		{
+			DependencyGraph.Snapshot snapshot = graph.snapshot();
+			int index = snapshot.index(statement.getUuid());
+			if (index < 0)
+				throw new Exception("Statement not in the dependency graph");
+			BitSet closure = action == Action.deps ? snapshot.dependencyClosure(index) : snapshot.dependentClosure(index);
+			closure.clear(index);
+			long t1 = System.nanoTime();
+			if (list)
+				printStatements(snapshot, closure.stream().toArray());
+			getOut().println(closure.cardinality() + " statements (" + (t1 - t0) / 1000000 + " ms).");
+			break;
+		}
+		case topo:
+		{
+			DependencyGraph.Snapshot snapshot = graph.snapshot();
+			int[] order = snapshot.topologicalOrder();
+			long t1 = System.nanoTime();
+			if (list)
+				printStatements(snapshot, order);
+			getOut().println(order.length + " statements (" + (t1 - t0) / 1000000 + " ms).");
+			break;
+		}
+		default:
+			throw new Error();
+		}
+		return null;
+	}
+
+	public static class Factory extends AbstractVoidCommandFactory<DepGraph>
+	{
+
+		@Override
+		protected int minParameters()
+		{
+			return 2;
+		}
+
+		@Override
+		public DepGraph parse(CommandSource from, Transaction transaction, Void extra, List<String> split) throws CommandParseException
+		{
+			boolean list = split.remove("-list");
+			checkMinParameters(split);
+			Action action;
+			try
+			{
+				action = Action.valueOf(split.get(0));
+			}
+			catch (IllegalArgumentException e)
+			{
+				throw new CommandParseException("Bad action: " + split.get(0) + " (must be one of " + Arrays.toString(Action.values()) + ")");
+			}
+			File file = new File(split.get(1));
+			Statement statement = null;
+			if (action == Action.deps || action == Action.dpds)
+			{
+				if (split.size() < 3)
+					throw new CommandParseException("Missing statement");
+				statement = findStatementSpec(from.getPersistenceManager(), transaction, from.getActiveContext(), split.get(2));
+				if (statement == null)
+					throw new CommandParseException("Bad statement: " + split.get(2));
+			}
+			return new DepGraph(from, transaction, action, file, statement, list);
+		}
+
+		@Override
+		protected String paramSpec()
+		{
+			return "(build | refresh | close | topo) <file> | (deps | dpds) <file> <statement> [-list]";
+		}
+
+		@Override
+		public String shortHelp()
+		{
+			return "Builds and queries a memory-mapped snapshot of the statement dependency graph.";
+		}
+
+		@Override
+		public CompletionSet completionSet(CommandSource from, List<String> split)
+		{
+			switch (split.size())
+			{
+			case 2:
+				return fileNameCompletionSet(from, split);
+			default:
+				return super.completionSet(from, split);
+			}
+
+		}
+
+	}
+
+}
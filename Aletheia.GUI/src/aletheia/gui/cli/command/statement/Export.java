@@ -37,20 +37,23 @@ public class Export extends TransactionalCommand
 	private final List<Statement> statements;
 	private final boolean signed;
 	private final boolean skipSignedProof;
+	private final int readTransactions;
 
-	public Export(CommandSource from, Transaction transaction, File file, List<Statement> statements, boolean signed, boolean skipSignedProof)
+	public Export(CommandSource from, Transaction transaction, File file, List<Statement> statements, boolean signed, boolean skipSignedProof,
+			int readTransactions)
 	{
 		super(from, transaction);
 		this.file = file;
 		this.statements = statements;
 		this.signed = signed;
 		this.skipSignedProof = skipSignedProof;
+		this.readTransactions = readTransactions;
 	}
 
 	@Override
 	protected RunTransactionalReturnData runTransactional() throws Exception
 	{
-		getPersistenceManager().export(file, getTransaction(), statements, signed, skipSignedProof);
+		getPersistenceManager().export(file, getTransaction(), statements, signed, skipSignedProof, readTransactions);
 		return null;
 	}
 
@@ -68,6 +71,7 @@ public class Export extends TransactionalCommand
 		{
 			boolean signed = split.remove("-signed");
 			boolean skipSignedProof = split.remove("-skipSignedProof");
+			int readTransactions = split.remove("-parallel") ? Runtime.getRuntime().availableProcessors() : 1;
 			checkMinParameters(split);
 			File file = new File(split.get(0));
 			List<Statement> statements = new ArrayList<>();
@@ -78,13 +82,13 @@ public class Export extends TransactionalCommand
 					throw new CommandParseException("Bad statement path: " + split.get(i));
 				statements.add(st);
 			}
-			return new Export(from, transaction, file, statements, signed, skipSignedProof);
+			return new Export(from, transaction, file, statements, signed, skipSignedProof, readTransactions);
 		}
 
 		@Override
 		protected String paramSpec()
 		{
-			return "<file> <statement>* [-signed] [-skipSignedProof]";
+			return "<file> <statement>* [-signed] [-skipSignedProof] [-parallel]";
 		}
 
 		@Override
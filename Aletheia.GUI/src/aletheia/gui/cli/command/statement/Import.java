@@ -33,6 +33,7 @@ import aletheia.utilities.aborter.ListenableAborter;
 public class Import extends Command
 {
 	private final File file;
+	private final boolean bulk;
 
 	private class MyListenableAborter extends ListenableAborter
 	{
@@ -53,14 +54,21 @@ public class Import extends Command
 				throw new AbortException(cause);
 		}
 
+		@Override
+		public void progress(long done, double rate)
+		{
+			getOut().println(String.format("%d registers imported (%.1f/s)", done, rate));
+		}
+
 	}
 
 	private final MyListenableAborter listenableAborter;
 
-	public Import(CommandSource from, File file)
+	public Import(CommandSource from, File file, boolean bulk)
 	{
 		super(from);
 		this.file = file;
+		this.bulk = bulk;
 		this.listenableAborter = new MyListenableAborter();
 
 	}
@@ -68,7 +76,10 @@ public class Import extends Command
 	@Override
 	public void run() throws Exception
 	{
-		getPersistenceManager().import_(file, listenableAborter);
+		if (bulk)
+			getPersistenceManager().bulkImport(file, listenableAborter);
+		else
+			getPersistenceManager().import_(file, listenableAborter);
 	}
 
 	@Override
@@ -89,15 +100,16 @@ public class Import extends Command
 		@Override
 		public Import parse(CommandSource from, Transaction transaction, Void extra, List<String> split) throws CommandParseException
 		{
+			boolean bulk = split.remove("-bulk");
 			checkMinParameters(split);
 			File file = new File(split.get(0));
-			return new Import(from, file);
+			return new Import(from, file, bulk);
 		}
 
 		@Override
 		protected String paramSpec()
 		{
-			return "<file>";
+			return "<file> [-bulk]";
 		}
 
 		@Override
@@ -29,8 +29,8 @@ import aletheia.gui.cli.command.AbstractVoidCommandFactory;
 import aletheia.gui.cli.command.CommandSource;
 import aletheia.gui.cli.command.TaggedCommand;
 import aletheia.gui.cli.command.TransactionalCommand;
-import aletheia.gui.common.NamespacePattern;
 import aletheia.model.identifier.Identifier;
+import aletheia.model.identifier.NamespacePattern;
 import aletheia.model.statement.Context;
 import aletheia.model.statement.Statement;
 import aletheia.model.term.ParameterVariableTerm;
@@ -28,17 +28,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.UUID;
 
 import aletheia.model.statement.Context;
 import aletheia.model.statement.RootContext;
 import aletheia.model.statement.Statement;
 import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.ParameterVariableTerm;
 import aletheia.model.term.SimpleTerm;
 import aletheia.model.term.Term;
 import aletheia.model.term.Term.ReplaceTypeException;
+import aletheia.model.term.TermDigest;
 import aletheia.model.term.VariableTerm;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
+import aletheia.prooffinder.StatementCacheTree.LocalStatementSet;
 import aletheia.utilities.collections.AdaptedCollection;
 import aletheia.utilities.collections.CacheWithCleanerMap;
 import aletheia.utilities.collections.CombinedCollection;
@@ -190,6 +194,13 @@ public class CandidateFinder implements StatementCacheTree.Listener
 	private final CacheWithCleanerMap<ImpureCandidatesCacheMapKey, Set<ImpureCandidate>> impureCandidatesCacheMap;
 	private final Map<Context, Set<ImpureCandidatesCacheMapKey>> impureCandidatesCacheMapKeys;
 
+	/**
+	 * Incremented every time the caches are invalidated.
+	 */
+	private long cacheGeneration;
+
+	private volatile ProofSearchMemo memo;
+
 	public CandidateFinder(PersistenceManager persistenceManager, ContextWatcher contextWatcher)
 	{
 		this.persistenceManager = persistenceManager;
@@ -199,6 +210,8 @@ public class CandidateFinder implements StatementCacheTree.Listener
 		this.pureCandidatesCacheMapKeys = new HashMap<>();
 		this.impureCandidatesCacheMap = new WeakCacheWithCleanerMap<>();
 		this.impureCandidatesCacheMapKeys = new HashMap<>();
+		this.cacheGeneration = 0;
+		this.memo = null;
 		this.statementCacheTree.addListener(this);
 		this.pureCandidatesCacheMap.addListener(new PureCandidatesCacheMapListener());
 		this.impureCandidatesCacheMap.addListener(new ImpureCandidatesCacheMapListener());
@@ -209,31 +222,113 @@ public class CandidateFinder implements StatementCacheTree.Listener
 		return persistenceManager;
 	}
 
-	private synchronized Collection<StatementCandidate> localStatementCandidatesFor(Context context, SimpleTerm target)
+	public ProofSearchMemo getMemo()
+	{
+		return memo;
+	}
+
+	/**
+	 * Sets the on-disk memo that backs the pure candidates cache (null for
+	 * none).
+	 */
+	public void setMemo(ProofSearchMemo memo)
+	{
+		this.memo = memo;
+	}
+
+	/**
+	 * Only the statements retrieved from the context's discrimination tree are
+	 * tried as candidates. They are computed out of this object's monitor so
+	 * several proof finder workers can do it at once, and looked up in (and
+	 * recorded to) the memo, if any. The result is cached only if the cache
+	 * has not been invalidated meanwhile.
+	 */
+	private Collection<StatementCandidate> localStatementCandidatesFor(Context context, SimpleTerm target)
 	{
 		PureCandidatesCacheMapKey key = new PureCandidatesCacheMapKey(context, target);
-		Set<StatementCandidate> candidates = pureCandidatesCacheMap.get(new PureCandidatesCacheMapKey(context, target));
+		long generation;
+		synchronized (this)
+		{
+			Set<StatementCandidate> candidates = pureCandidatesCacheMap.get(key);
+			if (candidates != null)
+				return candidates;
+			generation = cacheGeneration;
+		}
+		LocalStatementSet statements = statementCacheTree.getLocalStatementSet(context);
+		ProofSearchMemo memo = this.memo;
+		UUID stamp = null;
+		UUID digest = null;
+		if (memo != null && !hasFreeParameters(target))
+		{
+			stamp = statements.stamp();
+			digest = TermDigest.digest(target);
+		}
+		Set<StatementCandidate> candidates = digest != null ? memoizedStatementCandidatesFor(memo, context, statements, stamp, digest, target) : null;
 		if (candidates == null)
 		{
 			candidates = new HashSet<>();
-			Collection<Statement> statements = statementCacheTree.getLocalStatementCollection(context);
-			synchronized (statements)
+			for (Statement st : statements.candidates(target))
 			{
-				for (Statement st : statements)
-				{
-					StatementCandidate sc = new StatementCandidate(st, target);
-					if (sc.isAssigned())
-						candidates.add(sc);
-				}
+				StatementCandidate sc = new StatementCandidate(st, target);
+				if (sc.isAssigned())
+					candidates.add(sc);
 			}
-			pureCandidatesCacheMap.put(key, candidates);
-			Set<PureCandidatesCacheMapKey> keySet = pureCandidatesCacheMapKeys.get(context);
-			if (keySet == null)
+			if (digest != null)
 			{
-				keySet = new HashSet<>();
-				pureCandidatesCacheMapKeys.put(context, keySet);
+				List<UUID> uuids = new ArrayList<>();
+				for (StatementCandidate sc : candidates)
+					uuids.add(sc.getStatement().getUuid());
+				memo.putCandidates(context.getUuid(), stamp, digest, uuids);
+			}
+		}
+		synchronized (this)
+		{
+			Set<StatementCandidate> cached = pureCandidatesCacheMap.get(key);
+			if (cached != null)
+				return cached;
+			if (generation == cacheGeneration)
+			{
+				pureCandidatesCacheMap.put(key, candidates);
+				Set<PureCandidatesCacheMapKey> keySet = pureCandidatesCacheMapKeys.get(context);
+				if (keySet == null)
+				{
+					keySet = new HashSet<>();
+					pureCandidatesCacheMapKeys.put(context, keySet);
+				}
+				keySet.add(key);
 			}
-			keySet.add(key);
+		}
+		return candidates;
+	}
+
+	private static boolean hasFreeParameters(Term term)
+	{
+		for (VariableTerm v : term.freeVariables())
+			if (v instanceof ParameterVariableTerm)
+				return true;
+		return false;
+	}
+
+	/**
+	 * The candidates recorded in the memo, or null if there are none or some
+	 * of them doesn't match anymore.
+	 */
+	private Set<StatementCandidate> memoizedStatementCandidatesFor(ProofSearchMemo memo, Context context, LocalStatementSet statements, UUID stamp,
+			UUID digest, SimpleTerm target)
+	{
+		List<UUID> uuids = memo.candidates(context.getUuid(), stamp, digest);
+		if (uuids == null)
+			return null;
+		Set<StatementCandidate> candidates = new HashSet<>();
+		for (UUID uuid : uuids)
+		{
+			Statement st = statements.get(uuid);
+			if (st == null)
+				return null;
+			StatementCandidate sc = new StatementCandidate(st, target);
+			if (!sc.isAssigned())
+				return null;
+			candidates.add(sc);
 		}
 		return candidates;
 	}
@@ -316,34 +411,46 @@ public class CandidateFinder implements StatementCacheTree.Listener
 		return t;
 	}
 
-	private synchronized Set<ImpureCandidate> localImpureCandidatesFor(Context context, Candidate candidate, VariableTerm variable,
-			VariableTerm variableDependent)
+	private Set<ImpureCandidate> localImpureCandidatesFor(Context context, Candidate candidate, VariableTerm variable, VariableTerm variableDependent)
 	{
 		ImpureCandidatesCacheMapKey key = new ImpureCandidatesCacheMapKey(context, candidate, variable, variableDependent);
-		Set<ImpureCandidate> impures = impureCandidatesCacheMap.get(key);
-		if (impures == null)
+		long generation;
+		synchronized (this)
 		{
-			impures = new HashSet<>();
-			Term type = candidate.getAntecedentMap().get(variableDependent);
-			Term target = type.dropIndependentParameters();
-			Collection<Statement> statements = statementCacheTree.getLocalStatementCollection(context);
-			synchronized (statements)
+			Set<ImpureCandidate> impures = impureCandidatesCacheMap.get(key);
+			if (impures != null)
+				return impures;
+			generation = cacheGeneration;
+		}
+		Set<ImpureCandidate> impures = new HashSet<>();
+		Term type = candidate.getAntecedentMap().get(variableDependent);
+		Term target = type.dropIndependentParameters();
+		Collection<Statement> statements = statementCacheTree.getLocalStatementCollection(context);
+		synchronized (statements)
+		{
+			for (Statement st : statements)
 			{
-				for (Statement st : statements)
-				{
-					Term value = assignImpure(variable, target, st.getTerm());
-					if (value != null)
-						impures.add(new ImpureCandidate(candidate, variable, value));
-				}
+				Term value = assignImpure(variable, target, st.getTerm());
+				if (value != null)
+					impures.add(new ImpureCandidate(candidate, variable, value));
 			}
-			impureCandidatesCacheMap.put(key, impures);
-			Set<ImpureCandidatesCacheMapKey> keySet = impureCandidatesCacheMapKeys.get(context);
-			if (keySet == null)
+		}
+		synchronized (this)
+		{
+			Set<ImpureCandidate> cached = impureCandidatesCacheMap.get(key);
+			if (cached != null)
+				return cached;
+			if (generation == cacheGeneration)
 			{
-				keySet = new HashSet<>();
-				impureCandidatesCacheMapKeys.put(context, keySet);
+				impureCandidatesCacheMap.put(key, impures);
+				Set<ImpureCandidatesCacheMapKey> keySet = impureCandidatesCacheMapKeys.get(context);
+				if (keySet == null)
+				{
+					keySet = new HashSet<>();
+					impureCandidatesCacheMapKeys.put(context, keySet);
+				}
+				keySet.add(key);
 			}
-			keySet.add(key);
 		}
 		return impures;
 	}
@@ -409,6 +516,7 @@ public class CandidateFinder implements StatementCacheTree.Listener
 
 	public synchronized void clearCache()
 	{
+		cacheGeneration++;
 		statementCacheTree.clear();
 		pureCandidatesCacheMapKeys.clear();
 		pureCandidatesCacheMap.clear();
@@ -419,6 +527,10 @@ public class CandidateFinder implements StatementCacheTree.Listener
 	@Override
 	public synchronized void newProvedStatement(Context context, Statement statement)
 	{
+		cacheGeneration++;
+		ProofSearchMemo memo = this.memo;
+		if (memo != null)
+			memo.invalidate(context.getUuid());
 		{
 			Set<PureCandidatesCacheMapKey> keySet = pureCandidatesCacheMapKeys.remove(context);
 			if (keySet != null)
@@ -436,6 +548,10 @@ public class CandidateFinder implements StatementCacheTree.Listener
 	@Override
 	public synchronized void disProvedStatement(Context context, Statement statement)
 	{
+		cacheGeneration++;
+		ProofSearchMemo memo = this.memo;
+		if (memo != null)
+			memo.invalidate(context.getUuid());
 		{
 			Set<PureCandidatesCacheMapKey> keySet = pureCandidatesCacheMapKeys.remove(context);
 			if (keySet != null)
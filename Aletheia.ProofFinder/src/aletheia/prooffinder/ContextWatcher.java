@@ -106,7 +106,7 @@ public class ContextWatcher implements StateListener
 		this.halt = false;
 	}
 
-	public void watchContext(Transaction transaction, Context context)
+	public synchronized void watchContext(Transaction transaction, Context context)
 	{
 		if (watching.add(context))
 		{
@@ -121,7 +121,7 @@ public class ContextWatcher implements StateListener
 		}
 	}
 
-	public void unwatchContext(Context context)
+	public synchronized void unwatchContext(Context context)
 	{
 		if (watching.remove(context))
 		{
@@ -138,7 +138,7 @@ public class ContextWatcher implements StateListener
 		}
 	}
 
-	public void unwatchAll()
+	public synchronized void unwatchAll()
 	{
 		for (Context context : watching)
 		{
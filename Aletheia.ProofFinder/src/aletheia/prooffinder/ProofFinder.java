@@ -19,12 +19,17 @@
  ******************************************************************************/
 package aletheia.prooffinder;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
@@ -37,6 +42,15 @@ import aletheia.model.statement.Context;
 import aletheia.persistence.PersistenceManager;
 import aletheia.prooffinder.QueueEntry.UnsolvableQueueEntryException;
 
+/**
+ * Searches proofs for the contexts in the proving pool. Every context has its
+ * own priority queue of {@link QueueEntry}s, and a pool of worker threads (as
+ * many as the {@linkplain #getParallelism() parallelism}) takes turns polling
+ * entries from all the queues and expanding them. Since the expansion of an
+ * entry is done out of this object's monitor, several workers might be
+ * expanding entries of the same context queue at once. Each context is
+ * reported to the listeners exactly once, either as proved or as discarded.
+ */
 public class ProofFinder
 {
 	private final static Logger logger = LoggerManager.instance.logger();
@@ -45,11 +59,17 @@ public class ProofFinder
 	private final ContextWatcher contextWatcher;
 	private final CandidateFinder candidateFinder;
 
+	/**
+	 * The queue of a context. Except for {@link #unsubsumed(Collection)}, that
+	 * relies on the thread-safety of the {@link SubsumptionTable}, its methods
+	 * must be called while holding the {@link ProofFinder}'s monitor.
+	 */
 	private class ContextQueue
 	{
 		public final Context context;
 		public final SubsumptionTable subsumptionTable;
 		public final Queue<QueueEntry> queue;
+		private int expanding;
 
 		public ContextQueue(Context context)
 		{
@@ -57,6 +77,7 @@ public class ProofFinder
 			this.context = context;
 			this.subsumptionTable = new SubsumptionTable();
 			this.queue = new PriorityQueue<>();
+			this.expanding = 0;
 			try
 			{
 				QueueEntry e = new RootQueueEntry(candidateFinder, context);
@@ -69,28 +90,38 @@ public class ProofFinder
 			}
 		}
 
-		public boolean iterate()
+		/**
+		 * Polls the next entry to expand, dropping the entries that have been
+		 * pruned by the subsumption table on the way.
+		 */
+		public QueueEntry poll()
 		{
 			QueueEntry qe = queue.poll();
-			if (qe == null)
-			{
-				contextDiscarded(context);
-				return true;
-			}
-			if (qe.solved())
-			{
-				contextProved(context, qe.getProof());
-				return true;
-			}
-			for (QueueEntry qe_ : qe.offspring())
-			{
-				if (!subsumptionTable.isSubsumed(qe_))
-				{
-					queue.add(qe_);
-					subsumptionTable.add(qe_);
-				}
-			}
-			return false;
+			while (qe != null && subsumptionTable.dequeued(qe))
+				qe = queue.poll();
+			if (qe != null)
+				expanding++;
+			return qe;
+		}
+
+		public Collection<QueueEntry> unsubsumed(Collection<QueueEntry> offspring)
+		{
+			Collection<QueueEntry> unsubsumed = new ArrayList<>();
+			for (QueueEntry qe : offspring)
+				if (subsumptionTable.addIfNotSubsumed(qe))
+					unsubsumed.add(qe);
+			return unsubsumed;
+		}
+
+		public void expanded(Collection<QueueEntry> offspring)
+		{
+			queue.addAll(offspring);
+			expanding--;
+		}
+
+		public boolean exhausted()
+		{
+			return queue.isEmpty() && expanding <= 0;
 		}
 
 		public int size()
@@ -99,7 +130,21 @@ public class ProofFinder
 		}
 	}
 
+	private class Expansion
+	{
+		public final ContextQueue contextQueue;
+		public final QueueEntry queueEntry;
+
+		public Expansion(ContextQueue contextQueue, QueueEntry queueEntry)
+		{
+			super();
+			this.contextQueue = contextQueue;
+			this.queueEntry = queueEntry;
+		}
+	}
+
 	private final Map<Context, ContextQueue> contextQueueMap;
+	private final Deque<ContextQueue> schedule;
 	private int totalSize;
 
 	public interface Listener
@@ -107,13 +152,26 @@ public class ProofFinder
 		public void contextProved(Context context, Proof proof);
 
 		public void contextDiscarded(Context context);
+
+		/**
+		 * Called (out of the {@link ProofFinder}'s monitor) after a queue
+		 * entry of the context has been expanded without solving it.
+		 *
+		 * @param queueSize
+		 *            The number of entries left in the context's queue.
+		 */
+		public default void contextExpanded(Context context, int queueSize)
+		{
+		}
 	}
 
 	private final Set<Listener> listeners;
-	private ProofFinderThread proofFinderThread;
+	private final Set<ProofFinderThread> proofFinderThreads;
+	private final CpuBudget cpuBudget;
 
 	private float throttle;
 	private int maxTotalSize;
+	private int parallelism;
 
 	public ProofFinder(PersistenceManager persistenceManager)
 	{
@@ -121,11 +179,14 @@ public class ProofFinder
 		this.contextWatcher = new ContextWatcher();
 		this.candidateFinder = new CandidateFinder(persistenceManager, contextWatcher);
 		this.contextQueueMap = new HashMap<>();
+		this.schedule = new ArrayDeque<>();
 		this.totalSize = 0;
 		this.listeners = Collections.synchronizedSet(new HashSet<>());
-		this.proofFinderThread = null;
+		this.proofFinderThreads = new HashSet<>();
+		this.cpuBudget = new CpuBudget();
 		this.throttle = 1.0f;
 		this.maxTotalSize = 5000;
+		this.parallelism = 1;
 	}
 
 	public PersistenceManager getPersistenceManager()
@@ -133,6 +194,10 @@ public class ProofFinder
 		return persistenceManager;
 	}
 
+	/**
+	 * The fraction of the cpu time of {@link #getParallelism()} cores that the
+	 * workers are allowed to spend, all of them together.
+	 */
 	public float getThrottle()
 	{
 		return throttle;
@@ -153,6 +218,28 @@ public class ProofFinder
 		this.maxTotalSize = maxTotalSize;
 	}
 
+	/**
+	 * The number of worker threads that expand the queue entries.
+	 */
+	public synchronized int getParallelism()
+	{
+		return parallelism;
+	}
+
+	/**
+	 * Changes the number of worker threads. The surplus workers (if any) will
+	 * stop after their current expansion.
+	 */
+	public synchronized void setParallelism(int parallelism)
+	{
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be positive");
+		this.parallelism = parallelism;
+		if (!contextQueueMap.isEmpty())
+			startProofFinderThreads();
+		notifyAll();
+	}
+
 	public void addListener(Listener listener)
 	{
 		listeners.add(listener);
@@ -181,97 +268,227 @@ public class ProofFinder
 		}
 	}
 
+	private void contextExpanded(Context context, int queueSize)
+	{
+		synchronized (listeners)
+		{
+			for (Listener l : listeners)
+				l.contextExpanded(context, queueSize);
+		}
+	}
+
 	public synchronized boolean addToProvingPool(Context context)
 	{
 		if (!contextQueueMap.containsKey(context))
 		{
 			ContextQueue cq = new ContextQueue(context);
 			contextQueueMap.put(context, cq);
-			if (proofFinderThread == null)
-			{
-				proofFinderThread = new ProofFinderThread();
-				proofFinderThread.start();
-			}
+			schedule.add(cq);
+			startProofFinderThreads();
 			totalSize += cq.size();
-			notify();
+			notifyAll();
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Takes a context out of the proving pool before its search is over,
+	 * reporting it to the listeners as discarded.
+	 *
+	 * @return Whether the context was in the pool.
+	 */
+	public synchronized boolean removeFromProvingPool(Context context)
+	{
+		ContextQueue cq = contextQueueMap.get(context);
+		if (cq == null)
+			return false;
+		removeContextQueue(cq);
+		contextDiscarded(context);
+		return true;
+	}
+
 	public synchronized void waitForFinish() throws InterruptedException
 	{
 		while (!contextQueueMap.isEmpty())
 			wait();
 	}
 
-	private synchronized void iterate() throws InterruptedException
+	private synchronized void startProofFinderThreads()
 	{
-		while (contextQueueMap.isEmpty())
-			wait();
-		int totalSize_ = 0;
-		int maxSize = Integer.MIN_VALUE;
-		Map.Entry<Context, ContextQueue> maxEntry = null;
-		Iterator<Map.Entry<Context, ContextQueue>> iterator = contextQueueMap.entrySet().iterator();
-		while (iterator.hasNext())
+		while (proofFinderThreads.size() < parallelism)
+		{
+			ProofFinderThread pft = new ProofFinderThread();
+			proofFinderThreads.add(pft);
+			pft.start();
+		}
+	}
+
+	private synchronized boolean live(ContextQueue contextQueue)
+	{
+		return contextQueueMap.get(contextQueue.context) == contextQueue;
+	}
+
+	private synchronized void removeContextQueue(ContextQueue contextQueue)
+	{
+		contextQueueMap.remove(contextQueue.context);
+		schedule.remove(contextQueue);
+		totalSize -= contextQueue.size();
+		notifyAll();
+	}
+
+	/**
+	 * Polls the next entry to expand from the context queues (in a round-robin
+	 * fashion), waiting if all of them are empty but still have entries being
+	 * expanded by other workers. The exhausted queues found on the way are
+	 * discarded.
+	 *
+	 * @return The expansion to do or null if the calling worker must stop.
+	 */
+	private synchronized Expansion nextExpansion(ProofFinderThread proofFinderThread) throws InterruptedException
+	{
+		while (true)
 		{
-			Map.Entry<Context, ContextQueue> e = iterator.next();
-			if (e.getValue().iterate())
+			if (proofFinderThread.halt || contextQueueMap.isEmpty() || proofFinderThreads.size() > parallelism)
 			{
-				iterator.remove();
-				notify();
+				proofFinderThreads.remove(proofFinderThread);
+				return null;
 			}
-			else
+			for (int i = schedule.size(); i > 0; i--)
 			{
-				int s = e.getValue().size();
-				totalSize_ += s;
-				if (s > maxSize)
+				ContextQueue cq = schedule.poll();
+				int size = cq.size();
+				QueueEntry qe = cq.poll();
+				totalSize -= size - cq.size();
+				if (qe != null)
 				{
-					maxSize = s;
-					maxEntry = e;
+					schedule.add(cq);
+					return new Expansion(cq, qe);
 				}
+				if (cq.exhausted())
+				{
+					contextQueueMap.remove(cq.context);
+					notifyAll();
+					contextDiscarded(cq.context);
+				}
+				else
+					schedule.add(cq);
 			}
-
+			if (!contextQueueMap.isEmpty())
+				wait();
 		}
+	}
 
-		totalSize = totalSize_;
+	/**
+	 * Expands a queue entry. The entry is always accounted as expanded in its
+	 * context queue, even if the expansion fails; a context whose expansion
+	 * throws an exception is discarded.
+	 */
+	private void expand(Expansion expansion)
+	{
+		ContextQueue cq = expansion.contextQueue;
+		QueueEntry qe = expansion.queueEntry;
+		Collection<QueueEntry> offspring = Collections.emptyList();
+		boolean live = false;
+		int queueSize;
+		try
+		{
+			if (qe.solved())
+				proved(cq, qe.getProof());
+			else if (live(cq))
+			{
+				offspring = cq.unsubsumed(qe.offspring());
+				live = true;
+			}
+		}
+		catch (RuntimeException e)
+		{
+			logger.error("Exception expanding the proof search of context " + cq.context.getUuid() + ", discarding it", e);
+			discard(cq);
+		}
+		finally
+		{
+			queueSize = expanded(cq, offspring);
+		}
+		if (live)
+			contextExpanded(cq.context, queueSize);
+	}
 
-		if (totalSize > maxTotalSize)
+	private synchronized void proved(ContextQueue contextQueue, Proof proof)
+	{
+		if (live(contextQueue))
 		{
-			contextQueueMap.remove(maxEntry.getKey());
-			notify();
-			contextDiscarded(maxEntry.getKey());
-			totalSize -= maxSize;
+			removeContextQueue(contextQueue);
+			contextProved(contextQueue.context, proof);
 		}
-		logger.debug("elems: " + contextQueueMap.size() + "   totalSize: " + totalSize);
 	}
 
-	private synchronized void discardContextQueue(ContextQueue contextQueue)
+	private synchronized void discard(ContextQueue contextQueue)
 	{
-		notify();
-		contextDiscarded(contextQueue.context);
-		totalSize -= contextQueue.size();
+		if (live(contextQueue))
+		{
+			removeContextQueue(contextQueue);
+			contextDiscarded(contextQueue.context);
+		}
 	}
 
-	public synchronized void discardAll()
+	/**
+	 * @return The size of the context queue after the expansion.
+	 */
+	private synchronized int expanded(ContextQueue contextQueue, Collection<QueueEntry> offspring)
 	{
-		Iterator<ContextQueue> iterator = contextQueueMap.values().iterator();
-		while (iterator.hasNext())
+		contextQueue.expanded(offspring);
+		if (live(contextQueue))
 		{
-			discardContextQueue(iterator.next());
-			iterator.remove();
+			totalSize += offspring.size();
+			if (totalSize > maxTotalSize)
+			{
+				ContextQueue max = null;
+				for (ContextQueue cq : contextQueueMap.values())
+					if (max == null || cq.size() > max.size())
+						max = cq;
+				removeContextQueue(max);
+				contextDiscarded(max.context);
+			}
 		}
+		notifyAll();
+		logger.debug("elems: " + contextQueueMap.size() + "   totalSize: " + totalSize);
+		return contextQueue.size();
 	}
 
-	private synchronized boolean endLoop()
+	public synchronized void discardAll()
 	{
-		if (contextQueueMap.isEmpty())
+		for (ContextQueue cq : contextQueueMap.values())
+			contextDiscarded(cq.context);
+		contextQueueMap.clear();
+		schedule.clear();
+		totalSize = 0;
+		notifyAll();
+	}
+
+	/**
+	 * Keeps the cpu time spent by all the workers within the
+	 * {@linkplain ProofFinder#getThrottle() throttle}. The budget is a point in
+	 * time that advances with every expansion proportionally to its cpu time,
+	 * and the worker must sleep until the present catches up with it.
+	 */
+	private class CpuBudget
+	{
+		private long budgetTime;
+
+		private CpuBudget()
 		{
-			proofFinderThread = null;
-			return true;
+			this.budgetTime = System.nanoTime();
+		}
+
+		/**
+		 * @return The nanoseconds the worker must sleep.
+		 */
+		private synchronized long spend(long realTime, long cpuTime)
+		{
+			budgetTime = Math.max(budgetTime, realTime) + (long) (cpuTime / (throttle * parallelism));
+			return budgetTime - System.nanoTime();
 		}
-		else
-			return false;
 	}
 
 	private class ProofFinderThread extends Thread
@@ -284,56 +501,108 @@ public class ProofFinder
 			this.halt = false;
 		}
 
-		public void shutdown() throws InterruptedException
-		{
-			this.halt = true;
-			join();
-		}
-
 		@Override
 		public void run()
 		{
 			ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
-			long lastRealTime = System.nanoTime();
-			long lastCpuTime = threadMXBean.getCurrentThreadCpuTime();
-			while (!halt && !endLoop())
+			try
 			{
-				try
-				{
-					iterate();
-					long realTime = System.nanoTime();
-					long cpuTime = threadMXBean.getCurrentThreadCpuTime();
-					long wait = (long) ((cpuTime - lastCpuTime) / throttle) - (realTime - lastRealTime);
-					if (wait > 0)
-						Thread.sleep(wait / 1000000, (int) (wait % 1000000));
-					lastRealTime = realTime;
-					lastCpuTime = cpuTime;
-				}
-				catch (InterruptedException e)
+				while (true)
 				{
+					try
+					{
+						Expansion expansion = nextExpansion(this);
+						if (expansion == null)
+							break;
+						long realTime = System.nanoTime();
+						long cpuTime = threadMXBean.getCurrentThreadCpuTime();
+						expand(expansion);
+						long wait = cpuBudget.spend(realTime, threadMXBean.getCurrentThreadCpuTime() - cpuTime);
+						if (wait > 0)
+							Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+					}
+					catch (InterruptedException e)
+					{
+					}
+					catch (RuntimeException e)
+					{
+						logger.error("Exception caught in proof finder thread", e);
+					}
 				}
 			}
+			finally
+			{
+				proofFinderThreadFinished(this);
+			}
 
 		}
 
 	}
 
-	private void shutdownProofFinderThread() throws InterruptedException
+	private synchronized void proofFinderThreadFinished(ProofFinderThread proofFinderThread)
+	{
+		proofFinderThreads.remove(proofFinderThread);
+		notifyAll();
+	}
+
+	private void shutdownProofFinderThreads() throws InterruptedException
 	{
-		ProofFinderThread pft = null;
+		Collection<ProofFinderThread> pfts;
 		synchronized (this)
 		{
-			if (proofFinderThread != null)
-				pft = proofFinderThread;
-			proofFinderThread = null;
+			pfts = new ArrayList<>(proofFinderThreads);
+			for (ProofFinderThread pft : pfts)
+				pft.halt = true;
+			notifyAll();
+		}
+		for (ProofFinderThread pft : pfts)
+			pft.join();
+	}
+
+	/**
+	 * The on-disk memo of the candidate finder, or null if none is open.
+	 */
+	public ProofSearchMemo getMemo()
+	{
+		return candidateFinder.getMemo();
+	}
+
+	/**
+	 * Opens (or creates) an on-disk memo of the proof search, closing the
+	 * current one (if any).
+	 *
+	 * @see ProofSearchMemo
+	 */
+	public synchronized void openMemo(File file) throws IOException
+	{
+		closeMemo();
+		candidateFinder.setMemo(ProofSearchMemo.open(file));
+	}
+
+	/**
+	 * Saves and closes the current memo (if any).
+	 */
+	public synchronized void closeMemo() throws IOException
+	{
+		ProofSearchMemo memo = candidateFinder.getMemo();
+		if (memo != null)
+		{
+			candidateFinder.setMemo(null);
+			memo.save();
 		}
-		if (pft != null)
-			pft.shutdown();
 	}
 
 	public void shutdown() throws InterruptedException
 	{
-		shutdownProofFinderThread();
+		shutdownProofFinderThreads();
+		try
+		{
+			closeMemo();
+		}
+		catch (IOException e)
+		{
+			logger.error("Exception saving the proof search memo", e);
+		}
 		contextWatcher.shutdown();
 		candidateFinder.shutdown();
 	}
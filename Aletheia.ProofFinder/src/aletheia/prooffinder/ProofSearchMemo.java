@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.prooffinder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import aletheia.model.term.TermDigest;
+
+/**
+ * An on-disk memo of the candidate lists computed by the
+ * {@link CandidateFinder}, so repeated proof searches on the same contexts
+ * (even on different sessions) start warm.
+ *
+ * For every context, the memo records the UUIDs of the local statements whose
+ * consequent matches a target, keyed by the {@link TermDigest} of the target.
+ * An empty list records a failed sub-goal: a target that has no candidates in
+ * the context. Since the digest of a term with free parameters does not tell
+ * their types apart, only targets without free parameters are memoized.
+ *
+ * The entries of a context are tagged with the
+ * {@linkplain StatementCacheTree.LocalStatementSet#stamp() stamp} of its
+ * proved local statements when they were computed, and they are all dropped
+ * once the stamp no longer matches (the proved statements might have changed
+ * while the memo was not watching them). They are also dropped when the
+ * {@link ContextWatcher} reports a change.
+ *
+ * The memo is held in memory and saved to its file with {@link #save()},
+ * writing a new file through a memory mapping and renaming it over the old
+ * one. The file has a header (magic number, version, number of contexts)
+ * followed by the records of the contexts: the UUID, the stamp and the number
+ * of targets, and then for each target its digest, the number of candidates
+ * and their UUIDs.
+ */
+public class ProofSearchMemo
+{
+	private static final int magic = 0x416c504d;
+	private static final int version = 1;
+	private static final int headerSize = 12;
+
+	private static class ContextMemo
+	{
+		private final UUID stamp;
+		private final Map<UUID, UUID[]> candidates;
+
+		private ContextMemo(UUID stamp)
+		{
+			this.stamp = stamp;
+			this.candidates = new HashMap<>();
+		}
+	}
+
+	private final File file;
+	private final Map<UUID, ContextMemo> contextMemos;
+
+	private ProofSearchMemo(File file)
+	{
+		this.file = file;
+		this.contextMemos = new HashMap<>();
+	}
+
+	/**
+	 * Opens a memo, loading the file if it exists.
+	 */
+	public static ProofSearchMemo open(File file) throws IOException
+	{
+		ProofSearchMemo memo = new ProofSearchMemo(file);
+		if (file.exists())
+			memo.load();
+		return memo;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	private static UUID getUuid(MappedByteBuffer buffer)
+	{
+		long most = buffer.getLong();
+		long least = buffer.getLong();
+		return new UUID(most, least);
+	}
+
+	private static void putUuid(MappedByteBuffer buffer, UUID uuid)
+	{
+		buffer.putLong(uuid.getMostSignificantBits());
+		buffer.putLong(uuid.getLeastSignificantBits());
+	}
+
+	private void load() throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath()))
+		{
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.capacity() < headerSize || buffer.getInt() != magic)
+				throw new IOException("Not a proof search memo file");
+			int version = buffer.getInt();
+			if (version != ProofSearchMemo.version)
+				throw new IOException("Unsupported proof search memo version: " + version);
+			int contexts = buffer.getInt();
+			for (int i = 0; i < contexts; i++)
+			{
+				UUID context = getUuid(buffer);
+				ContextMemo contextMemo = new ContextMemo(getUuid(buffer));
+				int targets = buffer.getInt();
+				for (int j = 0; j < targets; j++)
+				{
+					UUID target = getUuid(buffer);
+					UUID[] statements = new UUID[buffer.getInt()];
+					for (int k = 0; k < statements.length; k++)
+						statements[k] = getUuid(buffer);
+					contextMemo.candidates.put(target, statements);
+				}
+				contextMemos.put(context, contextMemo);
+			}
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("Corrupt proof search memo file", e);
+		}
+	}
+
+	/**
+	 * Writes the memo to its file.
+	 */
+	public synchronized void save() throws IOException
+	{
+		long size = headerSize;
+		for (ContextMemo contextMemo : contextMemos.values())
+		{
+			size += 36;
+			for (UUID[] statements : contextMemo.candidates.values())
+				size += 20 + 16 * statements.length;
+		}
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Proof search memo too big to be mapped");
+		File tmp = new File(file.getPath() + ".tmp");
+		try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw"))
+		{
+			raf.setLength(0);
+			MappedByteBuffer buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+			buffer.putInt(magic);
+			buffer.putInt(version);
+			buffer.putInt(contextMemos.size());
+			for (Map.Entry<UUID, ContextMemo> e : contextMemos.entrySet())
+			{
+				putUuid(buffer, e.getKey());
+				putUuid(buffer, e.getValue().stamp);
+				buffer.putInt(e.getValue().candidates.size());
+				for (Map.Entry<UUID, UUID[]> e_ : e.getValue().candidates.entrySet())
+				{
+					putUuid(buffer, e_.getKey());
+					buffer.putInt(e_.getValue().length);
+					for (UUID statement : e_.getValue())
+						putUuid(buffer, statement);
+				}
+			}
+			buffer.force();
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * The memoized candidates for a target in a context.
+	 *
+	 * @param context
+	 *            The UUID of the context.
+	 * @param stamp
+	 *            The current stamp of the proved local statements of the
+	 *            context. If it's not the one the entries of the context were
+	 *            computed with, they are dropped.
+	 * @param target
+	 *            The digest of the target.
+	 * @return The UUIDs of the candidate statements or null if there is no
+	 *         entry.
+	 */
+	public synchronized List<UUID> candidates(UUID context, UUID stamp, UUID target)
+	{
+		ContextMemo contextMemo = contextMemos.get(context);
+		if (contextMemo == null)
+			return null;
+		if (!contextMemo.stamp.equals(stamp))
+		{
+			contextMemos.remove(context);
+			return null;
+		}
+		UUID[] statements = contextMemo.candidates.get(target);
+		return statements != null ? Arrays.asList(statements) : null;
+	}
+
+	/**
+	 * Records the candidates for a target in a context.
+	 *
+	 * @see #candidates(UUID, UUID, UUID)
+	 */
+	public synchronized void putCandidates(UUID context, UUID stamp, UUID target, Collection<UUID> statements)
+	{
+		ContextMemo contextMemo = contextMemos.get(context);
+		if (contextMemo == null || !contextMemo.stamp.equals(stamp))
+		{
+			contextMemo = new ContextMemo(stamp);
+			contextMemos.put(context, contextMemo);
+		}
+		contextMemo.candidates.put(target, statements.toArray(new UUID[0]));
+	}
+
+	/**
+	 * Drops the entries of a context.
+	 */
+	public synchronized void invalidate(UUID context)
+	{
+		contextMemos.remove(context);
+	}
+
+	public synchronized void clear()
+	{
+		contextMemos.clear();
+	}
+
+	/**
+	 * The number of memoized targets.
+	 */
+	public synchronized int size()
+	{
+		int size = 0;
+		for (ContextMemo contextMemo : contextMemos.values())
+			size += contextMemo.candidates.size();
+		return size;
+	}
+
+}
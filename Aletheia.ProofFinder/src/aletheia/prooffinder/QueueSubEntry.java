@@ -64,7 +64,7 @@ public abstract class QueueSubEntry implements Comparable<QueueSubEntry>
 	private CandidatesInfo candidatesInfo;
 
 	private int hashCode;
-	private boolean hashCoded;
+	private volatile boolean hashCoded;
 
 	public QueueSubEntry(CandidateFinder candidateFinder, Context context)
 	{
@@ -301,7 +301,7 @@ public abstract class QueueSubEntry implements Comparable<QueueSubEntry>
 				private static final long serialVersionUID = 2765761103803061198L;
 
 				@Override
-				protected int hashCode(int hasher)
+				protected int hashCode(int hasher, BoundParameterHashes boundParameterHashes)
 				{
 					return hashCode;
 				}
@@ -329,8 +329,10 @@ public abstract class QueueSubEntry implements Comparable<QueueSubEntry>
 	final public int hashCode()
 	{
 		if (!hashCoded)
+		{
 			hashCode = calcHashCode();
-		hashCoded = true;
+			hashCoded = true;
+		}
 		return hashCode;
 	}
 
@@ -19,15 +19,21 @@
  ******************************************************************************/
 package aletheia.prooffinder;
 
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.UUID;
 
 import aletheia.model.statement.Context;
 import aletheia.model.statement.RootContext;
 import aletheia.model.statement.Statement;
+import aletheia.model.term.SimpleTerm;
 import aletheia.persistence.PersistenceManager;
 import aletheia.persistence.Transaction;
 import aletheia.utilities.collections.CacheWithCleanerMap;
@@ -43,9 +49,144 @@ public class StatementCacheTree implements ContextWatcher.Listener, CacheWithCle
 		public void disProvedStatement(Context context, Statement statement);
 	}
 
+	/**
+	 * The proved local statements of a context, indexed by their consequents.
+	 * As with {@link Collections#synchronizedSet(Set)}, every method is
+	 * synchronized on the set itself, which must also be held while iterating
+	 * it.
+	 */
+	public static class LocalStatementSet extends AbstractSet<Statement>
+	{
+		private final Set<Statement> statements;
+		private final Map<UUID, Statement> byUuid;
+		private final StatementDiscriminationTree discriminationTree;
+		private long stampMost;
+		private long stampLeast;
+
+		private LocalStatementSet()
+		{
+			this.statements = new HashSet<>();
+			this.byUuid = new HashMap<>();
+			this.discriminationTree = new StatementDiscriminationTree();
+			this.stampMost = 0;
+			this.stampLeast = 0;
+		}
+
+		private void added(Statement statement)
+		{
+			byUuid.put(statement.getUuid(), statement);
+			discriminationTree.add(statement);
+			stampMost ^= statement.getUuid().getMostSignificantBits();
+			stampLeast ^= statement.getUuid().getLeastSignificantBits();
+		}
+
+		private void removed(Statement statement)
+		{
+			byUuid.remove(statement.getUuid());
+			discriminationTree.remove(statement);
+			stampMost ^= statement.getUuid().getMostSignificantBits();
+			stampLeast ^= statement.getUuid().getLeastSignificantBits();
+		}
+
+		@Override
+		public synchronized int size()
+		{
+			return statements.size();
+		}
+
+		@Override
+		public synchronized boolean contains(Object o)
+		{
+			return statements.contains(o);
+		}
+
+		@Override
+		public synchronized boolean add(Statement statement)
+		{
+			if (!statements.add(statement))
+				return false;
+			added(statement);
+			return true;
+		}
+
+		@Override
+		public synchronized boolean remove(Object o)
+		{
+			if (!statements.remove(o))
+				return false;
+			removed((Statement) o);
+			return true;
+		}
+
+		@Override
+		public synchronized void clear()
+		{
+			statements.clear();
+			byUuid.clear();
+			discriminationTree.clear();
+			stampMost = 0;
+			stampLeast = 0;
+		}
+
+		public synchronized Statement get(UUID uuid)
+		{
+			return byUuid.get(uuid);
+		}
+
+		/**
+		 * A digest of the UUIDs of the statements in this set, that changes
+		 * whenever a statement is added or removed.
+		 */
+		public synchronized UUID stamp()
+		{
+			return new UUID(stampMost, stampLeast ^ statements.size());
+		}
+
+		@Override
+		public Iterator<Statement> iterator()
+		{
+			Iterator<Statement> iterator = statements.iterator();
+			return new Iterator<>()
+			{
+				private Statement last = null;
+
+				@Override
+				public boolean hasNext()
+				{
+					return iterator.hasNext();
+				}
+
+				@Override
+				public Statement next()
+				{
+					return last = iterator.next();
+				}
+
+				@Override
+				public void remove()
+				{
+					iterator.remove();
+					removed(last);
+				}
+			};
+		}
+
+		/**
+		 * The statements of this set that might be a {@link Candidate} for the
+		 * target.
+		 *
+		 * @see StatementDiscriminationTree#candidates(SimpleTerm)
+		 */
+		public synchronized Collection<Statement> candidates(SimpleTerm target)
+		{
+			return discriminationTree.candidates(target);
+		}
+
+	}
+
 	private final PersistenceManager persistenceManager;
 	private final ContextWatcher contextWatcher;
-	private final CacheWithCleanerMap<Context, Set<Statement>> localStatementsCacheMap;
+	private final CacheWithCleanerMap<Context, LocalStatementSet> localStatementsCacheMap;
 	private final Set<Listener> listeners;
 
 	public StatementCacheTree(PersistenceManager persistenceManager, ContextWatcher contextWatcher)
@@ -80,13 +221,18 @@ public class StatementCacheTree implements ContextWatcher.Listener, CacheWithCle
 
 	public Collection<Statement> getLocalStatementCollection(Context ctx)
 	{
-		Set<Statement> set = localStatementsCacheMap.get(ctx);
+		return getLocalStatementSet(ctx);
+	}
+
+	public synchronized LocalStatementSet getLocalStatementSet(Context ctx)
+	{
+		LocalStatementSet set = localStatementsCacheMap.get(ctx);
 		if (set == null)
 		{
 			Transaction transaction = persistenceManager.beginTransaction();
 			try
 			{
-				set = Collections.synchronizedSet(new HashSet<>());
+				set = new LocalStatementSet();
 				for (Statement st : ctx.localStatements(transaction).values())
 				{
 					if (st.isProved())
@@ -131,7 +277,7 @@ public class StatementCacheTree implements ContextWatcher.Listener, CacheWithCle
 	@Override
 	public void newProvedStatement(Context context, Statement statement)
 	{
-		Set<Statement> set = localStatementsCacheMap.get(context);
+		LocalStatementSet set = localStatementsCacheMap.get(context);
 		if (set != null)
 		{
 			set.add(statement);
@@ -146,7 +292,7 @@ public class StatementCacheTree implements ContextWatcher.Listener, CacheWithCle
 	@Override
 	public void disProvedStatement(Context context, Statement statement)
 	{
-		Set<Statement> set = localStatementsCacheMap.get(context);
+		LocalStatementSet set = localStatementsCacheMap.get(context);
 		if (set != null)
 		{
 			set.remove(statement);
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.prooffinder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import aletheia.model.statement.Statement;
+import aletheia.model.term.CompositionTerm;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.IdentifiableVariableTerm;
+import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.Term;
+import aletheia.model.term.VariableTerm;
+
+/**
+ * A discrimination tree that indexes statements by the consequent of their
+ * terms, used to retrieve the statements that might be a {@link Candidate}
+ * for a given target without trying to match every one of them.
+ *
+ * The consequents are flattened in preorder into a sequence of symbols: a
+ * {@link CompositionTerm} becomes a composition symbol followed by its head
+ * and tail, an {@link IdentifiableVariableTerm} becomes its UUID,
+ * the parameters of the statement's term become a wildcard that matches any
+ * subterm of the target and anything else is an opaque symbol. A composition
+ * whose innermost head is one of the parameters is also turned into a
+ * wildcard, since its assignment might reduce it to a non-composition. The
+ * retrieval is therefore a superset of the statements whose consequent
+ * actually matches the target (as in {@link Term#match(Collection, Term)}),
+ * and the candidates must still be checked with
+ * {@link Candidate#isAssigned()}.
+ *
+ * This class is not thread-safe.
+ */
+public class StatementDiscriminationTree
+{
+	private enum Symbol
+	{
+		Composition, Opaque, Wildcard,
+	}
+
+	private static class Node
+	{
+		private final Map<Object, Node> children = new HashMap<>();
+		private final Set<Statement> statements = new HashSet<>();
+
+		private boolean isEmpty()
+		{
+			return children.isEmpty() && statements.isEmpty();
+		}
+	}
+
+	private final Node root;
+
+	public StatementDiscriminationTree()
+	{
+		this.root = new Node();
+	}
+
+	private static List<Object> statementKey(Statement statement)
+	{
+		Set<VariableTerm> parameters = new HashSet<>();
+		Term term = statement.getTerm();
+		while (term instanceof FunctionTerm)
+		{
+			parameters.add(((FunctionTerm) term).getParameter());
+			term = ((FunctionTerm) term).getBody();
+		}
+		List<Object> key = new ArrayList<>();
+		statementKey(term, parameters, key);
+		return key;
+	}
+
+	private static void statementKey(Term term, Set<VariableTerm> parameters, List<Object> key)
+	{
+		if (term instanceof CompositionTerm)
+		{
+			Term head = term;
+			while (head instanceof CompositionTerm)
+				head = ((CompositionTerm) head).getHead();
+			if ((head instanceof VariableTerm) && !parameters.contains(head))
+			{
+				CompositionTerm composition = (CompositionTerm) term;
+				key.add(Symbol.Composition);
+				statementKey(composition.getHead(), parameters, key);
+				statementKey(composition.getTail(), parameters, key);
+			}
+			else
+				key.add(Symbol.Wildcard);
+		}
+		else if (parameters.contains(term))
+			key.add(Symbol.Wildcard);
+		else if (term instanceof IdentifiableVariableTerm)
+			key.add(((IdentifiableVariableTerm) term).getUuid());
+		else
+			key.add(Symbol.Opaque);
+	}
+
+	/**
+	 * Flattens the target into its sequence of symbols, and records in ends
+	 * the position next to the end of the subterm that starts at each
+	 * position.
+	 */
+	private static void targetKey(Term term, List<Object> key, List<Integer> ends)
+	{
+		int position = key.size();
+		ends.add(null);
+		if (term instanceof CompositionTerm)
+		{
+			key.add(Symbol.Composition);
+			targetKey(((CompositionTerm) term).getHead(), key, ends);
+			targetKey(((CompositionTerm) term).getTail(), key, ends);
+		}
+		else if (term instanceof IdentifiableVariableTerm)
+			key.add(((IdentifiableVariableTerm) term).getUuid());
+		else
+			key.add(Symbol.Opaque);
+		ends.set(position, key.size());
+	}
+
+	public void add(Statement statement)
+	{
+		Node node = root;
+		for (Object symbol : statementKey(statement))
+		{
+			Node child = node.children.get(symbol);
+			if (child == null)
+			{
+				child = new Node();
+				node.children.put(symbol, child);
+			}
+			node = child;
+		}
+		node.statements.add(statement);
+	}
+
+	public boolean remove(Statement statement)
+	{
+		List<Object> key = statementKey(statement);
+		List<Node> path = new ArrayList<>();
+		Node node = root;
+		for (Object symbol : key)
+		{
+			path.add(node);
+			node = node.children.get(symbol);
+			if (node == null)
+				return false;
+		}
+		if (!node.statements.remove(statement))
+			return false;
+		for (int i = key.size() - 1; i >= 0 && node.isEmpty(); i--)
+		{
+			node = path.get(i);
+			node.children.remove(key.get(i));
+		}
+		return true;
+	}
+
+	public void clear()
+	{
+		root.children.clear();
+		root.statements.clear();
+	}
+
+	/**
+	 * The statements whose consequent might match the target.
+	 */
+	public Collection<Statement> candidates(SimpleTerm target)
+	{
+		List<Object> key = new ArrayList<>();
+		List<Integer> ends = new ArrayList<>();
+		targetKey(target, key, ends);
+		Collection<Statement> candidates = new ArrayList<>();
+		candidates(root, 0, key, ends, candidates);
+		return candidates;
+	}
+
+	private static void candidates(Node node, int position, List<Object> key, List<Integer> ends, Collection<Statement> candidates)
+	{
+		if (position >= key.size())
+		{
+			candidates.addAll(node.statements);
+			return;
+		}
+		Node wildcard = node.children.get(Symbol.Wildcard);
+		if (wildcard != null)
+			candidates(wildcard, ends.get(position), key, ends, candidates);
+		Node child = node.children.get(key.get(position));
+		if (child != null)
+			candidates(child, position + 1, key, ends, candidates);
+	}
+
+}
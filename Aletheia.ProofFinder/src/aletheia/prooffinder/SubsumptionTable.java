@@ -19,44 +19,148 @@
  ******************************************************************************/
 package aletheia.prooffinder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Indexes the {@link QueueEntry}s of a context queue by their sub-entries to
+ * check if new entries are subsumed by the already known ones (forward
+ * subsumption) and to find the known ones that are subsumed by a new entry
+ * (backward subsumption). An entry subsumes another when its sub-entries are
+ * a subset of the other's (see {@link QueueEntry#subsumes(QueueEntry)}).
+ *
+ * Every entry is filed under a single anchor sub-entry (the one with fewer
+ * entries at the time of its addition) for the forward checks, and under
+ * all of its sub-entries for the backward ones. Before calling
+ * {@link QueueEntry#subsumes(QueueEntry)} the entries are filtered by their
+ * feature vectors: the number of sub-entries and a 64-bit signature with a
+ * bit set for the hash of each of them, which must be included in the
+ * signature of any superset.
+ *
+ * The table also keeps track of which of its entries are still waiting in the
+ * queue (from their addition until {@link #dequeued(QueueEntry)}), since only
+ * those are marked as pruned.
+ *
+ * All the methods are synchronized, so several proof finder workers can
+ * share a table.
+ */
 public class SubsumptionTable
 {
-	private final Map<QueueSubEntry, Set<QueueEntry>> table;
+	private static class Features
+	{
+		public final QueueEntry entry;
+		public final List<QueueSubEntry> subEntries;
+		public final long signature;
+
+		public Features(QueueEntry entry)
+		{
+			this.entry = entry;
+			this.subEntries = new ArrayList<>(entry.subEntries());
+			long signature = 0;
+			for (QueueSubEntry qse : subEntries)
+				signature |= 1L << ((qse.hashCode() * 0x9e3779b9) >>> 26);
+			this.signature = signature;
+		}
+
+		public int size()
+		{
+			return subEntries.size();
+		}
+
+		/**
+		 * Whether these features don't discard that this entry is subsumed by
+		 * the other.
+		 */
+		public boolean mightBeSubsumedBy(Features other)
+		{
+			return other.size() <= size() && (other.signature & ~signature) == 0;
+		}
+	}
+
+	private final Map<QueueSubEntry, Set<Features>> anchored;
+	private final Map<QueueSubEntry, Set<Features>> containing;
+	private final Set<QueueEntry> queued;
+	private final Set<QueueEntry> pruned;
 
 	public SubsumptionTable()
 	{
-		table = new HashMap<>();
+		this.anchored = new HashMap<>();
+		this.containing = new HashMap<>();
+		this.queued = new HashSet<>();
+		this.pruned = new HashSet<>();
+	}
+
+	private Set<Features> containing(QueueSubEntry qse)
+	{
+		Set<Features> set = containing.get(qse);
+		return set != null ? set : Collections.emptySet();
 	}
 
-	public void add(QueueEntry qe)
+	private void add(Features f)
 	{
-		for (QueueSubEntry qse : qe.subEntries())
+		if (f.subEntries.isEmpty())
+			return;
+		QueueSubEntry anchor = null;
+		for (QueueSubEntry qse : f.subEntries)
 		{
-			Set<QueueEntry> set = table.get(qse);
+			if (anchor == null || containing(qse).size() < containing(anchor).size())
+				anchor = qse;
+			Set<Features> set = containing.get(qse);
 			if (set == null)
 			{
 				set = new HashSet<>();
-				table.put(qse, set);
+				containing.put(qse, set);
 			}
-			set.add(qe);
+			set.add(f);
+		}
+		Set<Features> set = anchored.get(anchor);
+		if (set == null)
+		{
+			set = new HashSet<>();
+			anchored.put(anchor, set);
 		}
+		set.add(f);
 	}
 
-	public boolean isSubsumed(QueueEntry qe)
+	private void remove(Features f)
 	{
-		for (QueueSubEntry qse : qe.subEntries())
+		for (QueueSubEntry qse : f.subEntries)
 		{
-			Set<QueueEntry> set = table.get(qse);
+			Set<Features> set = containing.get(qse);
 			if (set != null)
 			{
-				for (QueueEntry qe_ : set)
+				set.remove(f);
+				if (set.isEmpty())
+					containing.remove(qse);
+			}
+			set = anchored.get(qse);
+			if (set != null && set.remove(f) && set.isEmpty())
+				anchored.remove(qse);
+		}
+	}
+
+	public synchronized void add(QueueEntry qe)
+	{
+		add(new Features(qe));
+		queued.add(qe);
+	}
+
+	private boolean isSubsumed(Features f)
+	{
+		for (QueueSubEntry qse : f.subEntries)
+		{
+			Set<Features> set = anchored.get(qse);
+			if (set != null)
+			{
+				for (Features f_ : set)
 				{
-					if (qe_.subsumes(qe))
+					if (f.mightBeSubsumedBy(f_) && f_.entry.subsumes(f.entry))
 						return true;
 				}
 			}
@@ -64,4 +168,67 @@ public class SubsumptionTable
 		return false;
 	}
 
+	public synchronized boolean isSubsumed(QueueEntry qe)
+	{
+		return isSubsumed(new Features(qe));
+	}
+
+	private Collection<Features> subsumed(Features f)
+	{
+		if (f.subEntries.isEmpty())
+			return Collections.emptyList();
+		Set<Features> rarest = null;
+		for (QueueSubEntry qse : f.subEntries)
+		{
+			Set<Features> set = containing(qse);
+			if (rarest == null || set.size() < rarest.size())
+				rarest = set;
+		}
+		Collection<Features> subsumed = new ArrayList<>();
+		for (Features f_ : rarest)
+		{
+			if (f_.mightBeSubsumedBy(f) && f.entry.subsumes(f_.entry))
+				subsumed.add(f_);
+		}
+		return subsumed;
+	}
+
+	/**
+	 * Adds the entry if it's not subsumed by any entry in the table, and in
+	 * that case removes from the table the entries that are subsumed by the
+	 * new one, marking as pruned the ones still queued.
+	 *
+	 * @return Whether the entry has been added.
+	 *
+	 * @see #dequeued(QueueEntry)
+	 */
+	public synchronized boolean addIfNotSubsumed(QueueEntry qe)
+	{
+		Features f = new Features(qe);
+		if (isSubsumed(f))
+			return false;
+		for (Features f_ : subsumed(f))
+		{
+			remove(f_);
+			if (queued.remove(f_.entry))
+				pruned.add(f_.entry);
+		}
+		add(f);
+		queued.add(qe);
+		return true;
+	}
+
+	/**
+	 * Records that an entry has been taken out of the queue.
+	 *
+	 * @return Whether the entry had been pruned from the table by the addition
+	 *         of an entry that subsumes it, so it may be dropped without
+	 *         expanding it.
+	 */
+	public synchronized boolean dequeued(QueueEntry qe)
+	{
+		queued.remove(qe);
+		return pruned.remove(qe);
+	}
+
 }
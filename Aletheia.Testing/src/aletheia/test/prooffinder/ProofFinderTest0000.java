@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.test.prooffinder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import aletheia.model.statement.Assumption;
+import aletheia.model.statement.RootContext;
+import aletheia.model.statement.Specialization;
+import aletheia.model.statement.Statement;
+import aletheia.model.term.CompositionTerm;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.ParameterVariableTerm;
+import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.TauTerm;
+import aletheia.model.term.Term;
+import aletheia.persistence.Transaction;
+import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
+import aletheia.prooffinder.StatementCandidate;
+import aletheia.prooffinder.StatementDiscriminationTree;
+import aletheia.test.BerkeleyDBPersistenceManagerTest;
+
+/**
+ * Benchmarks the candidate retrieval of {@link StatementDiscriminationTree}
+ * against trying every statement of a context. Builds (and finally discards)
+ * a root context with a relation on a type and tens of thousands of proved
+ * specializations of its hypothesis, and checks that both methods yield the
+ * same candidates for random targets.
+ */
+public class ProofFinderTest0000 extends BerkeleyDBPersistenceManagerTest
+{
+	private final static int constants = 200;
+	private final static int instances = 100;
+	private final static int targets = 1000;
+
+	public ProofFinderTest0000()
+	{
+		super();
+		setReadOnly(false);
+	}
+
+	@Override
+	protected void run(BerkeleyDBPersistenceManager persistenceManager) throws Exception
+	{
+		Transaction transaction = persistenceManager.beginTransaction();
+		try
+		{
+			TauTerm tau = TauTerm.instance;
+			List<ParameterVariableTerm> parameters = new ArrayList<>();
+			ParameterVariableTerm type = new ParameterVariableTerm(tau);
+			parameters.add(type);
+			ParameterVariableTerm relation = new ParameterVariableTerm(
+					new FunctionTerm(new ParameterVariableTerm(type), new FunctionTerm(new ParameterVariableTerm(type), tau)));
+			parameters.add(relation);
+			ParameterVariableTerm x = new ParameterVariableTerm(type);
+			ParameterVariableTerm y = new ParameterVariableTerm(type);
+			parameters.add(new ParameterVariableTerm(new FunctionTerm(x, new FunctionTerm(y, new CompositionTerm(new CompositionTerm(relation, x), y)))));
+			for (int i = 0; i < constants; i++)
+				parameters.add(new ParameterVariableTerm(type));
+			Term term = tau;
+			for (int i = parameters.size() - 1; i >= 0; i--)
+				term = new FunctionTerm(parameters.get(i), term);
+			RootContext rootContext = RootContext.create(persistenceManager, transaction, UUID.randomUUID(), term);
+			List<Assumption> assumptions = rootContext.assumptions(transaction);
+			Assumption hypothesis = assumptions.get(2);
+			long t0 = System.nanoTime();
+			for (int i = 0; i < constants; i++)
+			{
+				Assumption ci = assumptions.get(3 + i);
+				Specialization partial = rootContext.specialize(transaction, hypothesis, ci.getVariable(), ci);
+				for (int j = 0; j < instances; j++)
+				{
+					Assumption cj = assumptions.get(3 + (i + j) % constants);
+					rootContext.specialize(transaction, partial, cj.getVariable(), cj);
+				}
+			}
+			Collection<Statement> statements = new ArrayList<>();
+			for (Statement statement : rootContext.localStatements(transaction).values())
+				if (statement.isProved())
+					statements.add(statement);
+			System.out.format("%d proved statements created (%dms)\n", statements.size(), (System.nanoTime() - t0) / 1000000);
+
+			t0 = System.nanoTime();
+			StatementDiscriminationTree discriminationTree = new StatementDiscriminationTree();
+			for (Statement statement : statements)
+				discriminationTree.add(statement);
+			System.out.format("Discrimination tree built (%dms)\n", (System.nanoTime() - t0) / 1000000);
+
+			Random random = new Random(0);
+			List<SimpleTerm> targetList = new ArrayList<>();
+			for (int i = 0; i < targets; i++)
+			{
+				Term ci = assumptions.get(3 + random.nextInt(constants)).getVariable();
+				Term cj = assumptions.get(3 + random.nextInt(constants)).getVariable();
+				targetList.add(new CompositionTerm(new CompositionTerm(assumptions.get(1).getVariable(), ci), cj));
+			}
+
+			long scanTime = 0;
+			long indexTime = 0;
+			long scanCandidates = 0;
+			long indexCandidates = 0;
+			long retrieved = 0;
+			for (SimpleTerm target : targetList)
+			{
+				t0 = System.nanoTime();
+				Set<Statement> scan = new HashSet<>();
+				for (Statement statement : statements)
+					if (new StatementCandidate(statement, target).isAssigned())
+						scan.add(statement);
+				scanTime += System.nanoTime() - t0;
+				t0 = System.nanoTime();
+				Set<Statement> index = new HashSet<>();
+				Collection<Statement> candidates = discriminationTree.candidates(target);
+				for (Statement statement : candidates)
+					if (new StatementCandidate(statement, target).isAssigned())
+						index.add(statement);
+				indexTime += System.nanoTime() - t0;
+				if (!scan.equals(index))
+					throw new Exception("Candidate mismatch for target: " + target);
+				scanCandidates += scan.size();
+				indexCandidates += index.size();
+				retrieved += candidates.size();
+			}
+			System.out.format("Scan: %d candidates (%dms)\n", scanCandidates, scanTime / 1000000);
+			System.out.format("Index: %d candidates out of %d retrieved (%dms)\n", indexCandidates, retrieved, indexTime / 1000000);
+		}
+		finally
+		{
+			transaction.abort();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.test.term;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import aletheia.model.statement.Statement;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.ParameterVariableTerm;
+import aletheia.model.term.TauTerm;
+import aletheia.model.term.Term;
+import aletheia.persistence.Transaction;
+import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
+import aletheia.test.TransactionalBerkeleyDBPersistenceManagerTest;
+import aletheia.utilities.collections.CloseableIterator;
+
+/**
+ * Time spent hashing the terms of all the statements in the database and
+ * deeply nested synthetic functions. Hash codes are memoized, so every round
+ * works on freshly loaded terms. Run it on different revisions to compare
+ * hashing schemes (the hash values themselves must not change).
+ */
+public class TermTest0001 extends TransactionalBerkeleyDBPersistenceManagerTest
+{
+	private final static int rounds = 5;
+
+	public TermTest0001()
+	{
+		super();
+	}
+
+	private static List<Term> loadTerms(BerkeleyDBPersistenceManager persistenceManager, Transaction transaction)
+	{
+		List<Term> terms = new ArrayList<>();
+		CloseableIterator<Statement> iterator = persistenceManager.statements(transaction).values().iterator();
+		try
+		{
+			while (iterator.hasNext())
+				terms.add(iterator.next().getTerm());
+		}
+		finally
+		{
+			iterator.close();
+		}
+		return terms;
+	}
+
+	private static Term nestedFunction(int depth)
+	{
+		Term term = TauTerm.instance;
+		List<ParameterVariableTerm> parameters = new ArrayList<>();
+		for (int i = 0; i < depth; i++)
+		{
+			ParameterVariableTerm parameter = new ParameterVariableTerm(parameters.isEmpty() ? TauTerm.instance : parameters.get(i / 2));
+			parameters.add(parameter);
+		}
+		for (int i = depth - 1; i >= 0; i--)
+			term = new FunctionTerm(parameters.get(i), term);
+		return term;
+	}
+
+	@Override
+	protected void run(BerkeleyDBPersistenceManager persistenceManager, Transaction transaction) throws Exception
+	{
+		for (int r = 0; r < rounds; r++)
+		{
+			List<Term> terms = loadTerms(persistenceManager, transaction);
+			long t0 = System.nanoTime();
+			long sum = 0;
+			for (Term term : terms)
+				sum += term.hashCode();
+			long t1 = System.nanoTime();
+			System.out.format("round %d: %d terms hashed in %dms (checksum %d)\n", r, terms.size(), (t1 - t0) / 1000000, sum);
+		}
+		for (int depth = 64; depth <= 4096; depth *= 2)
+		{
+			Term term = nestedFunction(depth);
+			long t0 = System.nanoTime();
+			int hashCode = term.hashCode();
+			long t1 = System.nanoTime();
+			System.out.format("depth %d: %dus (hash %08x)\n", depth, (t1 - t0) / 1000, hashCode);
+		}
+	}
+
+}
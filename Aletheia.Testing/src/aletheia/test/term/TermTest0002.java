@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.test.term;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import aletheia.model.term.CompositionTerm;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.IdentifiableVariableTerm;
+import aletheia.model.term.ParameterVariableTerm;
+import aletheia.model.term.SimpleTerm;
+import aletheia.model.term.TauTerm;
+import aletheia.model.term.Term;
+import aletheia.test.Test;
+
+/**
+ * Times long chains of specializations: a function of many parameters whose
+ * body embeds a big closed subterm is composed with a value for every
+ * parameter in turn, as {@link aletheia.model.statement.Specialization}s do.
+ * Run it on different revisions to compare substitution strategies.
+ */
+public class TermTest0002 extends Test
+{
+	private final static int rounds = 5;
+
+	private final IdentifiableVariableTerm domain;
+	private final IdentifiableVariableTerm value;
+	private final IdentifiableVariableTerm relation;
+
+	public TermTest0002()
+	{
+		super();
+		this.domain = new IdentifiableVariableTerm(TauTerm.instance, UUID.randomUUID());
+		this.value = new IdentifiableVariableTerm(domain, UUID.randomUUID());
+		ParameterVariableTerm x = new ParameterVariableTerm(domain);
+		ParameterVariableTerm y = new ParameterVariableTerm(domain);
+		this.relation = new IdentifiableVariableTerm(new FunctionTerm(x, new FunctionTerm(y, TauTerm.instance)), UUID.randomUUID());
+	}
+
+	private Term relate(Term left, Term right) throws Exception
+	{
+		return new CompositionTerm(new CompositionTerm(relation, left), right);
+	}
+
+	/**
+	 * A closed term of the given size that doesn't depend on any parameter.
+	 */
+	private Term closedTerm(int size) throws Exception
+	{
+		Term term = relate(value, value);
+		for (int i = 0; i < size; i++)
+		{
+			ParameterVariableTerm p = new ParameterVariableTerm(term);
+			term = new FunctionTerm(p, relate(value, value));
+		}
+		return term;
+	}
+
+	private Term specializable(int parameters, int closedSize) throws Exception
+	{
+		List<ParameterVariableTerm> parameterList = new ArrayList<>();
+		for (int i = 0; i < parameters; i++)
+			parameterList.add(new ParameterVariableTerm(domain));
+		Term body = closedTerm(closedSize);
+		for (ParameterVariableTerm p : parameterList)
+			body = new FunctionTerm(new ParameterVariableTerm(relate(p, value)), body);
+		Term term = body;
+		for (int i = parameters - 1; i >= 0; i--)
+			term = new FunctionTerm(parameterList.get(i), term);
+		return term;
+	}
+
+	@Override
+	public void run() throws Exception
+	{
+		for (int parameters = 16; parameters <= 256; parameters *= 2)
+		{
+			Term term = specializable(parameters, 256);
+			long best = Long.MAX_VALUE;
+			for (int r = 0; r < rounds; r++)
+			{
+				long t0 = System.nanoTime();
+				Term specialized = term;
+				for (int i = 0; i < parameters; i++)
+					specialized = specialized.compose(value);
+				best = Math.min(best, System.nanoTime() - t0);
+				if (!(specialized instanceof FunctionTerm) && !(specialized instanceof SimpleTerm))
+					throw new Error();
+			}
+			System.out.format("%d specializations: %dus\n", parameters, best / 1000);
+		}
+	}
+
+}
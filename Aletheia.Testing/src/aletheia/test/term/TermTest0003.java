@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Quim Testar.
+ *
+ * This file is part of the Aletheia Proof Assistant.
+ *
+ * The Aletheia Proof Assistant is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * The Aletheia Proof Assistant is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with the Aletheia Proof Assistant. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package aletheia.test.term;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import aletheia.model.statement.RootContext;
+import aletheia.model.statement.Statement;
+import aletheia.model.term.CastTypeTerm;
+import aletheia.model.term.CompositionTerm;
+import aletheia.model.term.FoldingCastTypeTerm;
+import aletheia.model.term.FunctionTerm;
+import aletheia.model.term.ProjectionTerm;
+import aletheia.model.term.Term;
+import aletheia.model.term.VariableTerm;
+import aletheia.persistence.Transaction;
+import aletheia.persistence.berkeleydb.BerkeleyDBPersistenceManager;
+import aletheia.persistence.berkeleydb.proxies.term.TermDagCodec;
+import aletheia.test.TransactionalBerkeleyDBPersistenceManagerTest;
+import aletheia.utilities.collections.CloseableIterator;
+
+/**
+ * Round-trips the term of every statement of the database through
+ * {@link TermDagCodec} and compares the size of the encoding with the number
+ * of nodes of the tree the former proxies persisted, where every occurrence
+ * of a variable nested a full copy of its type.
+ */
+public class TermTest0003 extends TransactionalBerkeleyDBPersistenceManagerTest
+{
+
+	public TermTest0003()
+	{
+		super();
+		setReadOnly(true);
+	}
+
+	private long treeSize(Term term, Map<Term, Long> sizes)
+	{
+		Long size = sizes.get(term);
+		if (size == null)
+		{
+			if (term instanceof VariableTerm)
+				size = 1 + treeSize(term.getType(), sizes);
+			else if (term instanceof FunctionTerm)
+				size = 1 + treeSize(((FunctionTerm) term).getParameter(), sizes) + treeSize(((FunctionTerm) term).getBody(), sizes);
+			else if (term instanceof CompositionTerm)
+				size = 1 + treeSize(((CompositionTerm) term).getHead(), sizes) + treeSize(((CompositionTerm) term).getTail(), sizes);
+			else if (term instanceof ProjectionTerm)
+				size = 1 + treeSize(((ProjectionTerm) term).getFunction(), sizes);
+			else if (term instanceof FoldingCastTypeTerm)
+			{
+				FoldingCastTypeTerm folding = (FoldingCastTypeTerm) term;
+				size = 1 + treeSize(folding.getTerm(), sizes) + treeSize(folding.getType(), sizes) + treeSize(folding.getVariable(), sizes)
+						+ treeSize(folding.getValue(), sizes);
+			}
+			else if (term instanceof CastTypeTerm)
+				size = 1 + treeSize(((CastTypeTerm) term).getTerm(), sizes);
+			else
+				size = 1L;
+			sizes.put(term, size);
+		}
+		return size;
+	}
+
+	@Override
+	protected void run(BerkeleyDBPersistenceManager persistenceManager, Transaction transaction) throws Exception
+	{
+		Map<Term, Long> sizes = new IdentityHashMap<>();
+		long statements = 0;
+		long bytes = 0;
+		long nodes = 0;
+		long t0 = System.nanoTime();
+		CloseableIterator<RootContext> iterator = persistenceManager.rootContexts(transaction).values().iterator();
+		try
+		{
+			while (iterator.hasNext())
+			{
+				for (Statement statement : iterator.next().descendentStatements(transaction))
+				{
+					Term term = statement.getVariable();
+					byte[] data = TermDagCodec.encode(term);
+					if (!term.equals(TermDagCodec.decode(data)) || !term.getType().equals(TermDagCodec.decode(data).getType()))
+						throw new Exception("Round trip mismatch on statement: " + statement.getUuid());
+					statements++;
+					bytes += data.length;
+					nodes += treeSize(term, sizes);
+				}
+			}
+		}
+		finally
+		{
+			iterator.close();
+		}
+		System.out.format("%d statements (%dms): %d encoded bytes, %d tree nodes with inline variable types\n", statements,
+				(System.nanoTime() - t0) / 1000000, bytes, nodes);
+	}
+
+}
@@ -79,6 +79,20 @@ public abstract class ListenableAborter implements Aborter
 		listeners.remove(listener);
 	}
 
+	/**
+	 * Progress report from the process controlled by this aborter. Does nothing
+	 * by default.
+	 *
+	 * @param done
+	 *            The number of units of work done so far.
+	 * @param rate
+	 *            The number of units of work done per second since the process
+	 *            started.
+	 */
+	public void progress(long done, double rate)
+	{
+	}
+
 	/**
 	 * Invoke the {@link Listener#abort()} method on each listener.
 	 */